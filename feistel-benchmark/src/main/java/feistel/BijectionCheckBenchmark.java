@@ -0,0 +1,41 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BijectionCheckBenchmark {
+
+    @Param({"24", "28"})
+    private int bits;
+
+    private Isomorphism.OfLong feistel;
+
+    @Setup
+    public void setup() {
+        feistel = Feistel.ofLongBalanced(bits, 8, (round, value) ->
+                (value ^ round) * 0x9e37_79b9_7f4a_7c15L >>> 32);
+    }
+
+    @Benchmark
+    public BijectionCheck checkBijection() {
+        return Feistel.checkBijection(feistel, 1L << bits);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(BijectionCheckBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,92 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Point;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ChunkProducerBenchmark {
+
+    private static final int WIDTH = 1920;
+    private static final int HEIGHT = 1080;
+
+    @Param({"100", "4096"})
+    private int chunkSize;
+
+    private Isomorphism.OfInt feistel;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        feistel = Feistel.ofIntNumeric(WIDTH, HEIGHT, 3,
+                (round, value) -> value * 11 + (value >> 5) + 7 * 127 ^ value);
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void boxedListBatches(Blackhole bh) {
+        List<Point> batch = new ArrayList<>(chunkSize);
+        IntStream.range(0, WIDTH * HEIGHT).map(feistel).forEach(i -> {
+            batch.add(new Point(i % WIDTH, i / WIDTH));
+            if (batch.size() == chunkSize) {
+                bh.consume(new ArrayList<>(batch));
+                batch.clear();
+            }
+        });
+        bh.consume(batch);
+    }
+
+    @Benchmark
+    public void chunksForEach(Blackhole bh) {
+        Feistel.intChunks(feistel, WIDTH * HEIGHT, chunkSize).forEach(chunk -> {
+            int[] values = chunk.values();
+            for (int i = 0; i < chunk.length(); i++) {
+                bh.consume(values[i] % WIDTH);
+                bh.consume(values[i] / WIDTH);
+            }
+            return true;
+        });
+    }
+
+    @Benchmark
+    public void chunksQueue(Blackhole bh) throws InterruptedException {
+        ChunkProducer.Queue<int[]> queue = Feistel
+                .intChunks(feistel, WIDTH * HEIGHT, chunkSize)
+                .start(executor, 4);
+        for (ChunkProducer.Chunk<int[]> chunk; (chunk = queue.take()) != null; ) {
+            int[] values = chunk.values();
+            for (int i = 0; i < chunk.length(); i++) {
+                bh.consume(values[i] % WIDTH);
+                bh.consume(values[i] / WIDTH);
+            }
+            queue.release(chunk);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ChunkProducerBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,73 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import static java.math.BigInteger.ONE;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeistelBigIntegerNumericBenchmark {
+
+    @Param({"80", "128", "256"})
+    private int bits;
+
+    @Param("7")
+    private int rounds;
+
+    private BigInteger input;
+
+    private Isomorphism<BigInteger, BigInteger> fe1;
+    private Isomorphism<BigInteger, BigInteger> fe2;
+    private Isomorphism<BigInteger, BigInteger> fe1Barrett;
+    private Isomorphism<BigInteger, BigInteger> fe2Barrett;
+
+    @Setup
+    public void setup() {
+        BigInteger a = ONE.shiftLeft(bits / 2).subtract(BigInteger.valueOf(159));
+        BigInteger b = ONE.shiftLeft(bits / 2).subtract(BigInteger.valueOf(189));
+        input = a.multiply(b).divide(BigInteger.valueOf(3));
+
+        RoundFunction<BigInteger> f = (round, value) -> value;
+        fe1 = FeistelOfBigIntegerNumeric.fe1(rounds, a, b, f);
+        fe2 = FeistelOfBigIntegerNumeric.fe2(rounds, a, b, f);
+        fe1Barrett = FeistelOfBigIntegerNumeric.fe1Barrett(rounds, a, b, f);
+        fe2Barrett = FeistelOfBigIntegerNumeric.fe2Barrett(rounds, a, b, f);
+    }
+
+    @Benchmark
+    public BigInteger fe1() {
+        return fe1.apply(input);
+    }
+
+    @Benchmark
+    public BigInteger fe2() {
+        return fe2.apply(input);
+    }
+
+    @Benchmark
+    public BigInteger fe1Barrett() {
+        return fe1Barrett.apply(input);
+    }
+
+    @Benchmark
+    public BigInteger fe2Barrett() {
+        return fe2Barrett.apply(input);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelBigIntegerNumericBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -21,10 +21,12 @@ public class FeistelBinaryBenchmark {
 
     private BigInteger inputBigInteger;
 
-    @Param("7")
+    @Param({"4", "7", "8"})
     private int rounds;
 
     private Isomorphism.OfLong longBalanced;
+    private Isomorphism.OfLong longBalancedUnrolled;
+    private Isomorphism.OfInt intBalanced;
     private Isomorphism.OfLong longUnbalanced;
     private Isomorphism<BigInteger, BigInteger> bigIntegerBalanced;
     private Isomorphism<BigInteger, BigInteger> bigIntegerUnbalanced;
@@ -34,10 +36,13 @@ public class FeistelBinaryBenchmark {
         inputBigInteger = BigInteger.valueOf(input);
 
         RoundFunction.OfLong f64 = (round, value) -> value;
+        RoundFunction.OfInt f32 = (round, value) -> value;
         RoundFunction<BigInteger> f = (round, value) -> value;
 
         longUnbalanced = FeistelOfLongBinary.unbalanced(rounds, 64, 32, 32, f64);
         longBalanced = FeistelOfLongBinary.balanced(rounds, 64, f64);
+        longBalancedUnrolled = FeistelOfLongBinary.balancedUnrolled(rounds, 64, f64);
+        intBalanced = FeistelOfIntBinary.balanced(rounds, 32, f32);
         bigIntegerBalanced = FeistelOfBigIntegerBinary.balanced(rounds, 64, f);
         bigIntegerUnbalanced = FeistelOfBigIntegerBinary.unbalanced(rounds, 64, 32, 32, f);
     }
@@ -47,6 +52,16 @@ public class FeistelBinaryBenchmark {
         return longBalanced.applyAsLong(input);
     }
 
+    @Benchmark
+    public long longBalancedUnrolled() {
+        return longBalancedUnrolled.applyAsLong(input);
+    }
+
+    @Benchmark
+    public int intBalanced() {
+        return intBalanced.applyAsInt((int) input);
+    }
+
     @Benchmark
     public long longUnbalanced() {
         return longUnbalanced.applyAsLong(input);
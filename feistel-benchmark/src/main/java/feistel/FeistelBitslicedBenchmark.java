@@ -0,0 +1,66 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@OperationsPerInvocation(FeistelBitslicedBenchmark.SIZE)
+public class FeistelBitslicedBenchmark {
+
+    static final int SIZE = 4096;
+
+    @Param({"8", "16"})
+    private int totalBits;
+
+    @Param("8")
+    private int rounds;
+
+    private int[] input;
+    private int[] output;
+
+    private Isomorphism.OfInt scalar;
+    private BitslicedFeistel bitsliced;
+
+    @Setup
+    public void setup() {
+        int mask = (1 << totalBits) - 1;
+        input = IntStream.range(0, SIZE).map(i -> i * 31 & mask).toArray();
+        output = new int[SIZE];
+
+        RoundFunction.OfInt f = (round, value) -> value ^ (value << 1 & value << 2) ^ round;
+        scalar = Feistel.ofIntBalanced(totalBits, rounds, f);
+        bitsliced = Feistel.ofBitsliced(
+                totalBits, rounds, BitslicedFeistel.Circuit.AND_ROTATE, 42);
+    }
+
+    @Benchmark
+    public int[] scalar() {
+        for (int i = 0; i < SIZE; i++) {
+            output[i] = scalar.applyAsInt(input[i]);
+        }
+        return output;
+    }
+
+    @Benchmark
+    public int[] bitsliced() {
+        bitsliced.apply(input, 0, output, 0, SIZE);
+        return output;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelBitslicedBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
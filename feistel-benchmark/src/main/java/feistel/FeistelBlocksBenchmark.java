@@ -0,0 +1,80 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gathers from a 4 GiB array through a flat Feistel and through block
+ * Feistels with blocks of a cache line and of a page. Needs a heap of
+ * more than 4 GiB.
+ */
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class FeistelBlocksBenchmark {
+
+    private static final int A = 1 << 14;
+    private static final int B = 1 << 15;
+    private static final int SIZE = A * B;
+    private static final int GATHERS = 1 << 22;
+
+    private static final RoundFunction.OfLong F = (round, value) ->
+            (value ^ round) * 0x9e37_79b9_7f4a_7c15L >>> 16;
+
+    @Param({"8", "512"})
+    private int blockSize;
+
+    private long[] array;
+    private Isomorphism.OfLong flat;
+    private Isomorphism.OfLong blocks;
+    private long start;
+
+    @Setup
+    public void setup() {
+        array = new long[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            array[i] = i;
+        }
+        flat = Feistel.ofLongNumeric(A, B, 8, F);
+        blocks = Feistel.ofLongBlocks(SIZE, blockSize, 8, F);
+    }
+
+    /**
+     * Gathers from a different range of positions on each call,
+     * so that the runs do not reuse what the previous run cached.
+     */
+    private long gather(Isomorphism.OfLong f) {
+        long sum = 0;
+        long from = start;
+        for (long i = from; i < from + GATHERS; i++) {
+            sum += array[(int) f.applyAsLong(i)];
+        }
+        start = (from + GATHERS) % SIZE;
+        return sum;
+    }
+
+    @Benchmark
+    public long flat() {
+        return gather(flat);
+    }
+
+    @Benchmark
+    public long blocks() {
+        return gather(blocks);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelBlocksBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,81 @@
+package feistel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reports assignments per microsecond, that is, millions per second.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@OperationsPerInvocation(FeistelBucketsBenchmark.SIZE)
+public class FeistelBucketsBenchmark {
+
+    static final int SIZE = 1_000_000;
+
+    @Param({"16", "1000"})
+    private int buckets;
+
+    @Param({"4", "7"})
+    private int rounds;
+
+    private long[] ids;
+    private int[] output;
+    private int[][] outputs;
+    private int[] bucketCounts;
+    private FeistelBuckets feistel;
+
+    @Setup
+    public void setup() {
+        long a = 1_000_003;
+        long b = 999_983;
+        ids = new SplittableRandom(0).longs(SIZE, 0, a * b).toArray();
+        output = new int[SIZE];
+        bucketCounts = new int[]{buckets, buckets * 2, buckets + 1};
+        outputs = new int[bucketCounts.length][SIZE];
+        feistel = Feistel.buckets(a, b, buckets, rounds, (round, value) ->
+                ((value ^ round) * 0x9e37_79b9_7f4a_7c15L) >>> 16);
+    }
+
+    @Benchmark
+    public int[] assignAll() {
+        feistel.assignAll(ids, output);
+        return output;
+    }
+
+    @Benchmark
+    public int[][] reassignAll() {
+        feistel.reassignAll(ids, bucketCounts, outputs);
+        return outputs;
+    }
+
+    /**
+     * Approximately balanced buckets by hashing, for comparison.
+     */
+    @Benchmark
+    public int[] hashed() {
+        for (int i = 0; i < ids.length; i++) {
+            long z = ids[i];
+            z = (z ^ (z >>> 30)) * 0xbf58_476d_1ce4_e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d0_49bb_1331_11ebL;
+            output[i] = (int) Long.remainderUnsigned(z ^ (z >>> 31), buckets);
+        }
+        return output;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelBucketsBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,195 @@
+package feistel;
+
+import com.carrotsearch.hppc.LongHashSet;
+import com.carrotsearch.hppc.LongLongHashMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeistelCollectionsBenchmark {
+
+    public enum Keys {
+        SEQUENTIAL {
+            @Override
+            long key(int i, SplittableRandom random) {
+                return i;
+            }
+        },
+        RANDOM {
+            @Override
+            long key(int i, SplittableRandom random) {
+                return random.nextLong();
+            }
+        },
+        /**
+         * Keys that only differ in their high bits, these collide in
+         * tables indexed by the low bits of a weak hash.
+         */
+        HIGH_BITS {
+            @Override
+            long key(int i, SplittableRandom random) {
+                return ((long) i << 32) | 0xdead_beefL;
+            }
+        },
+        /**
+         * Keys in clusters of 64 consecutive values spaced 2<sup>20</sup>
+         * apart.
+         */
+        CLUSTERED {
+            @Override
+            long key(int i, SplittableRandom random) {
+                return ((long) (i >>> 6) << 20) | (i & 63);
+            }
+        },
+        /**
+         * Keys chosen to scramble to consecutive values under a known
+         * scrambler, which would all fall into one probe run if every
+         * table used it, the default tables are keyed randomly per
+         * instance so these spread like random keys.
+         */
+        ADVERSARIAL {
+            private final LongUnaryOperator inverse =
+                    Scrambling.seeded(0).inverse();
+
+            @Override
+            long key(int i, SplittableRandom random) {
+                return inverse.applyAsLong(i + 1L);
+            }
+        };
+
+        abstract long key(int i, SplittableRandom random);
+    }
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param
+    private Keys keys;
+
+    private long[] inserts;
+    private long[] lookups;
+    private FeistelLongSet feistelSet;
+    private LongHashSet hppcSet;
+    private FeistelLongLongMap feistelMap;
+    private LongLongHashMap hppcMap;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(0);
+        inserts = new long[size];
+        for (int i = 0; i < size; i++) {
+            inserts[i] = keys.key(i, random);
+        }
+        lookups = new long[size];
+        for (int i = 0; i < size; i++) {
+            // Half hits, half misses
+            lookups[i] = i % 2 == 0
+                    ? inserts[random.nextInt(size)]
+                    : keys.key(size + i, random);
+        }
+
+        feistelSet = new FeistelLongSet();
+        hppcSet = new LongHashSet();
+        feistelMap = new FeistelLongLongMap();
+        hppcMap = new LongLongHashMap();
+        for (long key : inserts) {
+            feistelSet.add(key);
+            hppcSet.add(key);
+            feistelMap.put(key, key);
+            hppcMap.put(key, key);
+        }
+    }
+
+    @Benchmark
+    public FeistelLongSet feistelSetAdd() {
+        FeistelLongSet set = new FeistelLongSet();
+        for (long key : inserts) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public LongHashSet hppcSetAdd() {
+        LongHashSet set = new LongHashSet();
+        for (long key : inserts) {
+            set.add(key);
+        }
+        return set;
+    }
+
+    @Benchmark
+    public int feistelSetContains() {
+        int found = 0;
+        for (long key : lookups) {
+            if (feistelSet.contains(key)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int hppcSetContains() {
+        int found = 0;
+        for (long key : lookups) {
+            if (hppcSet.contains(key)) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public FeistelLongLongMap feistelMapPut() {
+        FeistelLongLongMap map = new FeistelLongLongMap();
+        for (long key : inserts) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public LongLongHashMap hppcMapPut() {
+        LongLongHashMap map = new LongLongHashMap();
+        for (long key : inserts) {
+            map.put(key, key);
+        }
+        return map;
+    }
+
+    @Benchmark
+    public long feistelMapGet() {
+        long sum = 0;
+        for (long key : lookups) {
+            sum += feistelMap.get(key, 0);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long hppcMapGet() {
+        long sum = 0;
+        for (long key : lookups) {
+            sum += hppcMap.getOrDefault(key, 0);
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelCollectionsBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,78 @@
+package feistel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeistelRandomBenchmark {
+
+    @Param({"4", "6", "8"})
+    private int rounds;
+
+    private final long[] array = new long[1 << 16];
+    private FeistelRandom feistel;
+    private SplittableRandom splittable;
+
+    @Setup
+    public void setup() {
+        feistel = Feistel.random(0, rounds);
+        splittable = new SplittableRandom(0);
+    }
+
+    @Benchmark
+    public long[] feistelNextLong() {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = feistel.nextLong();
+        }
+        return array;
+    }
+
+    @Benchmark
+    public long[] feistelNextLongs() {
+        feistel.nextLongs(array);
+        return array;
+    }
+
+    @Benchmark
+    public long feistelAt() {
+        long sum = 0;
+        for (int i = 0; i < array.length; i++) {
+            sum += feistel.at(i * 1_000_003L);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long[] splittableRandom() {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = splittable.nextLong();
+        }
+        return array;
+    }
+
+    @Benchmark
+    public long[] threadLocalRandom() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < array.length; i++) {
+            array[i] = random.nextLong();
+        }
+        return array;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelRandomBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,53 @@
+package feistel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeistelRegistryBenchmark {
+
+    private static final long SIZE = 1_000_000;
+
+    @Param({"1000", "100000"})
+    private int tenants;
+
+    private FeistelRegistry<Long> registry;
+
+    @Setup
+    public void setup() {
+        registry = Feistel.registry(10_000,
+                (key, size) -> Feistel.spec(size, 8, key).feistel());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long registry() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return registry.get(random.nextInt(tenants), SIZE)
+                .applyAsLong(random.nextLong(SIZE));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long buildPerRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return Feistel.spec(SIZE, 8, random.nextInt(tenants)).feistel()
+                .applyAsLong(random.nextLong(SIZE));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelRegistryBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
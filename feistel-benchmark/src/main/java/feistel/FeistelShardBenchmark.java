@@ -0,0 +1,70 @@
+package feistel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@OperationsPerInvocation(FeistelShardBenchmark.SIZE)
+public class FeistelShardBenchmark {
+
+    static final int SIZE = 1 << 22;
+
+    @Param({"1", "2", "4", "8"})
+    private int workers;
+
+    private FeistelSpec spec;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup() {
+        spec = Feistel.spec(SIZE, 8, 42);
+        executor = Executors.newFixedThreadPool(workers);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public long shards() throws Exception {
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            int worker = i;
+            futures.add(executor.submit(() -> {
+                PrimitiveIterator.OfLong it = spec.shard(worker, workers).iterator();
+                long sum = 0;
+                while (it.hasNext()) {
+                    sum += it.nextLong();
+                }
+                return sum;
+            }));
+        }
+        long sum = 0;
+        for (Future<Long> future : futures) {
+            sum += future.get();
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelShardBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,72 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class GridFeistelBenchmark {
+
+    @Param({"320", "1920"})
+    private int width;
+
+    @Param({"200", "1080"})
+    private int height;
+
+    @Param("8")
+    private int rounds;
+
+    private int[] xs;
+    private int[] ys;
+    private Isomorphism.OfInt numeric;
+    private GridFeistel grid;
+
+    @Setup
+    public void setup() {
+        xs = new int[width * height];
+        ys = new int[width * height];
+        RoundFunction.OfInt f = (round, value) ->
+                value * 11 + (value >> 5) + 7 * 127 ^ value;
+        numeric = Feistel.ofIntNumeric(width, height, rounds, f);
+        grid = Feistel.ofGrid(new int[]{height, width}, rounds,
+                (round, value) -> f.applyAsInt(round, (int) value));
+    }
+
+    @Benchmark
+    public int[] fizzleFade() {
+        for (int i = 0; i < xs.length; i++) {
+            int j = numeric.applyAsInt(i);
+            xs[i] = j % width;
+            ys[i] = j / width;
+        }
+        return xs;
+    }
+
+    @Benchmark
+    public int[] grid() {
+        grid.apply(0, new int[][]{ys, xs}, 0, xs.length);
+        return xs;
+    }
+
+    @Benchmark
+    public int[] gridParallel() {
+        grid.applyParallel(0, new int[][]{ys, xs}, 0, xs.length);
+        return xs;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(GridFeistelBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
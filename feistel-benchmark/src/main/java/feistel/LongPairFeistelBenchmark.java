@@ -0,0 +1,115 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Long.toUnsignedString;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LongPairFeistelBenchmark {
+
+    /**
+     * {@code a} and {@code b} are each {@code 2^(bits / 2)} minus a small
+     * odd number, so the domain is just below {@code 2^bits}.
+     */
+    @Param({"66", "96", "128"})
+    private int bits;
+
+    @Param("7")
+    private int rounds;
+
+    private BigInteger[] inputs;
+    private long[] pairs;
+    private long[] values;
+    private LongPairFeistel fe1;
+    private LongPairFeistel fe2;
+    private Isomorphism<BigInteger, BigInteger> fe1BigInteger;
+    private Isomorphism<BigInteger, BigInteger> fe2BigInteger;
+
+    @Setup
+    public void setup() {
+        long a = (bits == 128 ? 0 : 1L << (bits / 2)) - 159;
+        long b = (bits == 128 ? 0 : 1L << (bits / 2)) - 189;
+        BigInteger bigA = new BigInteger(toUnsignedString(a));
+        BigInteger bigB = new BigInteger(toUnsignedString(b));
+        BigInteger size = bigA.multiply(bigB);
+
+        Random random = new Random(0);
+        inputs = new BigInteger[1_000];
+        pairs = new long[inputs.length * 2];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = new BigInteger(bits + 8, random).mod(size);
+            pairs[2 * i] = inputs[i].shiftRight(64).longValue();
+            pairs[2 * i + 1] = inputs[i].longValue();
+        }
+        values = pairs.clone();
+
+        RoundFunction.OfLong f = (round, value) ->
+                (value ^ round) * 0x9e37_79b9_7f4a_7c15L;
+        RoundFunction<BigInteger> bigF = (round, value) ->
+                BigInteger.valueOf(f.applyAsLong(round, value.longValue()));
+        fe1 = Feistel.ofLongPairNumericFe1(a, b, rounds, f);
+        fe2 = Feistel.ofLongPairNumeric(a, b, rounds, f);
+        fe1BigInteger = Feistel.ofBigIntegerNumericFe1(bigA, bigB, rounds, bigF);
+        fe2BigInteger = Feistel.ofBigIntegerNumeric(bigA, bigB, rounds, bigF);
+    }
+
+    @Benchmark
+    public long[] fe1() {
+        System.arraycopy(pairs, 0, values, 0, pairs.length);
+        fe1.applyAll(values);
+        return values;
+    }
+
+    @Benchmark
+    public long[] fe2() {
+        System.arraycopy(pairs, 0, values, 0, pairs.length);
+        fe2.applyAll(values);
+        return values;
+    }
+
+    @Benchmark
+    public long[] fe2Single() {
+        long[] output = values;
+        for (int i = 0; i < pairs.length; i += 2) {
+            fe2.apply(pairs[i], pairs[i + 1], output);
+        }
+        return output;
+    }
+
+    @Benchmark
+    public BigInteger fe1BigInteger() {
+        BigInteger result = null;
+        for (BigInteger input : inputs) {
+            result = fe1BigInteger.apply(input);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public BigInteger fe2BigInteger() {
+        BigInteger result = null;
+        for (BigInteger input : inputs) {
+            result = fe2BigInteger.apply(input);
+        }
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(LongPairFeistelBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,84 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MultiKeyFeistelBenchmark {
+
+    @Param({"64", "128", "256"})
+    private int k;
+
+    @Param({"6"})
+    private int rounds;
+
+    private long[] values;
+    private long[][] documents;
+    private MultiKeyFeistel multiKey;
+    private Isomorphism.OfLong[] separate;
+
+    @Setup
+    public void setup() {
+        SplittableRandom random = new SplittableRandom(0);
+        values = random.longs(10_000).toArray();
+        documents = new long[100][];
+        for (int d = 0; d < documents.length; d++) {
+            documents[d] = random.longs(1_000).toArray();
+        }
+        long[] keys = random.longs(k).toArray();
+        multiKey = Feistel.ofMultiKey(64, rounds, keys);
+        separate = new Isomorphism.OfLong[k];
+        for (int j = 0; j < k; j++) {
+            long key = keys[j];
+            separate[j] = Feistel.ofLongBalanced(64, rounds, (round, value) ->
+                    ((value ^ key ^ round) * 0x9e37_79b9_7f4a_7c15L) >>> 32);
+        }
+    }
+
+    @Benchmark
+    public long[] multiKey() {
+        long[] signature = multiKey.newSignature();
+        multiKey.update(values, 0, values.length, signature);
+        return signature;
+    }
+
+    @Benchmark
+    public long[] separate() {
+        long[] signature = new long[k];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        for (long value : values) {
+            for (int j = 0; j < k; j++) {
+                signature[j] = Math.min(signature[j], separate[j].applyAsLong(value));
+            }
+        }
+        return signature;
+    }
+
+    @Benchmark
+    public long[][] signatures() {
+        return multiKey.signatures(documents);
+    }
+
+    @Benchmark
+    public long[][] signaturesParallel() {
+        return multiKey.signaturesParallel(documents);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(MultiKeyFeistelBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
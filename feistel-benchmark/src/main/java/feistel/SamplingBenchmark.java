@@ -0,0 +1,63 @@
+package feistel;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SamplingBenchmark {
+
+    @Param({"1000", "1000000"})
+    private int k;
+
+    @Param({"100000000", "1000000000000"})
+    private long n;
+
+    private long key;
+
+    @Setup(Level.Invocation)
+    public void setup() {
+        key = ThreadLocalRandom.current().nextLong();
+    }
+
+    @Benchmark
+    public long[] feistel() {
+        return Feistel.sample(k, n, key);
+    }
+
+    @Benchmark
+    public long[] feistelParallel() {
+        return Feistel.sampleParallel(k, n, key);
+    }
+
+    @Benchmark
+    public long[] randomWithHashSet() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Set<Long> seen = new HashSet<>();
+        long[] sample = new long[k];
+        for (int i = 0; i < k; ) {
+            long element = random.nextLong(n);
+            if (seen.add(element)) {
+                sample[i++] = element;
+            }
+        }
+        return sample;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(SamplingBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,65 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class ShuffleBenchmark {
+
+    @Param({"1048576", "16777216"})
+    private int size;
+
+    private long[] array;
+    private long[] dest;
+    private Isomorphism.OfLong f;
+
+    @Setup
+    public void setup() {
+        array = LongStream.range(0, size).toArray();
+        dest = new long[size];
+        f = Feistel.spec(size, 8, 42).feistel();
+    }
+
+    @Benchmark
+    public long[] fisherYates() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = array.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long tmp = array[i];
+            array[i] = array[j];
+            array[j] = tmp;
+        }
+        return array;
+    }
+
+    @Benchmark
+    public long[] feistelInPlace() {
+        Feistel.shuffle(array, f);
+        return array;
+    }
+
+    @Benchmark
+    public long[] feistelGather() {
+        Feistel.shuffle(array, dest, f);
+        return dest;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ShuffleBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
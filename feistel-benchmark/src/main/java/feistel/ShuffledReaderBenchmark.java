@@ -0,0 +1,90 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class ShuffledReaderBenchmark {
+
+    private static final int RECORDS = 1 << 18;
+
+    @Param({"128"})
+    private int recordSize;
+
+    @Param({"4096", "65536"})
+    private int windowSize;
+
+    private Path file;
+    private Isomorphism.OfLong f;
+
+    @Setup
+    public void setup() throws IOException {
+        file = Files.createTempFile("feistel", ".records");
+        byte[] data = new byte[RECORDS * recordSize];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Files.write(file, data);
+        f = Feistel.spec(RECORDS, 8, 42).feistel();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    @Benchmark
+    public long shuffledReader() throws IOException {
+        byte[] record = new byte[recordSize];
+        long sum = 0;
+        try (ShuffledReader reader = Feistel.shuffledReader(
+                file, recordSize, f, windowSize, 2)) {
+            while (reader.hasNext()) {
+                reader.next(record);
+                sum += record[0];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long randomReads() throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(recordSize);
+        long sum = 0;
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            for (long position = 0; position < RECORDS; position++) {
+                record.clear();
+                long offset = f.applyAsLong(position) * recordSize;
+                while (record.hasRemaining()) {
+                    offset += channel.read(record, offset);
+                }
+                sum += record.get(0);
+            }
+        }
+        return sum;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ShuffledReaderBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,52 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UniqueIdGeneratorBenchmark {
+
+    @Param({"1", "64", "1024"})
+    private int blockSize;
+
+    private Isomorphism.OfLong feistel;
+    private UniqueIdGenerator ids;
+    private AtomicLong counter;
+
+    @Setup
+    public void setup() {
+        RoundFunction.OfLong f = (round, value) ->
+                (value * 0x9e37_79b9_7f4a_7c15L) >>> round;
+        feistel = Feistel.ofLongBalanced(64, 8, f);
+        ids = Feistel.uniqueIds(feistel, 0, Long.MAX_VALUE, blockSize);
+        counter = new AtomicLong();
+    }
+
+    @Benchmark
+    public long uniqueIds() {
+        return ids.next();
+    }
+
+    @Benchmark
+    public long sharedCounter() {
+        return feistel.applyAsLong(counter.getAndIncrement());
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(UniqueIdGeneratorBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
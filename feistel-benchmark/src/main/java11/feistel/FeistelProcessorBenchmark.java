@@ -0,0 +1,118 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of a local pipeline publishing batches through a
+ * {@link FeistelProcessor} to a subscriber summing the values.
+ */
+@Fork(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FeistelProcessorBenchmark {
+
+    private static final int BATCHES = 1024;
+
+    @Param({"1024", "65536"})
+    private int batchSize;
+
+    @Param({"1", "4", "16"})
+    private int maxInFlight;
+
+    private Isomorphism.OfLong feistel;
+    private ExecutorService executor;
+    private long[][] batches;
+
+    @Setup
+    public void setup() {
+        feistel = Feistel.ofLongBalanced(32, 7,
+                (round, value) -> value * 0x9e37_79b9_7f4a_7c15L + round);
+        executor = Executors.newWorkStealingPool();
+        batches = new long[BATCHES][batchSize];
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public long sequential() {
+        long sum = 0;
+        for (long[] batch : batches) {
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = feistel.applyAsLong(batch[i] & 0xffff_ffffL);
+                sum += batch[i];
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long processor() throws InterruptedException {
+        FeistelProcessor<long[]> processor =
+                FeistelProcessor.ofArrays(feistel, executor, maxInFlight);
+        Summing subscriber = new Summing();
+        processor.subscribe(subscriber);
+        try (SubmissionPublisher<long[]> publisher =
+                     new SubmissionPublisher<>(Runnable::run, maxInFlight)) {
+            publisher.subscribe(processor);
+            for (long[] batch : batches) {
+                for (int i = 0; i < batch.length; i++) {
+                    batch[i] &= 0xffff_ffffL;
+                }
+                publisher.submit(batch);
+            }
+        }
+        subscriber.done.await();
+        return subscriber.sum;
+    }
+
+    private static final class Summing implements Flow.Subscriber<long[]> {
+
+        final CountDownLatch done = new CountDownLatch(1);
+        long sum;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(long[] item) {
+            for (long value : item) {
+                sum += value;
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(FeistelProcessorBenchmark.class.getName())
+                .build();
+        new Runner(options).run();
+    }
+}
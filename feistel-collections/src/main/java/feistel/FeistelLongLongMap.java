@@ -0,0 +1,327 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A map from {@code long} keys to {@code long} values, using open
+ * addressing with linear probing over the keys scrambled by a 64-bit
+ * Feistel.
+ * <p>
+ * Only the scrambled keys are stored, the original keys are recovered
+ * with the inverse of the Feistel when iterating. As the Feistel is a
+ * bijection, distinct keys never collide after scrambling, and
+ * sequential or clustered keys spread as well as random ones.
+ * <p>
+ * Instances are not thread safe.
+ */
+public final class FeistelLongLongMap {
+
+    /**
+     * Receives the entries of a map.
+     */
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long value);
+    }
+
+    private final Isomorphism.OfLong scrambler;
+    private final Isomorphism.OfLong unscrambler;
+    private long[] keys;
+    private long[] values;
+    private int shift;
+    private int mask;
+    private int threshold;
+    private int size;
+    private boolean hasZero;
+    private long zeroValue;
+
+    /**
+     * Creates an empty map with a scrambler randomly keyed for this
+     * map.
+     */
+    public FeistelLongLongMap() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty map with a scrambler randomly keyed for this
+     * map, that can hold {@code expectedSize} entries without resizing.
+     * As the layout of the map cannot be predicted, keys cannot be
+     * chosen to all fall into one probe run.
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    public FeistelLongLongMap(int expectedSize) {
+        this(expectedSize, Scrambling.random());
+    }
+
+    /**
+     * Creates an empty map that can hold {@code expectedSize} entries
+     * without resizing, scrambling the keys with {@code scrambler},
+     * which must be a bijection over all {@code long} values, such as
+     * {@code Feistel.ofLongBalanced(64, rounds, f)}, such as for a
+     * reproducible layout.
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     * @throws NullPointerException     if {@code scrambler} is null
+     */
+    public FeistelLongLongMap(int expectedSize, Isomorphism.OfLong scrambler) {
+        this.scrambler = requireNonNull(scrambler, "scrambler cannot be null");
+        this.unscrambler = scrambler.inverse();
+        allocate(Scrambling.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        shift = Scrambling.shiftFor(capacity);
+        mask = capacity - 1;
+        threshold = Scrambling.thresholdFor(capacity);
+    }
+
+    /**
+     * Returns the number of entries in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this map has no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private int find(long s) {
+        long[] keys = this.keys;
+        for (int i = (int) (s >>> shift); ; i = (i + 1) & mask) {
+            long existing = keys[i];
+            if (existing == s) {
+                return i;
+            }
+            if (existing == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Returns true if this map contains the key.
+     */
+    public boolean containsKey(long key) {
+        long s = scrambler.applyAsLong(key);
+        return s == 0 ? hasZero : find(s) >= 0;
+    }
+
+    /**
+     * Returns the value of the key, or {@code defaultValue}
+     * if this map does not contain the key.
+     */
+    public long get(long key, long defaultValue) {
+        long s = scrambler.applyAsLong(key);
+        if (s == 0) {
+            return hasZero ? zeroValue : defaultValue;
+        }
+        int i = find(s);
+        return i < 0 ? defaultValue : values[i];
+    }
+
+    /**
+     * Associates the value with the key.
+     *
+     * @return true if this map did not already contain the key
+     * @throws IllegalStateException if the map is at its maximum capacity
+     */
+    public boolean put(long key, long value) {
+        long s = scrambler.applyAsLong(key);
+        if (s == 0) {
+            zeroValue = value;
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        long[] keys = this.keys;
+        int i = (int) (s >>> shift);
+        for (long existing; (existing = keys[i]) != 0; i = (i + 1) & mask) {
+            if (existing == s) {
+                values[i] = value;
+                return false;
+            }
+        }
+        if (size >= threshold) {
+            grow();
+            keys = this.keys;
+            i = emptySlot(s);
+        }
+        keys[i] = s;
+        values[i] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * Adds {@code delta} to the value of the key, treating a missing
+     * key as having the value 0.
+     *
+     * @return the new value
+     * @throws IllegalStateException if the map is at its maximum capacity
+     */
+    public long addTo(long key, long delta) {
+        long s = scrambler.applyAsLong(key);
+        if (s == 0) {
+            if (!hasZero) {
+                hasZero = true;
+                size++;
+            }
+            return zeroValue += delta;
+        }
+        long[] keys = this.keys;
+        int i = (int) (s >>> shift);
+        for (long existing; (existing = keys[i]) != 0; i = (i + 1) & mask) {
+            if (existing == s) {
+                return values[i] += delta;
+            }
+        }
+        if (size >= threshold) {
+            grow();
+            keys = this.keys;
+            i = emptySlot(s);
+        }
+        keys[i] = s;
+        values[i] = delta;
+        size++;
+        return delta;
+    }
+
+    /**
+     * Removes the key from this map.
+     *
+     * @return true if this map contained the key
+     */
+    public boolean remove(long key) {
+        long s = scrambler.applyAsLong(key);
+        if (s == 0) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            zeroValue = 0;
+            size--;
+            return true;
+        }
+        int i = find(s);
+        if (i < 0) {
+            return false;
+        }
+        shiftBack(i);
+        size--;
+        return true;
+    }
+
+    /**
+     * Empties the slot by shifting back the entries that follow it in
+     * the same probe sequence, so no tombstones are needed.
+     */
+    private void shiftBack(int i) {
+        long[] keys = this.keys;
+        long[] values = this.values;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = (int) (keys[j] >>> shift);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = 0;
+        values[i] = 0;
+    }
+
+    private int emptySlot(long s) {
+        int i = (int) (s >>> shift);
+        while (keys[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Doubles the capacity, at the maximum capacity, the table is allowed
+     * to fill up until one empty slot is left to terminate probing.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        if (oldKeys.length == Scrambling.MAX_CAPACITY) {
+            if (threshold == oldKeys.length - 1) {
+                throw new IllegalStateException("map is full");
+            }
+            threshold = oldKeys.length - 1;
+            return;
+        }
+        allocate(oldKeys.length * 2);
+        for (int j = 0; j < oldKeys.length; j++) {
+            long s = oldKeys[j];
+            if (s != 0) {
+                int i = emptySlot(s);
+                keys[i] = s;
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Removes all entries from this map, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        hasZero = false;
+        zeroValue = 0;
+        size = 0;
+    }
+
+    /**
+     * Passes each entry of this map to the consumer, in no particular order.
+     */
+    public void forEach(EntryConsumer consumer) {
+        requireNonNull(consumer, "consumer cannot be null");
+        if (hasZero) {
+            consumer.accept(unscrambler.applyAsLong(0), zeroValue);
+        }
+        long[] keys = this.keys;
+        long[] values = this.values;
+        for (int i = 0; i < keys.length; i++) {
+            long s = keys[i];
+            if (s != 0) {
+                consumer.accept(unscrambler.applyAsLong(s), values[i]);
+            }
+        }
+    }
+
+    /**
+     * Returns the keys of this map, in no particular order.
+     */
+    public long[] keys() {
+        long[] result = new long[size];
+        int[] i = {0};
+        forEach((key, value) -> result[i[0]++] = key);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelLongLongMap{" +
+                "size=" + size +
+                ", capacity=" + keys.length +
+                '}';
+    }
+}
@@ -0,0 +1,257 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A set of {@code long} values, using open addressing with linear probing
+ * over the values scrambled by a 64-bit Feistel.
+ * <p>
+ * Only the scrambled values are stored, the original values are recovered
+ * with the inverse of the Feistel when iterating. As the Feistel is a
+ * bijection, distinct values never collide after scrambling, and
+ * sequential or clustered values spread as well as random ones.
+ * <p>
+ * Instances are not thread safe.
+ */
+public final class FeistelLongSet {
+
+    private final Isomorphism.OfLong scrambler;
+    private final Isomorphism.OfLong unscrambler;
+    private long[] slots;
+    private int shift;
+    private int mask;
+    private int threshold;
+    private int size;
+    private boolean hasZero;
+
+    /**
+     * Creates an empty set with a scrambler randomly keyed for this
+     * set.
+     */
+    public FeistelLongSet() {
+        this(0);
+    }
+
+    /**
+     * Creates an empty set with a scrambler randomly keyed for this
+     * set, that can hold {@code expectedSize} values without resizing.
+     * As the layout of the set cannot be predicted, keys cannot be
+     * chosen to all fall into one probe run.
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     */
+    public FeistelLongSet(int expectedSize) {
+        this(expectedSize, Scrambling.random());
+    }
+
+    /**
+     * Creates an empty set that can hold {@code expectedSize} values
+     * without resizing, scrambling the values with {@code scrambler},
+     * which must be a bijection over all {@code long} values, such as
+     * {@code Feistel.ofLongBalanced(64, rounds, f)}, such as for a
+     * reproducible layout.
+     *
+     * @throws IllegalArgumentException if {@code expectedSize} is negative
+     * @throws NullPointerException     if {@code scrambler} is null
+     */
+    public FeistelLongSet(int expectedSize, Isomorphism.OfLong scrambler) {
+        this.scrambler = requireNonNull(scrambler, "scrambler cannot be null");
+        this.unscrambler = scrambler.inverse();
+        allocate(Scrambling.capacityFor(expectedSize));
+    }
+
+    private void allocate(int capacity) {
+        slots = new long[capacity];
+        shift = Scrambling.shiftFor(capacity);
+        mask = capacity - 1;
+        threshold = Scrambling.thresholdFor(capacity);
+    }
+
+    /**
+     * Returns the number of values in this set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns true if this set has no values.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns true if this set contains the value.
+     */
+    public boolean contains(long value) {
+        long s = scrambler.applyAsLong(value);
+        if (s == 0) {
+            return hasZero;
+        }
+        long[] slots = this.slots;
+        for (int i = (int) (s >>> shift); ; i = (i + 1) & mask) {
+            long existing = slots[i];
+            if (existing == s) {
+                return true;
+            }
+            if (existing == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Adds the value to this set.
+     *
+     * @return true if the value was not already in this set
+     * @throws IllegalStateException if the set is at its maximum capacity
+     */
+    public boolean add(long value) {
+        long s = scrambler.applyAsLong(value);
+        if (s == 0) {
+            if (hasZero) {
+                return false;
+            }
+            hasZero = true;
+            size++;
+            return true;
+        }
+        long[] slots = this.slots;
+        int i = (int) (s >>> shift);
+        for (long existing; (existing = slots[i]) != 0; i = (i + 1) & mask) {
+            if (existing == s) {
+                return false;
+            }
+        }
+        if (size >= threshold) {
+            grow();
+            slots = this.slots;
+            i = emptySlot(s);
+        }
+        slots[i] = s;
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the value from this set.
+     *
+     * @return true if the value was in this set
+     */
+    public boolean remove(long value) {
+        long s = scrambler.applyAsLong(value);
+        if (s == 0) {
+            if (!hasZero) {
+                return false;
+            }
+            hasZero = false;
+            size--;
+            return true;
+        }
+        long[] slots = this.slots;
+        for (int i = (int) (s >>> shift); ; i = (i + 1) & mask) {
+            long existing = slots[i];
+            if (existing == 0) {
+                return false;
+            }
+            if (existing == s) {
+                shiftBack(i);
+                size--;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Empties the slot by shifting back the entries that follow it in
+     * the same probe sequence, so no tombstones are needed.
+     */
+    private void shiftBack(int i) {
+        long[] slots = this.slots;
+        for (int j = (i + 1) & mask; slots[j] != 0; j = (j + 1) & mask) {
+            int home = (int) (slots[j] >>> shift);
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                slots[i] = slots[j];
+                i = j;
+            }
+        }
+        slots[i] = 0;
+    }
+
+    private int emptySlot(long s) {
+        int i = (int) (s >>> shift);
+        while (slots[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Doubles the capacity, at the maximum capacity, the table is allowed
+     * to fill up until one empty slot is left to terminate probing.
+     */
+    private void grow() {
+        long[] old = slots;
+        if (old.length == Scrambling.MAX_CAPACITY) {
+            if (threshold == old.length - 1) {
+                throw new IllegalStateException("set is full");
+            }
+            threshold = old.length - 1;
+            return;
+        }
+        allocate(old.length * 2);
+        for (long s : old) {
+            if (s != 0) {
+                slots[emptySlot(s)] = s;
+            }
+        }
+    }
+
+    /**
+     * Removes all values from this set, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        hasZero = false;
+        size = 0;
+    }
+
+    /**
+     * Passes each value of this set to the consumer, in no particular order.
+     */
+    public void forEach(LongConsumer consumer) {
+        requireNonNull(consumer, "consumer cannot be null");
+        if (hasZero) {
+            consumer.accept(unscrambler.applyAsLong(0));
+        }
+        for (long s : slots) {
+            if (s != 0) {
+                consumer.accept(unscrambler.applyAsLong(s));
+            }
+        }
+    }
+
+    /**
+     * Returns the values of this set, in no particular order.
+     */
+    public long[] toArray() {
+        long[] values = new long[size];
+        int[] i = {0};
+        forEach(value -> values[i[0]++] = value);
+        return values;
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelLongSet{" +
+                "size=" + size +
+                ", capacity=" + slots.length +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.SplittableRandom;
+
+/**
+ * Shared parts of the hash tables that store keys scrambled by a 64-bit
+ * Feistel.
+ * <p>
+ * As the Feistel is a bijection, two keys never scramble to the same
+ * value, so the tables store the scrambled keys and recover the original
+ * keys with the inverse. The scrambled keys are uniformly distributed
+ * even for sequential or clustered keys, so their high bits are used as
+ * the slot directly, and a table can be resized without scrambling the
+ * keys again.
+ * <p>
+ * A slot holding 0 is empty, the one key that scrambles to 0 is kept
+ * outside of the table.
+ */
+final class Scrambling {
+    private Scrambling() {
+    }
+
+    /**
+     * Returns a 4-round balanced Feistel over all 64-bit values with a
+     * multiply-xorshift round function, the fewest rounds to have
+     * avalanche and independence biases below 0.1 according to
+     * {@link Feistel#tuneRounds}, keyed by a random seed, so that the
+     * layout of a table cannot be predicted, and keys cannot be chosen to
+     * all fall into one probe run.
+     */
+    static Isomorphism.OfLong random() {
+        return seeded(new SplittableRandom().nextLong());
+    }
+
+    /**
+     * Same as {@link #random()}, keyed by the given seed.
+     */
+    static Isomorphism.OfLong seeded(long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] keys = new long[4];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextLong();
+        }
+        return Feistel.ofLongBalanced(
+                Long.SIZE, keys.length, (round, value) -> {
+                    long z = (value ^ keys[round]) * 0x9e37_79b9_7f4a_7c15L;
+                    return z ^ (z >>> 32);
+                });
+    }
+
+    static final int MIN_CAPACITY = 4;
+    static final int MAX_CAPACITY = 1 << 30;
+    static final double LOAD_FACTOR = 0.75;
+
+    static int capacityFor(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException(
+                    "expectedSize cannot be negative: " + expectedSize);
+        }
+        long needed = (long) Math.ceil(expectedSize / LOAD_FACTOR) + 1;
+        if (needed > MAX_CAPACITY) {
+            return MAX_CAPACITY;
+        }
+        return Math.max(MIN_CAPACITY,
+                Integer.highestOneBit((int) needed - 1) << 1);
+    }
+
+    static int thresholdFor(int capacity) {
+        return (int) Math.min(capacity - 1, (long) (capacity * LOAD_FACTOR));
+    }
+
+    static int shiftFor(int capacity) {
+        return Long.SIZE - Integer.numberOfTrailingZeros(capacity);
+    }
+}
@@ -0,0 +1,123 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelLongLongMapTest {
+
+    private static Stream<Arguments> keys() {
+        return FeistelLongSetTest.keys();
+    }
+
+    @ParameterizedTest
+    @MethodSource("keys")
+    void behavesLikeHashMap(String name, LongUnaryOperator keys) {
+        Random random = new Random(name.hashCode());
+        FeistelLongLongMap map = new FeistelLongLongMap();
+        Map<Long, Long> expected = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = keys.applyAsLong(random.nextInt(20_000));
+            long value = random.nextLong();
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.put(key, value) == null, map.put(key, value));
+                    break;
+                case 1:
+                    assertEquals(expected.merge(key, value, Long::sum).longValue(),
+                            map.addTo(key, value));
+                    break;
+                case 2:
+                    assertEquals(expected.getOrDefault(key, -1L).longValue(),
+                            map.get(key, -1));
+                    break;
+                default:
+                    assertEquals(expected.remove(key) != null, map.remove(key));
+                    break;
+            }
+            assertEquals(expected.size(), map.size());
+        }
+
+        Map<Long, Long> actual = new HashMap<>();
+        map.forEach((key, value) -> assertEquals(null, actual.put(key, value)));
+        assertEquals(expected, actual);
+        assertEquals(expected.size(), map.keys().length);
+        for (long key : map.keys()) {
+            assertTrue(map.containsKey(key));
+        }
+    }
+
+    @Test
+    void supportsKeyScrambledToZero() {
+        Isomorphism.OfLong scrambler = Scrambling.seeded(1);
+        long zero = scrambler.inverse().applyAsLong(0);
+        FeistelLongLongMap map = new FeistelLongLongMap(0, scrambler);
+        assertEquals(-1, map.get(zero, -1));
+        assertTrue(map.put(zero, 5));
+        assertFalse(map.put(zero, 6));
+        assertEquals(6, map.get(zero, -1));
+        assertEquals(8, map.addTo(zero, 2));
+        assertTrue(map.containsKey(zero));
+        long[] seen = {0};
+        map.forEach((key, value) -> {
+            assertEquals(zero, key);
+            assertEquals(8, value);
+            seen[0]++;
+        });
+        assertEquals(1, seen[0]);
+        assertTrue(map.remove(zero));
+        assertFalse(map.containsKey(zero));
+        assertEquals(3, map.addTo(zero, 3));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void clearKeepsMapUsable() {
+        FeistelLongLongMap map = new FeistelLongLongMap(10);
+        for (long i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        map.clear();
+        assertTrue(map.isEmpty());
+        assertEquals(-1, map.get(1, -1));
+        assertTrue(map.put(1, 2));
+        assertEquals(2, map.get(1, -1));
+    }
+
+    @Test
+    void randomizesLayoutPerInstance() {
+        FeistelLongLongMap a = new FeistelLongLongMap();
+        FeistelLongLongMap b = new FeistelLongLongMap();
+        FeistelLongLongMap c = new FeistelLongLongMap(0, Scrambling.seeded(1));
+        FeistelLongLongMap d = new FeistelLongLongMap(0, Scrambling.seeded(1));
+        for (long i = 0; i < 100; i++) {
+            a.put(i, i);
+            b.put(i, i);
+            c.put(i, i);
+            d.put(i, i);
+        }
+        assertFalse(Arrays.equals(a.keys(), b.keys()));
+        assertArrayEquals(c.keys(), d.keys());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new FeistelLongLongMap(-1));
+        assertThrows(NullPointerException.class, () -> new FeistelLongLongMap(1, null));
+    }
+}
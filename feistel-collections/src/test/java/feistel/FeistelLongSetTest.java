@@ -0,0 +1,129 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelLongSetTest {
+
+    static Stream<Arguments> keys() {
+        return Stream.of(
+                Arguments.of("sequential", (LongUnaryOperator) i -> i),
+                Arguments.of("high bits", (LongUnaryOperator) i -> i << 32),
+                Arguments.of("strided", (LongUnaryOperator) i -> i * 1024),
+                Arguments.of("negative", (LongUnaryOperator) i -> -i),
+                Arguments.of("random", (LongUnaryOperator) i -> new Random(i).nextLong())
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("keys")
+    void behavesLikeHashSet(String name, LongUnaryOperator keys) {
+        Random random = new Random(name.hashCode());
+        FeistelLongSet set = new FeistelLongSet();
+        Set<Long> expected = new HashSet<>();
+        for (int i = 0; i < 50_000; i++) {
+            long key = keys.applyAsLong(random.nextInt(20_000));
+            switch (random.nextInt(3)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.add(key), set.add(key));
+                    break;
+                default:
+                    assertEquals(expected.remove(key), set.remove(key));
+                    break;
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        for (long i = 0; i < 20_000; i++) {
+            long key = keys.applyAsLong(i);
+            assertEquals(expected.contains(key), set.contains(key));
+        }
+
+        long[] values = set.toArray();
+        Arrays.sort(values);
+        assertArrayEquals(expected.stream().mapToLong(Long::longValue).sorted().toArray(), values);
+    }
+
+    @Test
+    void supportsKeyScrambledToZero() {
+        Isomorphism.OfLong scrambler = Scrambling.seeded(1);
+        long zero = scrambler.inverse().applyAsLong(0);
+        FeistelLongSet set = new FeistelLongSet(0, scrambler);
+        assertFalse(set.contains(zero));
+        assertTrue(set.add(zero));
+        assertFalse(set.add(zero));
+        assertTrue(set.contains(zero));
+        assertTrue(set.add(1));
+        assertEquals(2, set.size());
+        assertArrayEquals(new long[]{zero}, Arrays.stream(set.toArray())
+                .filter(x -> x == zero).toArray());
+        assertTrue(set.remove(zero));
+        assertFalse(set.remove(zero));
+        assertFalse(set.contains(zero));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void clearKeepsSetUsable() {
+        FeistelLongSet set = new FeistelLongSet(10);
+        for (long i = 0; i < 1000; i++) {
+            set.add(i);
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(1));
+        assertTrue(set.add(1));
+        assertEquals(1, set.size());
+    }
+
+    @Test
+    void usesGivenScrambler() {
+        Isomorphism.OfLong scrambler = Feistel.ofLongBalanced(64, 8,
+                (round, value) -> value * 31 + round);
+        FeistelLongSet set = new FeistelLongSet(0, scrambler);
+        for (long i = 0; i < 1000; i++) {
+            assertTrue(set.add(i * 7));
+        }
+        for (long i = 0; i < 7000; i++) {
+            assertEquals(i % 7 == 0, set.contains(i));
+        }
+    }
+
+    @Test
+    void randomizesLayoutPerInstance() {
+        FeistelLongSet a = new FeistelLongSet();
+        FeistelLongSet b = new FeistelLongSet();
+        FeistelLongSet c = new FeistelLongSet(0, Scrambling.seeded(1));
+        FeistelLongSet d = new FeistelLongSet(0, Scrambling.seeded(1));
+        for (long i = 0; i < 100; i++) {
+            a.add(i);
+            b.add(i);
+            c.add(i);
+            d.add(i);
+        }
+        assertFalse(Arrays.equals(a.toArray(), b.toArray()));
+        assertArrayEquals(c.toArray(), d.toArray());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new FeistelLongSet(-1));
+        assertThrows(NullPointerException.class, () -> new FeistelLongSet(1, null));
+    }
+}
@@ -4,81 +4,85 @@ import isomorphic.Isomorphism;
 
 import javax.swing.*;
 import java.awt.*;
-import java.util.List;
-import java.util.stream.IntStream;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
-import static feistel.MoreCollectors.split;
 import static java.awt.Color.RED;
-import static java.lang.Thread.sleep;
 import static javax.swing.WindowConstants.DISPOSE_ON_CLOSE;
 
-public final class FizzleFade extends SwingWorker<Void, Point> {
+public final class FizzleFade {
 
     private final int width;
-    private final int height;
     private final JFrame frame;
     private final Graphics graphics;
+    private final ExecutorService executor;
+    private final ChunkProducer.Queue<int[]> pixels;
 
     private FizzleFade(int width, int height, JFrame frame) {
         this.width = width;
-        this.height = height;
         this.frame = frame;
         this.graphics = frame.getGraphics();
         this.graphics.setColor(RED);
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fizzle-fade-pixels");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pixels = pixels(width, height).start(executor, 4);
     }
 
-    private IntStream pixels() {
+    private static ChunkProducer<int[]> pixels(int width, int height) {
         RoundFunction.OfInt f = (round, value) -> value * 11 + (value >> 5) + 7 * 127 ^ value;
         Isomorphism.OfInt feistel = Feistel.ofIntNumeric(width, height, 3, f);
-        return IntStream.range(0, width * height).map(feistel);
+        return Feistel.intChunks(feistel, width * height, 100);
     }
 
-    private Point toPoint(int i) {
-        return new Point(i % width, i / width);
-    }
-
-    @Override
-    protected Void doInBackground() {
-
-        pixels().mapToObj(this::toPoint).collect(split(100, points -> {
-            publish(points.toArray(new Point[0]));
-            try {
-                sleep(10);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
+    private void draw(Timer timer) {
+        ChunkProducer.Chunk<int[]> chunk = pixels.poll();
+        if (chunk == null) {
+            if (pixels.isDone()) {
+                timer.stop();
+                executor.shutdown();
+                Timer close = new Timer(2000, e -> frame.dispose());
+                close.setRepeats(false);
+                close.start();
             }
-        }));
-
-        try {
-            sleep(2000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
+            return;
         }
-        return null;
-    }
-
-    @Override
-    protected void process(List<Point> points) {
-        super.process(points);
-        for (Point point : points) {
-            graphics.drawRect(point.x, point.y, 0, 0);
+        int[] values = chunk.values();
+        for (int i = 0; i < chunk.length(); i++) {
+            graphics.drawRect(values[i] % width, values[i] / width, 0, 0);
         }
+        pixels.release(chunk);
     }
 
-    @Override
-    protected void done() {
-        super.done();
-        frame.dispose();
+    private void start() {
+        Timer timer = new Timer(10, null);
+        timer.addActionListener(e -> draw(timer));
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                // The window may be closed before the fade is done, with
+                // the producer waiting for a chunk to be released
+                timer.stop();
+                executor.shutdownNow();
+            }
+        });
+        timer.start();
     }
 
     public static void main(String[] args) {
         int width = 320;
         int height = 200;
-        JFrame frame = new JFrame("FizzleFade");
-        frame.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
-        frame.setSize(width, height);
-        frame.setResizable(false);
-        frame.setVisible(true);
-        new FizzleFade(width, height, frame).execute();
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("FizzleFade");
+            frame.setDefaultCloseOperation(DISPOSE_ON_CLOSE);
+            frame.setSize(width, height);
+            frame.setResizable(false);
+            frame.setVisible(true);
+            new FizzleFade(width, height, frame).start();
+        });
     }
 }
@@ -0,0 +1,332 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.nio.LongBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link Flow.Processor} that applies a Feistel to every value of each
+ * batch it receives, and publishes the batches in the order received.
+ * <p>
+ * Batches are transformed in place and then published, so a publisher
+ * must not reuse a batch after publishing it. Each batch is transformed
+ * by a task on the executor, up to {@code maxInFlight} batches at the
+ * same time, and never more than the subscriber has requested, so the
+ * publisher is only asked for as many batches as can be handled.
+ * Nothing is allocated per value, only a small holder per batch.
+ * <p>
+ * To apply the inverse of a Feistel, pass {@link Isomorphism.OfLong#inverse()}.
+ * Only one subscriber is supported.
+ *
+ * @param <B> the type of the batches
+ */
+public final class FeistelProcessor<B> implements Flow.Processor<B, B> {
+
+    private interface Transform<B> {
+        void apply(Isomorphism.OfLong f, B batch);
+    }
+
+    private static final class Pending<B> {
+        final B batch;
+        volatile boolean done;
+        volatile Throwable error;
+
+        Pending(B batch) {
+            this.batch = batch;
+        }
+    }
+
+    /**
+     * A subscription that does nothing, given to rejected subscribers,
+     * and used to mark upstream as cancelled before it arrives.
+     */
+    private static final Flow.Subscription CANCELLED = new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    };
+
+    private final Isomorphism.OfLong f;
+    private final Transform<B> transform;
+    private final Executor executor;
+    private final int maxInFlight;
+
+    private final Queue<Pending<B>> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicLong demand = new AtomicLong();
+    private final AtomicReference<Flow.Subscription> upstream =
+            new AtomicReference<>();
+    private final AtomicReference<Flow.Subscriber<? super B>> downstream =
+            new AtomicReference<>();
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+    private volatile Throwable requestError;
+    private volatile boolean cancelled;
+
+    // Only written while draining, read by onNext to drop late batches
+    private volatile boolean terminated;
+
+    // Only accessed while draining
+    private long requested;
+    private long emitted;
+
+    private FeistelProcessor(
+            Isomorphism.OfLong f,
+            Transform<B> transform,
+            Executor executor,
+            int maxInFlight
+    ) {
+        this.f = requireNonNull(f, "f cannot be null");
+        this.transform = transform;
+        this.executor = requireNonNull(executor, "executor cannot be null");
+        if (maxInFlight <= 0) {
+            throw new IllegalArgumentException(
+                    "maxInFlight must be positive: " + maxInFlight);
+        }
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Returns a processor of {@code long[]} batches, transforming all
+     * values of each array.
+     *
+     * @param f           the Feistel to apply
+     * @param executor    the executor to transform the batches with
+     * @param maxInFlight the maximum number of batches requested but not
+     *                    yet published
+     * @return a processor
+     * @throws IllegalArgumentException if {@code maxInFlight} is not positive
+     * @throws NullPointerException     if {@code f} or {@code executor} is null
+     */
+    public static FeistelProcessor<long[]> ofArrays(
+            Isomorphism.OfLong f,
+            Executor executor,
+            int maxInFlight
+    ) {
+        return new FeistelProcessor<>(f, (g, batch) -> {
+            for (int i = 0; i < batch.length; i++) {
+                batch[i] = g.applyAsLong(batch[i]);
+            }
+        }, executor, maxInFlight);
+    }
+
+    /**
+     * Returns a processor of {@link LongBuffer} batches, transforming
+     * the values between the position and the limit of each buffer,
+     * leaving the position and limit unchanged.
+     *
+     * @param f           the Feistel to apply
+     * @param executor    the executor to transform the batches with
+     * @param maxInFlight the maximum number of batches requested but not
+     *                    yet published
+     * @return a processor
+     * @throws IllegalArgumentException if {@code maxInFlight} is not positive
+     * @throws NullPointerException     if {@code f} or {@code executor} is null
+     */
+    public static FeistelProcessor<LongBuffer> ofBuffers(
+            Isomorphism.OfLong f,
+            Executor executor,
+            int maxInFlight
+    ) {
+        return new FeistelProcessor<>(f, (g, batch) -> {
+            int start = batch.position();
+            int end = batch.limit();
+            if (batch.hasArray()) {
+                long[] array = batch.array();
+                int offset = batch.arrayOffset();
+                for (int i = offset + start; i < offset + end; i++) {
+                    array[i] = g.applyAsLong(array[i]);
+                }
+            } else {
+                for (int i = start; i < end; i++) {
+                    batch.put(i, g.applyAsLong(batch.get(i)));
+                }
+            }
+        }, executor, maxInFlight);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super B> subscriber) {
+        requireNonNull(subscriber, "subscriber cannot be null");
+        if (!downstream.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(CANCELLED);
+            subscriber.onError(new IllegalStateException(
+                    "only one subscriber is supported"));
+            return;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    requestError = new IllegalArgumentException(
+                            "request must be positive: " + n);
+                } else {
+                    demand.getAndUpdate(d -> d + n < 0 ? Long.MAX_VALUE : d + n);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                drain();
+            }
+        });
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        requireNonNull(subscription, "subscription cannot be null");
+        if (!upstream.compareAndSet(null, subscription)) {
+            subscription.cancel();
+            return;
+        }
+        drain();
+    }
+
+    @Override
+    public void onNext(B batch) {
+        requireNonNull(batch, "batch cannot be null");
+        if (terminated) {
+            return;
+        }
+        Pending<B> p = new Pending<>(batch);
+        pending.add(p);
+        if (terminated) {
+            // Terminated after the check above, the clear may have missed it
+            pending.clear();
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    transform.apply(f, batch);
+                } catch (Throwable e) {
+                    p.error = e;
+                }
+                p.done = true;
+                drain();
+            });
+        } catch (Throwable e) {
+            p.error = e;
+            p.done = true;
+            drain();
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        upstreamError = requireNonNull(throwable, "throwable cannot be null");
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (!terminated) {
+                drainLoop();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainLoop() {
+        Flow.Subscriber<? super B> subscriber = downstream.get();
+        if (cancelled) {
+            terminate(null, null);
+            return;
+        }
+        if (subscriber == null) {
+            return;
+        }
+        Throwable error = requestError;
+        if (error != null) {
+            terminate(subscriber, error);
+            return;
+        }
+
+        for (; ; ) {
+            boolean done = upstreamDone;
+            Pending<B> p = pending.peek();
+            if (p == null) {
+                if (done) {
+                    terminated = true;
+                    error = upstreamError;
+                    if (error != null) {
+                        subscriber.onError(error);
+                    } else {
+                        subscriber.onComplete();
+                    }
+                    return;
+                }
+                break;
+            }
+            if (!p.done) {
+                break;
+            }
+            if (p.error != null) {
+                terminate(subscriber, p.error);
+                return;
+            }
+            long d = demand.get();
+            if (d == 0) {
+                break;
+            }
+            pending.poll();
+            emitted++;
+            if (d != Long.MAX_VALUE) {
+                demand.decrementAndGet();
+            }
+            subscriber.onNext(p.batch);
+        }
+
+        Flow.Subscription subscription = upstream.get();
+        if (subscription != null && !upstreamDone) {
+            long inFlight = requested - emitted;
+            long want = Math.min(maxInFlight, demand.get()) - inFlight;
+            if (want > 0) {
+                requested += want;
+                subscription.request(want);
+            }
+        }
+    }
+
+    /**
+     * Cancels upstream, and signals the error downstream if there is one.
+     */
+    private void terminate(Flow.Subscriber<? super B> subscriber, Throwable error) {
+        Flow.Subscription subscription = upstream.getAndSet(CANCELLED);
+        if (subscription != null) {
+            subscription.cancel();
+        }
+        terminated = true;
+        pending.clear();
+        if (subscriber != null && error != null) {
+            subscriber.onError(error);
+        }
+    }
+}
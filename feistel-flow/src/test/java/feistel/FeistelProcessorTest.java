@@ -0,0 +1,305 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelProcessorTest {
+
+    private final Isomorphism.OfLong f = Feistel.spec(1_000_000, 8, 42).feistel();
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * A publisher of the given batches, that records the demand.
+     */
+    private static final class Upstream<B> implements Flow.Subscription {
+
+        final List<B> batches;
+        final AtomicLong requested = new AtomicLong();
+        volatile boolean cancelled;
+        private int next;
+        private Flow.Subscriber<? super B> subscriber;
+
+        Upstream(List<B> batches) {
+            this.batches = batches;
+        }
+
+        void subscribe(Flow.Subscriber<? super B> subscriber) {
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(this);
+        }
+
+        @Override
+        public synchronized void request(long n) {
+            requested.addAndGet(n);
+            for (long i = 0; i < n && next < batches.size() && !cancelled; i++) {
+                subscriber.onNext(batches.get(next++));
+            }
+            if (next == batches.size() && !cancelled) {
+                next++;
+                subscriber.onComplete();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static class Downstream<B> implements Flow.Subscriber<B> {
+
+        final List<B> received = new CopyOnWriteArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Flow.Subscription subscription;
+        volatile Throwable error;
+        private final long initialRequest;
+
+        Downstream(long initialRequest) {
+            this.initialRequest = initialRequest;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(initialRequest);
+        }
+
+        @Override
+        public void onNext(B item) {
+            received.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static List<long[]> batches(int count, int size) {
+        List<long[]> batches = new CopyOnWriteArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batches.add(LongStream.range((long) i * size, (long) (i + 1) * size).toArray());
+        }
+        return batches;
+    }
+
+    private long[] expected(long[] batch) {
+        return LongStream.of(batch).map(f).toArray();
+    }
+
+    @Test
+    void transformsBatchesInOrder() throws InterruptedException {
+        List<long[]> batches = batches(200, 1000);
+        List<long[]> copies = new CopyOnWriteArrayList<>();
+        for (long[] batch : batches) {
+            copies.add(batch.clone());
+        }
+
+        FeistelProcessor<long[]> processor = FeistelProcessor.ofArrays(f, executor, 8);
+        Upstream<long[]> upstream = new Upstream<>(batches);
+        Downstream<long[]> downstream = new Downstream<>(Long.MAX_VALUE);
+        processor.subscribe(downstream);
+        upstream.subscribe(processor);
+        downstream.await();
+
+        assertNull(downstream.error);
+        assertEquals(batches.size(), downstream.received.size());
+        for (int i = 0; i < batches.size(); i++) {
+            assertSame(batches.get(i), downstream.received.get(i));
+            assertArrayEquals(expected(copies.get(i)), downstream.received.get(i));
+        }
+    }
+
+    @Test
+    void inverseRestoresBatches() throws InterruptedException {
+        List<long[]> batches = batches(10, 100);
+        FeistelProcessor<long[]> forward = FeistelProcessor.ofArrays(f, executor, 4);
+        FeistelProcessor<long[]> inverse = FeistelProcessor.ofArrays(f.inverse(), executor, 4);
+        Downstream<long[]> downstream = new Downstream<>(Long.MAX_VALUE);
+        inverse.subscribe(downstream);
+        forward.subscribe(inverse);
+        new Upstream<>(batches).subscribe(forward);
+        downstream.await();
+
+        List<long[]> expected = batches(10, 100);
+        for (int i = 0; i < expected.size(); i++) {
+            assertArrayEquals(expected.get(i), downstream.received.get(i));
+        }
+    }
+
+    @Test
+    void honorsDemand() throws InterruptedException {
+        FeistelProcessor<long[]> processor = FeistelProcessor.ofArrays(f, executor, 4);
+        Upstream<long[]> upstream = new Upstream<>(batches(20, 10));
+        Downstream<long[]> downstream = new Downstream<>(2);
+        processor.subscribe(downstream);
+        upstream.subscribe(processor);
+
+        Thread.sleep(100);
+        assertEquals(2, downstream.received.size());
+        assertEquals(2, upstream.requested.get());
+
+        downstream.subscription.request(100);
+        downstream.await();
+        assertEquals(20, downstream.received.size());
+        assertTrue(upstream.requested.get() <= 20 + 4, upstream.requested::toString);
+    }
+
+    @Test
+    void boundsBatchesInFlight() throws InterruptedException {
+        FeistelProcessor<long[]> processor = FeistelProcessor.ofArrays(f, executor, 3);
+        Upstream<long[]> upstream = new Upstream<>(batches(20, 10));
+        Downstream<long[]> downstream = new Downstream<>(Long.MAX_VALUE) {
+            @Override
+            public void onNext(long[] item) {
+                super.onNext(item);
+                assertTrue(upstream.requested.get() - received.size() <= 3);
+            }
+        };
+        processor.subscribe(downstream);
+        upstream.subscribe(processor);
+        downstream.await();
+        assertNull(downstream.error);
+        assertEquals(20, downstream.received.size());
+    }
+
+    @Test
+    void transformsBuffersBetweenPositionAndLimit() throws InterruptedException {
+        long[] array = LongStream.range(0, 100).toArray();
+        LongBuffer heap = LongBuffer.wrap(array, 10, 50);
+        LongBuffer direct = ByteBuffer.allocateDirect(100 * Long.BYTES).asLongBuffer();
+        for (int i = 0; i < 100; i++) {
+            direct.put(i, i);
+        }
+        direct.position(20).limit(30);
+
+        FeistelProcessor<LongBuffer> processor = FeistelProcessor.ofBuffers(f, executor, 2);
+        Downstream<LongBuffer> downstream = new Downstream<>(Long.MAX_VALUE);
+        processor.subscribe(downstream);
+        new Upstream<>(List.of(heap, direct)).subscribe(processor);
+        downstream.await();
+
+        assertEquals(20, direct.position());
+        assertEquals(30, direct.limit());
+        direct.clear();
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i >= 10 && i < 60 ? f.applyAsLong(i) : i, array[i]);
+            assertEquals(i >= 20 && i < 30 ? f.applyAsLong(i) : i, direct.get(i));
+        }
+    }
+
+    @Test
+    void signalsTransformFailureAndCancelsUpstream() throws InterruptedException {
+        FeistelProcessor<long[]> processor = FeistelProcessor.ofArrays(f, executor, 4);
+        List<long[]> batches = batches(10, 10);
+        batches.set(5, new long[]{-1});
+        Upstream<long[]> upstream = new Upstream<>(batches);
+        Downstream<long[]> downstream = new Downstream<>(Long.MAX_VALUE);
+        processor.subscribe(downstream);
+        upstream.subscribe(processor);
+        downstream.await();
+
+        assertTrue(downstream.error instanceof IllegalArgumentException,
+                String.valueOf(downstream.error));
+        assertEquals(5, downstream.received.size());
+        assertTrue(upstream.cancelled);
+    }
+
+    @Test
+    void cancelCancelsUpstream() throws InterruptedException {
+        FeistelProcessor<long[]> processor = FeistelProcessor.ofArrays(f, executor, 4);
+        Upstream<long[]> upstream = new Upstream<>(batches(10, 10));
+        Downstream<long[]> downstream = new Downstream<>(1);
+        processor.subscribe(downstream);
+        downstream.subscription.cancel();
+        upstream.subscribe(processor);
+        assertTrue(upstream.cancelled);
+    }
+
+    @Test
+    void dropsBatchesAfterTermination() {
+        AtomicLong scheduled = new AtomicLong();
+        FeistelProcessor<long[]> processor = FeistelProcessor.ofArrays(f, task -> {
+            scheduled.incrementAndGet();
+            task.run();
+        }, 4);
+        Upstream<long[]> upstream = new Upstream<>(batches(10, 10));
+        Downstream<long[]> downstream = new Downstream<>(1);
+        processor.subscribe(downstream);
+        upstream.subscribe(processor);
+        assertEquals(1, scheduled.get());
+
+        downstream.subscription.cancel();
+        long[] late = {1, 2, 3};
+        processor.onNext(late);
+        processor.onNext(late);
+        assertEquals(1, scheduled.get());
+        assertArrayEquals(new long[]{1, 2, 3}, late);
+        assertEquals(1, downstream.received.size());
+    }
+
+    @Test
+    void rejectsInvalidRequestAndSecondSubscriber() throws InterruptedException {
+        FeistelProcessor<long[]> processor = FeistelProcessor.ofArrays(f, executor, 4);
+        Downstream<long[]> first = new Downstream<>(0);
+        processor.subscribe(first);
+        first.await();
+        assertTrue(first.error instanceof IllegalArgumentException);
+
+        Downstream<long[]> second = new Downstream<>(1);
+        processor.subscribe(second);
+        second.await();
+        assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FeistelProcessor.ofArrays(f, executor, 0));
+        assertThrows(NullPointerException.class,
+                () -> FeistelProcessor.ofArrays(null, executor, 1));
+        assertThrows(NullPointerException.class,
+                () -> FeistelProcessor.ofBuffers(f, null, 1));
+    }
+}
@@ -0,0 +1,125 @@
+package feistel;
+
+import java.util.random.RandomGenerator;
+import java.util.stream.Stream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link RandomGenerator.SplittableGenerator} backed by a
+ * {@link FeistelRandom}, for code written against the Java 17 random
+ * generator API.
+ * <p>
+ * The values are the same as those of the underlying generator, and
+ * advance its position. Splitting returns generators backed by new
+ * {@link FeistelRandom} instances with the same number of rounds.
+ * <p>
+ * Instances are not thread safe, use {@link #split()} to create
+ * a generator for each thread.
+ */
+public final class FeistelRandomGenerator
+        implements RandomGenerator.SplittableGenerator {
+
+    private final FeistelRandom random;
+
+    private FeistelRandomGenerator(FeistelRandom random) {
+        this.random = requireNonNull(random, "random cannot be null");
+    }
+
+    /**
+     * Returns a generator backed by {@code random}.
+     *
+     * @throws NullPointerException if {@code random} is null
+     */
+    public static FeistelRandomGenerator of(FeistelRandom random) {
+        return new FeistelRandomGenerator(random);
+    }
+
+    /**
+     * Returns the underlying generator.
+     */
+    public FeistelRandom random() {
+        return random;
+    }
+
+    @Override
+    public long nextLong() {
+        return random.nextLong();
+    }
+
+    @Override
+    public int nextInt() {
+        return random.nextInt();
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public long nextLong(long bound) {
+        return random.nextLong(bound);
+    }
+
+    @Override
+    public boolean nextBoolean() {
+        return random.nextBoolean();
+    }
+
+    @Override
+    public double nextDouble() {
+        return random.nextDouble();
+    }
+
+    /**
+     * Returns a new generator with the same number of rounds, and round
+     * keys derived from the next value of this generator.
+     */
+    @Override
+    public FeistelRandomGenerator split() {
+        return new FeistelRandomGenerator(random.split());
+    }
+
+    /**
+     * Returns a new generator with the same number of rounds, and round
+     * keys derived from the next value of {@code source}.
+     */
+    @Override
+    public FeistelRandomGenerator split(SplittableGenerator source) {
+        requireNonNull(source, "source cannot be null");
+        return new FeistelRandomGenerator(
+                Feistel.random(source.nextLong(), random.rounds()));
+    }
+
+    @Override
+    public Stream<SplittableGenerator> splits(long streamSize) {
+        return splits(streamSize, this);
+    }
+
+    @Override
+    public Stream<SplittableGenerator> splits(SplittableGenerator source) {
+        return splits(Long.MAX_VALUE, source);
+    }
+
+    @Override
+    public Stream<SplittableGenerator> splits(
+            long streamSize,
+            SplittableGenerator source
+    ) {
+        if (streamSize < 0) {
+            throw new IllegalArgumentException(
+                    "streamSize cannot be negative: " + streamSize);
+        }
+        requireNonNull(source, "source cannot be null");
+        return Stream.<SplittableGenerator>generate(() -> split(source))
+                .limit(streamSize);
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelRandomGenerator{" +
+                "random=" + random +
+                '}';
+    }
+}
@@ -0,0 +1,57 @@
+package feistel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.random.RandomGenerator.SplittableGenerator;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelRandomGeneratorTest {
+
+    @Test
+    void generatesSameValuesAsFeistelRandom() {
+        FeistelRandom expected = Feistel.random(1);
+        FeistelRandomGenerator generator = FeistelRandomGenerator.of(Feistel.random(1));
+        for (int i = 0; i < 100; i++) {
+            assertEquals(expected.nextLong(), generator.nextLong());
+            assertEquals(expected.nextInt(10), generator.nextInt(10));
+            assertEquals(expected.nextDouble(), generator.nextDouble());
+        }
+        assertEquals(expected.position(), generator.random().position());
+
+        for (int i = 0; i < 1000; i++) {
+            long value = generator.nextLong(-10, 10);
+            assertTrue(value >= -10 && value < 10);
+        }
+        assertEquals(100, generator.ints(100, 0, 5).filter(i -> i < 5).count());
+    }
+
+    @Test
+    void splitsAreFeistelRandomGenerators() {
+        FeistelRandomGenerator random = FeistelRandomGenerator.of(Feistel.random(2, 8));
+        assertEquals(3, random.splits(3)
+                .filter(split -> split instanceof FeistelRandomGenerator)
+                .map(split -> ((FeistelRandomGenerator) split).random().rounds())
+                .filter(rounds -> rounds == 8)
+                .collect(toList())
+                .size());
+        assertEquals(3, random.random().position());
+        assertEquals(Feistel.random(2, 8).split().nextLong(),
+                FeistelRandomGenerator.of(Feistel.random(2, 8)).split().nextLong());
+
+        SplittableGenerator source = FeistelRandomGenerator.of(Feistel.random(3));
+        assertEquals(8, random.split(source).random().rounds());
+        assertEquals(1, ((FeistelRandomGenerator) source).random().position());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        FeistelRandomGenerator random = FeistelRandomGenerator.of(Feistel.random(1));
+        assertThrows(NullPointerException.class, () -> FeistelRandomGenerator.of(null));
+        assertThrows(NullPointerException.class, () -> random.split(null));
+        assertThrows(IllegalArgumentException.class, () -> random.splits(-1));
+    }
+}
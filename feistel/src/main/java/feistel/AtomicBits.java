@@ -0,0 +1,57 @@
+package feistel;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed size bit set that can be set concurrently, too large for a
+ * single array, as needed for a bit per element of a 36-bit domain.
+ * <p>
+ * This version keeps the bits on the heap, in arrays of 2<sup>27</sup>
+ * {@code long} values. On Java 11 and later, the version in
+ * {@code src/main/java11} replaces it from the multi-release section of
+ * the jar, and keeps the bits off the heap in direct buffers instead.
+ */
+final class AtomicBits {
+
+    private static final int WORD_BITS = 27;
+    private static final int WORD_MASK = (1 << WORD_BITS) - 1;
+
+    private final AtomicLongArray[] segments;
+
+    AtomicBits(long size) {
+        long words = (size + Long.SIZE - 1) >>> 6;
+        int count = (int) ((words + WORD_MASK) >>> WORD_BITS);
+        segments = new AtomicLongArray[count];
+        for (int i = 0; i < count; i++) {
+            long remaining = words - ((long) i << WORD_BITS);
+            segments[i] = new AtomicLongArray((int) Math.min(remaining, 1 << WORD_BITS));
+        }
+    }
+
+    /**
+     * Reads the word of the bit with a plain read, to bring it into the
+     * cache ahead of {@link #set(long)}. Unlike the atomic update in
+     * {@link #set(long)}, plain reads of different words can wait for
+     * memory at the same time.
+     */
+    long touch(long index) {
+        long word = index >>> 6;
+        return segments[(int) (word >>> WORD_BITS)].get((int) word & WORD_MASK);
+    }
+
+    /**
+     * Sets the bit, returning true if it was not already set.
+     */
+    boolean set(long index) {
+        long word = index >>> 6;
+        AtomicLongArray segment = segments[(int) (word >>> WORD_BITS)];
+        int i = (int) word & WORD_MASK;
+        long bit = 1L << index;
+        for (long old; ((old = segment.get(i)) & bit) == 0; ) {
+            if (segment.compareAndSet(i, old, old | bit)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
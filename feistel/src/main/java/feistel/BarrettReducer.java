@@ -0,0 +1,77 @@
+package feistel;
+
+import java.math.BigInteger;
+
+import static java.math.BigInteger.ONE;
+import static java.math.BigInteger.ZERO;
+
+/**
+ * Division by a fixed modulus using a precomputed reciprocal, as described
+ * in <em>Implementing the Rivest Shamir and Adleman Public Key Encryption
+ * Algorithm on a Standard Digital Signal Processor</em> by Paul Barrett.
+ * <p>
+ * For {@code 0 <= x < 2^maxBits}, the quotient is estimated as
+ * {@code (x * floor(2^maxBits / m)) >> maxBits}, which is either
+ * the exact quotient or one less than it, so at most one correction is
+ * needed. This replaces a long division by two multiplications and a
+ * shift, which is cheaper for the operand sizes seen by numeric Feistels.
+ */
+final class BarrettReducer {
+
+    private final BigInteger modulus;
+    private final BigInteger reciprocal;
+    private final int maxBits;
+
+    BarrettReducer(BigInteger modulus, int maxBits) {
+        this.modulus = modulus;
+        this.maxBits = maxBits;
+        this.reciprocal = modulus.signum() > 0
+                ? ONE.shiftLeft(maxBits).divide(modulus)
+                : ZERO;
+    }
+
+    /**
+     * Returns {@code {x / m, x mod m}}, {@code x} must be non-negative
+     * and less than {@code 2^maxBits}.
+     */
+    BigInteger[] divideAndRemainder(BigInteger x) {
+        BigInteger q = x.multiply(reciprocal).shiftRight(maxBits);
+        BigInteger r = x.subtract(q.multiply(modulus));
+        if (r.compareTo(modulus) >= 0) {
+            q = q.add(ONE);
+            r = r.subtract(modulus);
+        }
+        return new BigInteger[]{q, r};
+    }
+
+    /**
+     * Returns {@code x mod m}, for any {@code x}.
+     */
+    BigInteger mod(BigInteger x) {
+        if (x.signum() >= 0) {
+            if (x.compareTo(modulus) < 0) {
+                return x;
+            }
+            if (x.bitLength() <= maxBits) {
+                return divideAndRemainder(x)[1];
+            }
+        }
+        return x.mod(modulus);
+    }
+
+    /**
+     * Returns {@code (x + y) mod m}, {@code x} must already be reduced.
+     */
+    BigInteger addMod(BigInteger x, BigInteger y) {
+        BigInteger sum = x.add(mod(y));
+        return sum.compareTo(modulus) >= 0 ? sum.subtract(modulus) : sum;
+    }
+
+    /**
+     * Returns {@code (x - y) mod m}, {@code x} must already be reduced.
+     */
+    BigInteger subtractMod(BigInteger x, BigInteger y) {
+        BigInteger difference = x.subtract(mod(y));
+        return difference.signum() < 0 ? difference.add(modulus) : difference;
+    }
+}
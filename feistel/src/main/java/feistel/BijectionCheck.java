@@ -0,0 +1,251 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.LongStream;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The result of checking that a function is a bijection over
+ * {0,1,...,size - 1} by applying it to every element, for validating
+ * a round function over a whole domain, such as every {@code int} value,
+ * instead of a sample.
+ * <p>
+ * For each input {@code x}, the output {@code y = f(x)} must be in the
+ * domain, must not be the output of another input, and the inverse of
+ * {@code y} must be {@code x}. Outputs are marked in a bit set of one bit
+ * per element of the domain, that is {@code size / 8} bytes, off the heap
+ * on Java 11 and later, on the heap on Java 8. Collisions are found with
+ * the bit set, so they are found even if the inverse is wrong too.
+ * <p>
+ * The outputs of a batch of inputs are computed and their words of the
+ * bit set read before any of them is marked, so the cache misses of the
+ * batch overlap, instead of waiting for memory on each atomic update.
+ * <p>
+ * The domain is checked in parallel in chunks of consecutive inputs. The
+ * reported failure is the one with the smallest input, except that which
+ * of two inputs with the same output is reported as the collision depends
+ * on the order they were checked in. Chunks after the first failure found
+ * so far are skipped.
+ *
+ * @see Feistel#checkBijection(Isomorphism.OfLong, long)
+ */
+public final class BijectionCheck {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    private static final int BATCH_SIZE = 64;
+
+    /**
+     * An input that fails the check.
+     */
+    public static final class Failure {
+
+        /**
+         * The kinds of failures.
+         */
+        public enum Kind {
+
+            /**
+             * The output is outside of the domain.
+             */
+            OUT_OF_RANGE,
+
+            /**
+             * The output is the same as the output of another input.
+             */
+            COLLISION,
+
+            /**
+             * The inverse of the output is not the input.
+             */
+            INVERSE_MISMATCH
+        }
+
+        private final Kind kind;
+        private final long input;
+        private final long output;
+        private final long inverse;
+
+        Failure(Kind kind, long input, long output, long inverse) {
+            this.kind = kind;
+            this.input = input;
+            this.output = output;
+            this.inverse = inverse;
+        }
+
+        /**
+         * Returns the kind of failure.
+         */
+        public Kind kind() {
+            return kind;
+        }
+
+        /**
+         * Returns the input.
+         */
+        public long input() {
+            return input;
+        }
+
+        /**
+         * Returns the output of the input.
+         */
+        public long output() {
+            return output;
+        }
+
+        /**
+         * Returns the inverse of the output, or the input if the kind is
+         * {@link Kind#OUT_OF_RANGE}, as the inverse is not applied to
+         * outputs outside of the domain.
+         */
+        public long inverse() {
+            return inverse;
+        }
+
+        @Override
+        public String toString() {
+            return "Failure{" +
+                    "kind=" + kind +
+                    ", input=" + input +
+                    ", output=" + output +
+                    ", inverse=" + inverse +
+                    '}';
+        }
+    }
+
+    private final long size;
+    private final Failure failure;
+    private final long nanos;
+
+    private BijectionCheck(long size, Failure failure, long nanos) {
+        this.size = size;
+        this.failure = failure;
+        this.nanos = nanos;
+    }
+
+    static BijectionCheck of(Isomorphism.OfLong f, long size) {
+        requireNonNull(f, "f cannot be null");
+        requireNonNegative(size, "size");
+
+        long start = System.nanoTime();
+        Object event = Events.beginBulk();
+        Isomorphism.OfLong inverse = f.inverse();
+        AtomicBits bits = new AtomicBits(size);
+        AtomicLong sink = new AtomicLong();
+        AtomicLong firstInput = new AtomicLong(Long.MAX_VALUE);
+        AtomicReference<Failure> first = new AtomicReference<>();
+
+        long chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        LongStream.range(0, chunks).parallel().forEach(chunk -> {
+            long from = chunk * CHUNK_SIZE;
+            long to = Math.min(from + CHUNK_SIZE, size);
+            long[] outputs = new long[BATCH_SIZE];
+            long touched = 0;
+            for (long batch = from; batch < to; batch += BATCH_SIZE) {
+                if (batch >= firstInput.get()) {
+                    return;
+                }
+                int n = (int) Math.min(BATCH_SIZE, to - batch);
+                for (int i = 0; i < n; i++) {
+                    long y = f.applyAsLong(batch + i);
+                    outputs[i] = y;
+                    if (y >= 0 && y < size) {
+                        touched |= bits.touch(y);
+                    }
+                }
+                Failure failure = check(inverse, bits, size, batch, outputs, n);
+                if (failure != null) {
+                    record(failure, firstInput, first);
+                    return;
+                }
+            }
+            // Keeps the reads from being optimized away
+            sink.lazySet(touched);
+        });
+        Events.endBulk(event, "verify", size);
+        return new BijectionCheck(size, first.get(), System.nanoTime() - start);
+    }
+
+    /**
+     * Checks the outputs of the inputs {@code batch + i}, returning
+     * the first failure.
+     */
+    private static Failure check(
+            Isomorphism.OfLong inverse,
+            AtomicBits bits,
+            long size,
+            long batch,
+            long[] outputs,
+            int n
+    ) {
+        for (int i = 0; i < n; i++) {
+            long x = batch + i;
+            long y = outputs[i];
+            if (y < 0 || y >= size) {
+                return new Failure(Failure.Kind.OUT_OF_RANGE, x, y, x);
+            }
+            if (!bits.set(y)) {
+                return new Failure(Failure.Kind.COLLISION, x, y, inverse.applyAsLong(y));
+            }
+            long z = inverse.applyAsLong(y);
+            if (z != x) {
+                return new Failure(Failure.Kind.INVERSE_MISMATCH, x, y, z);
+            }
+        }
+        return null;
+    }
+
+    private static void record(
+            Failure failure,
+            AtomicLong firstInput,
+            AtomicReference<Failure> first
+    ) {
+        firstInput.accumulateAndGet(failure.input, Math::min);
+        first.accumulateAndGet(failure, (a, b) ->
+                a == null || b.input < a.input ? b : a);
+    }
+
+    /**
+     * Returns the size of the domain.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns true if the function is a bijection over the domain.
+     */
+    public boolean isBijection() {
+        return failure == null;
+    }
+
+    /**
+     * Returns the failure with the smallest input, if the function
+     * is not a bijection.
+     */
+    public Optional<Failure> failure() {
+        return Optional.ofNullable(failure);
+    }
+
+    /**
+     * Returns the wall clock time taken by the check in nanoseconds.
+     */
+    public long nanos() {
+        return nanos;
+    }
+
+    @Override
+    public String toString() {
+        return "BijectionCheck{" +
+                "size=" + size +
+                ", failure=" + failure +
+                ", nanos=" + nanos +
+                '}';
+    }
+}
@@ -0,0 +1,348 @@
+package feistel;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A binary Feistel of at most 16 bits that transforms values in batches
+ * of 64 by <a href="https://en.wikipedia.org/wiki/Bit_slicing">bit slicing</a>.
+ * <p>
+ * Each batch of 64 values is transposed into bit planes, one {@code long}
+ * per bit position holding that bit of all 64 values. The round function
+ * is then a fixed {@link Circuit boolean circuit} evaluated with word-wide
+ * logical operations, transforming all 64 values at once, before the planes
+ * are transposed back.
+ * <p>
+ * The value is split into a left block of the high
+ * {@code totalBits - totalBits / 2} bits and a right block of the low
+ * {@code totalBits / 2} bits. Even rounds XOR the round function of the
+ * right block into the left block, odd rounds the other way around,
+ * so no swapping is needed.
+ * <p>
+ * Instances are immutable and thread safe.
+ *
+ * @see Feistel#ofBitsliced(int, int, Circuit, long)
+ */
+public final class BitslicedFeistel {
+
+    /**
+     * The maximum number of bits supported.
+     */
+    public static final int MAX_BITS = 16;
+
+    /**
+     * Keyed round functions made of logical operations only, so that
+     * they can be evaluated on bit planes.
+     * <p>
+     * For a round with input bits {@code x}, the input is first mixed
+     * with the round key, {@code u[t] = x[t] ^ k[t]}, then each output
+     * bit {@code j} is computed from input bits at indices modulo the
+     * input size, and XOR'ed with another round key bit.
+     */
+    public enum Circuit {
+
+        /**
+         * {@code y[j] = u[j] ^ (u[j + 1] & u[j + 2])}, similar to the
+         * round function of the Simon block cipher.
+         */
+        AND_ROTATE,
+
+        /**
+         * {@code y[j] = u[j] ^ (~u[j + 1] & u[j + 2])}, the chi step of
+         * the Keccak permutation.
+         */
+        CHI
+    }
+
+    private static final int BATCH = Long.SIZE;
+
+    private final int totalBits;
+    private final int rightBits;
+    private final int leftBits;
+    private final int rounds;
+    private final Circuit circuit;
+    private final long[] inputKeys;
+    private final long[] outputKeys;
+    private final int[] leftIndices;
+    private final int[] rightIndices;
+    private final boolean inverse;
+
+    private BitslicedFeistel(
+            int totalBits,
+            int rounds,
+            Circuit circuit,
+            long[] inputKeys,
+            long[] outputKeys,
+            boolean inverse
+    ) {
+        this.totalBits = totalBits;
+        this.rightBits = totalBits / 2;
+        this.leftBits = totalBits - rightBits;
+        this.rounds = rounds;
+        this.circuit = circuit;
+        this.inputKeys = inputKeys;
+        this.outputKeys = outputKeys;
+        this.leftIndices = indices(leftBits, rightBits);
+        this.rightIndices = indices(rightBits, leftBits);
+        this.inverse = inverse;
+    }
+
+    /**
+     * Returns the indices of the source bits for each target bit,
+     * three per target bit.
+     */
+    private static int[] indices(int targetBits, int sourceBits) {
+        int[] indices = new int[targetBits * 3];
+        for (int j = 0; sourceBits > 0 && j < targetBits; j++) {
+            indices[j * 3] = j % sourceBits;
+            indices[j * 3 + 1] = (j + 1) % sourceBits;
+            indices[j * 3 + 2] = (j + 2) % sourceBits;
+        }
+        return indices;
+    }
+
+    static BitslicedFeistel of(
+            int totalBits,
+            int rounds,
+            Circuit circuit,
+            long key
+    ) {
+        requireNonNull(circuit, "circuit cannot be null");
+        requireNonNegative(rounds, "rounds");
+        requireNonNegative(totalBits, MAX_BITS);
+
+        Object event = Events.beginBuild();
+        long[] inputKeys = new long[rounds * MAX_BITS];
+        long[] outputKeys = new long[rounds * MAX_BITS];
+        long[] roundKeys = KeySchedule.of(key, rounds);
+        for (int i = 0; i < rounds; i++) {
+            long z = roundKeys[i];
+            for (int t = 0; t < MAX_BITS; t++) {
+                inputKeys[i * MAX_BITS + t] = -((z >>> t) & 1);
+                outputKeys[i * MAX_BITS + t] = -((z >>> (32 + t)) & 1);
+            }
+        }
+        Events.endBuild(event, "bitsliced");
+        return new BitslicedFeistel(
+                totalBits, rounds, circuit, inputKeys, outputKeys, false);
+    }
+
+    /**
+     * Returns the inverse of this Feistel.
+     */
+    public BitslicedFeistel inverse() {
+        return new BitslicedFeistel(
+                totalBits, rounds, circuit, inputKeys, outputKeys, !inverse);
+    }
+
+    /**
+     * Transforms {@code length} values from {@code src} starting at
+     * {@code srcPos}, into {@code dest} starting at {@code destPos}.
+     * The arrays may be the same and the ranges may overlap, each batch of
+     * values is read before it is written, and the batches are processed
+     * from the end if the destination is after the source, so no copy
+     * of the input is needed.
+     *
+     * @throws IllegalArgumentException  if any value is outside of
+     *                                   {0,1,...,2<sup>totalBits</sup> - 1}
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds
+     */
+    public void apply(long[] src, int srcPos, long[] dest, int destPos, int length) {
+        checkRange(src.length, srcPos, length);
+        checkRange(dest.length, destPos, length);
+        Object event = Events.beginBulk();
+        long[] matrix = new long[BATCH];
+        long[] u = new long[MAX_BITS];
+        boolean backward = src == dest && destPos > srcPos;
+        int batches = (length + BATCH - 1) / BATCH;
+        for (int b = 0; b < batches; b++) {
+            int done = (backward ? batches - 1 - b : b) * BATCH;
+            int n = Math.min(BATCH, length - done);
+            for (int i = 0; i < n; i++) {
+                matrix[i] = checkValue(src[srcPos + done + i]);
+            }
+            applyBatch(matrix, n, u);
+            System.arraycopy(matrix, 0, dest, destPos + done, n);
+        }
+        Events.endBulk(event, "bitsliced", length);
+    }
+
+    /**
+     * Transforms the values in place.
+     *
+     * @throws IllegalArgumentException if any value is outside of
+     *                                  {0,1,...,2<sup>totalBits</sup> - 1}
+     */
+    public void apply(long[] values) {
+        apply(values, 0, values, 0, values.length);
+    }
+
+    /**
+     * Transforms {@code length} values from {@code src} starting at
+     * {@code srcPos}, into {@code dest} starting at {@code destPos}.
+     * The arrays may be the same and the ranges may overlap, as for
+     * {@link #apply(long[], int, long[], int, int)}.
+     *
+     * @throws IllegalArgumentException  if any value is outside of
+     *                                   {0,1,...,2<sup>totalBits</sup> - 1}
+     * @throws IndexOutOfBoundsException if the ranges are out of bounds
+     */
+    public void apply(int[] src, int srcPos, int[] dest, int destPos, int length) {
+        checkRange(src.length, srcPos, length);
+        checkRange(dest.length, destPos, length);
+        Object event = Events.beginBulk();
+        long[] matrix = new long[BATCH];
+        long[] u = new long[MAX_BITS];
+        boolean backward = src == dest && destPos > srcPos;
+        int batches = (length + BATCH - 1) / BATCH;
+        for (int b = 0; b < batches; b++) {
+            int done = (backward ? batches - 1 - b : b) * BATCH;
+            int n = Math.min(BATCH, length - done);
+            for (int i = 0; i < n; i++) {
+                matrix[i] = checkValue(src[srcPos + done + i]);
+            }
+            applyBatch(matrix, n, u);
+            for (int i = 0; i < n; i++) {
+                dest[destPos + done + i] = (int) matrix[i];
+            }
+        }
+        Events.endBulk(event, "bitsliced", length);
+    }
+
+    /**
+     * Transforms the values in place.
+     *
+     * @throws IllegalArgumentException if any value is outside of
+     *                                  {0,1,...,2<sup>totalBits</sup> - 1}
+     */
+    public void apply(int[] values) {
+        apply(values, 0, values, 0, values.length);
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException(
+                    "offset=" + offset +
+                            ", length=" + length +
+                            ", array length=" + arrayLength);
+        }
+    }
+
+    private long checkValue(long value) {
+        if (value >>> totalBits != 0) {
+            throw new IllegalArgumentException(
+                    "value out of range (min=0, max=" +
+                            ((1 << totalBits) - 1) + "): " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Transforms the first {@code n} values of the matrix in place,
+     * the rest of the matrix is treated as scratch space.
+     */
+    private void applyBatch(long[] matrix, int n, long[] u) {
+        for (int i = n; i < BATCH; i++) {
+            matrix[i] = 0;
+        }
+        toPlanes(matrix);
+        for (int i = 0; i < rounds; i++) {
+            int round = inverse ? rounds - i - 1 : i;
+            if (round % 2 == 0) {
+                xorRound(matrix, 0, rightBits, rightBits, leftIndices, round, u);
+            } else {
+                xorRound(matrix, rightBits, leftBits, 0, rightIndices, round, u);
+            }
+        }
+        fromPlanes(matrix);
+    }
+
+    /**
+     * XORs the round function of the source planes into the target planes.
+     */
+    private void xorRound(
+            long[] planes,
+            int sourceOffset,
+            int sourceBits,
+            int targetOffset,
+            int[] indices,
+            int round,
+            long[] u
+    ) {
+        int keyOffset = round * MAX_BITS;
+        for (int t = 0; t < sourceBits; t++) {
+            u[t] = planes[sourceOffset + t] ^ inputKeys[keyOffset + t];
+        }
+        int targetBits = indices.length / 3;
+        if (sourceBits == 0) {
+            for (int j = 0; j < targetBits; j++) {
+                planes[targetOffset + j] ^= outputKeys[keyOffset + j];
+            }
+        } else if (circuit == Circuit.CHI) {
+            for (int j = 0, x = 0; j < targetBits; j++, x += 3) {
+                planes[targetOffset + j] ^= outputKeys[keyOffset + j]
+                        ^ u[indices[x]]
+                        ^ (~u[indices[x + 1]] & u[indices[x + 2]]);
+            }
+        } else {
+            for (int j = 0, x = 0; j < targetBits; j++, x += 3) {
+                planes[targetOffset + j] ^= outputKeys[keyOffset + j]
+                        ^ u[indices[x]]
+                        ^ (u[indices[x + 1]] & u[indices[x + 2]]);
+            }
+        }
+    }
+
+    /**
+     * Transposes a 64x64 bit matrix of values of at most 16 bits in place,
+     * so that {@code matrix[i]} for {@code i < 16} holds bit {@code i} of
+     * every value, the remaining rows are left as scratch.
+     * <p>
+     * Adapted from the recursive block swapping transpose in
+     * <em>Hacker's Delight</em> by Henry S. Warren, Jr. Each step swaps one
+     * bit of the row index with the same bit of the column index, so the
+     * steps can be done in any order, and as the values have at most 16
+     * bits, the 32 and 16 steps reduce to shifts.
+     */
+    static void toPlanes(long[] matrix) {
+        for (int k = 0; k < 32; k++) {
+            matrix[k] |= matrix[k + 32] << 32;
+        }
+        for (int k = 0; k < 16; k++) {
+            matrix[k] |= matrix[k + 16] << 16;
+        }
+        transpose16(matrix);
+    }
+
+    /**
+     * The inverse of {@link #toPlanes(long[])}.
+     */
+    static void fromPlanes(long[] matrix) {
+        transpose16(matrix);
+        for (int k = 0; k < 16; k++) {
+            long t = (matrix[k] >>> 16) & 0x0000_ffff_0000_ffffL;
+            matrix[k] ^= t << 16;
+            matrix[k + 16] = t;
+        }
+        for (int k = 0; k < 32; k++) {
+            long t = matrix[k] >>> 32;
+            matrix[k] ^= t << 32;
+            matrix[k + 32] = t;
+        }
+    }
+
+    /**
+     * Swaps the 8, 4, 2, and 1 bits of the row and column indices
+     * of the first 16 rows.
+     */
+    private static void transpose16(long[] matrix) {
+        long mask = 0x00ff_00ff_00ff_00ffL;
+        for (int j = 8; j != 0; j >>>= 1, mask ^= mask << j) {
+            for (int k = 0; k < 16; k = ((k | j) + 1) & ~j) {
+                long t = ((matrix[k] >>> j) ^ matrix[k | j]) & mask;
+                matrix[k] ^= t << j;
+                matrix[k | j] ^= t;
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package feistel;
+
+/**
+ * A snapshot of the statistics of a {@link CachedIsomorphism} or a
+ * {@link FeistelRegistry}.
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    CacheStats(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    /**
+     * Returns the number of times a result was found in the cache.
+     */
+    public long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of times a result had to be computed.
+     */
+    public long missCount() {
+        return missCount;
+    }
+
+    /**
+     * Returns the number of cached results that were evicted to
+     * make room for other results.
+     */
+    public long evictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the total number of requests, the sum of
+     * {@link #hitCount()} and {@link #missCount()}.
+     */
+    public long requestCount() {
+        return hitCount + missCount;
+    }
+
+    /**
+     * Returns the ratio of requests that were hits,
+     * or 1.0 if there has been no requests.
+     */
+    public double hitRate() {
+        long requestCount = requestCount();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hitCount=" + hitCount +
+                ", missCount=" + missCount +
+                ", evictionCount=" + evictionCount +
+                '}';
+    }
+}
@@ -0,0 +1,137 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A function that remembers its recent results, for when the delegate
+ * Feistel is expensive (such as one using a cryptographic round function)
+ * and the same inputs are requested repeatedly.
+ * <p>
+ * Each computed result is cached in both directions, so after
+ * {@code f.apply(x)} returns {@code y}, {@code f.inverse().apply(y)}
+ * can return {@code x} without calling the delegate.
+ * <p>
+ * Instances are thread safe if the delegate is.
+ *
+ * @see Feistel#cache(Isomorphism, int)
+ */
+public final class CachedIsomorphism<A> implements Isomorphism<A, A> {
+
+    private final Isomorphism<A, A> delegate;
+    private final ResultCache<A, A> forward;
+    private final ResultCache<A, A> backward;
+
+    private CachedIsomorphism(
+            Isomorphism<A, A> delegate,
+            ResultCache<A, A> forward,
+            ResultCache<A, A> backward
+    ) {
+        this.delegate = delegate;
+        this.forward = forward;
+        this.backward = backward;
+    }
+
+    static <A> CachedIsomorphism<A> of(
+            Isomorphism<A, A> delegate,
+            int maximumSize
+    ) {
+        requireNonNull(delegate, "delegate cannot be null");
+        requireNonNegative(maximumSize, "maximumSize");
+        return new CachedIsomorphism<>(
+                delegate,
+                new ResultCache<>(maximumSize),
+                new ResultCache<>(maximumSize));
+    }
+
+    @Override
+    public A apply(A input) {
+        A output = forward.get(input);
+        if (output == null) {
+            output = delegate.apply(input);
+            forward.put(input, output);
+            backward.mirror(output, input);
+        }
+        return output;
+    }
+
+    @Override
+    public CachedIsomorphism<A> inverse() {
+        return new CachedIsomorphism<>(delegate.inverse(), backward, forward);
+    }
+
+    /**
+     * Returns the statistics of this cache so far,
+     * combined for both directions.
+     */
+    public CacheStats stats() {
+        return stats(forward, backward);
+    }
+
+    private static CacheStats stats(
+            ResultCache<?, ?> forward,
+            ResultCache<?, ?> backward
+    ) {
+        return new CacheStats(
+                forward.hitCount() + backward.hitCount(),
+                forward.missCount() + backward.missCount(),
+                forward.evictionCount() + backward.evictionCount());
+    }
+
+    /**
+     * A cached function specialized for {@code long} values.
+     *
+     * @see Feistel#cache(Isomorphism.OfLong, int)
+     */
+    public static final class OfLong implements Isomorphism.OfLong {
+
+        private final Isomorphism.OfLong delegate;
+        private final ResultCache<Long, Long> forward;
+        private final ResultCache<Long, Long> backward;
+
+        private OfLong(
+                Isomorphism.OfLong delegate,
+                ResultCache<Long, Long> forward,
+                ResultCache<Long, Long> backward
+        ) {
+            this.delegate = delegate;
+            this.forward = forward;
+            this.backward = backward;
+        }
+
+        static OfLong of(Isomorphism.OfLong delegate, int maximumSize) {
+            requireNonNull(delegate, "delegate cannot be null");
+            requireNonNegative(maximumSize, "maximumSize");
+            return new OfLong(
+                    delegate,
+                    new ResultCache<>(maximumSize),
+                    new ResultCache<>(maximumSize));
+        }
+
+        @Override
+        public long applyAsLong(long input) {
+            Long output = forward.get(input);
+            if (output == null) {
+                output = delegate.applyAsLong(input);
+                forward.put(input, output);
+                backward.mirror(output, input);
+            }
+            return output;
+        }
+
+        @Override
+        public OfLong inverse() {
+            return new OfLong(delegate.inverse(), backward, forward);
+        }
+
+        /**
+         * Returns the statistics of this cache so far,
+         * combined for both directions.
+         */
+        public CacheStats stats() {
+            return CachedIsomorphism.stats(forward, backward);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.IntFunction;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Produces the output of a Feistel over {0,1,...,size - 1}, applied to
+ * the positions in order, in chunks of primitive arrays that are reused,
+ * so no objects are allocated per element or per chunk.
+ * <p>
+ * The chunks can be handed to a {@link Sink} on the calling thread with
+ * {@link #forEach(Sink)}, or produced on another thread into a bounded
+ * {@link Queue} with {@link #start(Executor, int)}, where the producer
+ * waits for the consumer to {@link Queue#release(Chunk) release} a
+ * chunk when all of them are in use.
+ * <p>
+ * Instances are immutable and thread safe, the queues are safe for one
+ * consumer thread.
+ *
+ * @param <A> the type of the arrays, {@code int[]} or {@code long[]}
+ * @see Feistel#intChunks(Isomorphism.OfInt, int, int)
+ * @see Feistel#longChunks(Isomorphism.OfLong, long, int)
+ */
+public final class ChunkProducer<A> {
+
+    private interface Filler<A> {
+        void fill(A values, long position, int length);
+    }
+
+    /**
+     * A chunk of values.
+     *
+     * @param <A> the type of the array
+     */
+    public static final class Chunk<A> {
+
+        private final A values;
+        private long position;
+        private int length;
+
+        Chunk(A values) {
+            this.values = values;
+        }
+
+        /**
+         * Returns the array holding the values of this chunk, which is
+         * reused for other chunks, so it must not be used after the chunk
+         * is released, or after the sink returns.
+         */
+        public A values() {
+            return values;
+        }
+
+        /**
+         * Returns the position of the first value of this chunk.
+         */
+        public long position() {
+            return position;
+        }
+
+        /**
+         * Returns the number of values of this chunk, these are at the
+         * start of {@link #values()}.
+         */
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public String toString() {
+            return "Chunk{" +
+                    "position=" + position +
+                    ", length=" + length +
+                    '}';
+        }
+    }
+
+    /**
+     * Receives chunks on the thread calling {@link #forEach(Sink)}.
+     *
+     * @param <A> the type of the arrays
+     */
+    @FunctionalInterface
+    public interface Sink<A> {
+
+        /**
+         * Receives the next chunk.
+         *
+         * @return true to continue, false to stop producing more chunks
+         */
+        boolean accept(Chunk<A> chunk);
+    }
+
+    private final long size;
+    private final int chunkSize;
+    private final IntFunction<A> allocator;
+    private final Filler<A> filler;
+
+    private ChunkProducer(
+            long size,
+            int chunkSize,
+            IntFunction<A> allocator,
+            Filler<A> filler
+    ) {
+        this.size = size;
+        this.chunkSize = chunkSize;
+        this.allocator = allocator;
+        this.filler = filler;
+    }
+
+    static ChunkProducer<int[]> ofInt(Isomorphism.OfInt f, int size, int chunkSize) {
+        requireNonNull(f, "f cannot be null");
+        requireNonNegative(size, "size");
+        requireChunkSize(chunkSize);
+        return new ChunkProducer<>(size, chunkSize, int[]::new,
+                (values, position, length) -> {
+                    int start = (int) position;
+                    for (int i = 0; i < length; i++) {
+                        values[i] = f.applyAsInt(start + i);
+                    }
+                });
+    }
+
+    static ChunkProducer<long[]> ofLong(Isomorphism.OfLong f, long size, int chunkSize) {
+        requireNonNull(f, "f cannot be null");
+        requireNonNegative(size, "size");
+        requireChunkSize(chunkSize);
+        return new ChunkProducer<>(size, chunkSize, long[]::new,
+                (values, position, length) -> {
+                    for (int i = 0; i < length; i++) {
+                        values[i] = f.applyAsLong(position + i);
+                    }
+                });
+    }
+
+    private static void requireChunkSize(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException(
+                    "chunkSize must be positive: " + chunkSize);
+        }
+    }
+
+    /**
+     * Returns the number of values.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the maximum number of values of each chunk.
+     */
+    public int chunkSize() {
+        return chunkSize;
+    }
+
+    private boolean fill(Chunk<A> chunk, long position) {
+        if (position >= size) {
+            return false;
+        }
+        chunk.position = position;
+        chunk.length = (int) Math.min(chunkSize, size - position);
+        Object event = Events.beginBulk();
+        filler.fill(chunk.values, position, chunk.length);
+        Events.endBulk(event, "chunk", chunk.length);
+        return true;
+    }
+
+    /**
+     * Produces all chunks on the calling thread, reusing a single array,
+     * until the sink returns false.
+     *
+     * @throws NullPointerException if {@code sink} is null
+     */
+    public void forEach(Sink<A> sink) {
+        requireNonNull(sink, "sink cannot be null");
+        Chunk<A> chunk = new Chunk<>(allocator.apply(
+                (int) Math.min(chunkSize, size)));
+        for (long position = 0; fill(chunk, position); position += chunkSize) {
+            if (!sink.accept(chunk)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Starts producing chunks with {@code executor}, into a queue of at
+     * most {@code capacity} chunks.
+     *
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     * @throws NullPointerException     if {@code executor} is null
+     */
+    public Queue<A> start(Executor executor, int capacity) {
+        requireNonNull(executor, "executor cannot be null");
+        if (capacity <= 0) {
+            throw new IllegalArgumentException(
+                    "capacity must be positive: " + capacity);
+        }
+        Queue<A> queue = new Queue<>(this, capacity);
+        executor.execute(queue::produce);
+        return queue;
+    }
+
+    /**
+     * A bounded queue of chunks being produced on another thread. Each
+     * chunk taken from the queue must be {@link #release(Chunk) released}
+     * after use, the producer waits while all chunks are in use.
+     *
+     * @param <A> the type of the arrays
+     */
+    public static final class Queue<A> implements AutoCloseable {
+
+        private final ChunkProducer<A> producer;
+        private final BlockingQueue<Chunk<A>> free;
+        private final BlockingQueue<Chunk<A>> full = new LinkedBlockingQueue<>();
+        private final Chunk<A> end = new Chunk<>(null);
+        private final Chunk<A> cancel = new Chunk<>(null);
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+        private boolean done;
+
+        Queue(ChunkProducer<A> producer, int capacity) {
+            this.producer = producer;
+            this.free = new ArrayBlockingQueue<>(capacity + 1);
+            int length = (int) Math.min(producer.chunkSize, producer.size);
+            for (int i = 0; i < capacity; i++) {
+                free.add(new Chunk<>(producer.allocator.apply(length)));
+            }
+        }
+
+        private void produce() {
+            try {
+                for (long position = 0; !cancelled; position += producer.chunkSize) {
+                    Chunk<A> chunk = free.take();
+                    if (chunk == cancel || !producer.fill(chunk, position)) {
+                        break;
+                    }
+                    full.add(chunk);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                full.add(end);
+            }
+        }
+
+        /**
+         * Returns the next chunk, waiting for it to be produced if
+         * necessary, or null if all chunks have been produced.
+         *
+         * @throws InterruptedException if interrupted while waiting
+         * @throws RuntimeException     if the producer failed
+         */
+        public Chunk<A> take() throws InterruptedException {
+            return check(done ? end : full.take());
+        }
+
+        /**
+         * Returns the next chunk if it has been produced, otherwise null,
+         * use {@link #isDone()} to check if all chunks have been produced.
+         *
+         * @throws RuntimeException if the producer failed
+         */
+        public Chunk<A> poll() {
+            return check(done ? end : full.poll());
+        }
+
+        private Chunk<A> check(Chunk<A> chunk) {
+            if (chunk != end) {
+                return chunk;
+            }
+            done = true;
+            Throwable e = failure;
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            }
+            if (e instanceof Error) {
+                throw (Error) e;
+            }
+            return null;
+        }
+
+        /**
+         * Returns true if all chunks have been taken.
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Returns a chunk to be reused for producing more chunks.
+         */
+        public void release(Chunk<A> chunk) {
+            requireNonNull(chunk, "chunk cannot be null");
+            free.add(chunk);
+        }
+
+        /**
+         * Stops producing more chunks, chunks already produced can still
+         * be taken.
+         */
+        public void cancel() {
+            cancelled = true;
+            free.offer(cancel);
+        }
+
+        /**
+         * Same as {@link #cancel()}.
+         */
+        @Override
+        public void close() {
+            cancel();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ChunkProducer{" +
+                "size=" + size +
+                ", chunkSize=" + chunkSize +
+                '}';
+    }
+}
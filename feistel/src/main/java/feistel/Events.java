@@ -0,0 +1,56 @@
+package feistel;
+
+/**
+ * Hooks for recording JDK Flight Recorder events.
+ * <p>
+ * This version does nothing, so it costs nothing on Java 8. On Java 11
+ * and later, the version in {@code src/main/java11} replaces it from the
+ * multi-release section of the jar, and records the events when they
+ * are enabled in a recording.
+ */
+final class Events {
+    private Events() {
+    }
+
+    /**
+     * Marks the start of a bulk operation, the returned object is
+     * to be passed to {@link #endBulk(Object, String, long)}.
+     */
+    static Object beginBulk() {
+        return null;
+    }
+
+    /**
+     * Marks the end of a bulk operation applying a Feistel to
+     * {@code size} values with the named kernel.
+     */
+    static void endBulk(Object event, String kernel, long size) {
+    }
+
+    /**
+     * Records a cycle walk that took more than the expected
+     * number of walks.
+     */
+    static void cycleWalk(long size, int walks) {
+    }
+
+    /**
+     * Marks the start of building or loading something expensive,
+     * the returned object is to be passed to {@link #endBuild(Object, String)}.
+     */
+    static Object beginBuild() {
+        return null;
+    }
+
+    /**
+     * Marks the end of building or loading the named kind of thing.
+     */
+    static void endBuild(Object event, String kind) {
+    }
+
+    /**
+     * Records a batch of evictions from a cache segment.
+     */
+    static void cacheEvictions(int capacity, int count) {
+    }
+}
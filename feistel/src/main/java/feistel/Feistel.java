@@ -4,7 +4,11 @@ import isomorphic.Isomorphism;
 import isomorphic.Isomorphism.OfInt;
 import isomorphic.Isomorphism.OfLong;
 
+import java.io.IOException;
 import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.function.IntFunction;
+import java.util.stream.LongStream;
 
 /**
  * Generalized <a href="https://en.wikipedia.org/wiki/Feistel_cipher">Feistel</a>
@@ -87,7 +91,7 @@ public final class Feistel {
             int rounds,
             RoundFunction<BigInteger> f
     ) {
-        return FeistelOfBigIntegerNumeric.fe2(rounds, a, b, f);
+        return FeistelOfBigIntegerNumeric.fe2Barrett(rounds, a, b, f);
     }
 
     /**
@@ -237,4 +241,917 @@ public final class Feistel {
                 a, b, rounds, IntFeistelImpl.toRoundFunction64(f)));
     }
 
+    /**
+     * Returns an arbitrary-sized balanced binary Feistel, where the source
+     * and target blocks are both half of the total number of bits.
+     * <p>
+     * This is the traditional Feistel construction, it is faster than the
+     * equivalent {@link #ofBigIntegerBinary(int, int, int, int, RoundFunction)}
+     * with equal halves.
+     *
+     * @param totalBits total number of bits, defining the set of valid
+     *                  elements of the domain and codomain of the returned
+     *                  function - {0,1,...,2<sup>totalBits</sup> - 1},
+     *                  must be even
+     * @param rounds    total number of rounds
+     * @param f         the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code totalBits} or {@code rounds}
+     *                                  is negative, or {@code totalBits}
+     *                                  is odd
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static Isomorphism<BigInteger, BigInteger> ofBigIntegerBalanced(
+            int totalBits,
+            int rounds,
+            RoundFunction<BigInteger> f
+    ) {
+        return FeistelOfBigIntegerBinary.balanced(rounds, totalBits, f);
+    }
+
+    /**
+     * Returns a balanced binary Feistel that is at most 64-bit, where the
+     * source and target blocks are both half of the total number of bits.
+     * <p>
+     * This is the traditional Feistel construction, it is faster than the
+     * equivalent {@link #ofLongBinary(int, int, int, int, RoundFunction.OfLong)}
+     * with equal halves.
+     *
+     * @param totalBits total number of bits, defining the set of valid
+     *                  elements of the domain and codomain of the returned
+     *                  function - {0,1,...,2<sup>totalBits</sup> - 1},
+     *                  must be even and not greater than 64
+     * @param rounds    total number of rounds
+     * @param f         the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code totalBits} or {@code rounds}
+     *                                  is negative, or {@code totalBits}
+     *                                  is odd or greater than 64
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static OfLong ofLongBalanced(
+            int totalBits,
+            int rounds,
+            RoundFunction.OfLong f
+    ) {
+        return FeistelOfLongBinary.balancedUnrolled(rounds, totalBits, f);
+    }
+
+    /**
+     * Returns a balanced binary Feistel that is at most 32-bit, where the
+     * source and target blocks are both half of the total number of bits.
+     * <p>
+     * This is the traditional Feistel construction, it is faster than the
+     * equivalent {@link #ofIntBinary(int, int, int, int, RoundFunction.OfInt)}
+     * with equal halves. When {@code totalBits} is 32, every {@code int}
+     * value, including the negative ones, is a valid element of the domain.
+     *
+     * @param totalBits total number of bits, defining the set of valid
+     *                  elements of the domain and codomain of the returned
+     *                  function - {0,1,...,2<sup>totalBits</sup> - 1},
+     *                  must be even and not greater than 32
+     * @param rounds    total number of rounds
+     * @param f         the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code totalBits} or {@code rounds}
+     *                                  is negative, or {@code totalBits}
+     *                                  is odd or greater than 32
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static OfInt ofIntBalanced(
+            int totalBits,
+            int rounds,
+            RoundFunction.OfInt f
+    ) {
+        return FeistelOfIntBinary.balanced(rounds, totalBits, f);
+    }
+
+    /**
+     * Returns an arbitrary-sized numeric Feistel using the <em>FE1</em>
+     * algorithm from <em>Format-Preserving Encryption</em>
+     * by Mihir Bellare, Thomas Ristenpart, Phillip Rogaway, and Till Stegers.
+     * <p>
+     * FE1 needs two divisions per round instead of the one needed by
+     * {@link #ofBigIntegerNumeric(BigInteger, BigInteger, int, RoundFunction) FE2},
+     * use this for compatibility with existing FE1 permutations.
+     *
+     * @param a      the {@code a} in {@code a x b}
+     * @param b      the {@code b} in {@code a x b}
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code a}, {@code b}, or {@code rounds}
+     *                                  is negative
+     * @throws NullPointerException     if {@code a}, {@code b}, or {@code f} is null
+     */
+    public static Isomorphism<BigInteger, BigInteger> ofBigIntegerNumericFe1(
+            BigInteger a,
+            BigInteger b,
+            int rounds,
+            RoundFunction<BigInteger> f
+    ) {
+        return FeistelOfBigIntegerNumeric.fe1Barrett(rounds, a, b, f);
+    }
+
+    /**
+     * Returns a numeric Feistel that is at most 64-bit using the <em>FE1</em>
+     * algorithm from <em>Format-Preserving Encryption</em>
+     * by Mihir Bellare, Thomas Ristenpart, Phillip Rogaway, and Till Stegers.
+     * <p>
+     * FE1 needs two divisions per round instead of the one needed by
+     * {@link #ofLongNumeric(long, long, int, RoundFunction.OfLong) FE2},
+     * use this for compatibility with existing FE1 permutations.
+     *
+     * @param a      the {@code a} in {@code a x b}
+     * @param b      the {@code b} in {@code a x b}
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code a}, {@code b}, or {@code rounds}
+     *                                  is negative, or {@code a x b} overflows
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static OfLong ofLongNumericFe1(
+            long a, long b, int rounds, RoundFunction.OfLong f
+    ) {
+        return FeistelOfLongNumeric.fe1(rounds, a, b, f);
+    }
+
+    /**
+     * Returns a numeric Feistel for domains of up to 2<sup>128</sup>
+     * elements, using the <em>FE2</em> algorithm from <em>Format-Preserving
+     * Encryption</em> by Mihir Bellare, Thomas Ristenpart, Phillip Rogaway,
+     * and Till Stegers.
+     * <p>
+     * {@code a} and {@code b} are unsigned, each up to 2<sup>64</sup> - 1,
+     * so {@code a x b} can overflow a {@code long}, and elements are 128-bit
+     * values stored as pairs of {@code long} values. This is many times
+     * faster than the equivalent
+     * {@link #ofBigIntegerNumeric(BigInteger, BigInteger, int, RoundFunction)},
+     * and produces the same results, see {@link LongPairFeistel}.
+     *
+     * @param a      the {@code a} in {@code a x b}, unsigned
+     * @param b      the {@code b} in {@code a x b}, unsigned
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code rounds} is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static LongPairFeistel ofLongPairNumeric(
+            long a, long b, int rounds, RoundFunction.OfLong f
+    ) {
+        return LongPairFeistel.fe2(rounds, a, b, f);
+    }
+
+    /**
+     * Same as {@link #ofLongPairNumeric(long, long, int, RoundFunction.OfLong)}
+     * but using the <em>FE1</em> algorithm, producing the same results as
+     * {@link #ofBigIntegerNumericFe1(BigInteger, BigInteger, int, RoundFunction)}.
+     *
+     * @param a      the {@code a} in {@code a x b}, unsigned
+     * @param b      the {@code b} in {@code a x b}, unsigned
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code rounds} is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static LongPairFeistel ofLongPairNumericFe1(
+            long a, long b, int rounds, RoundFunction.OfLong f
+    ) {
+        return LongPairFeistel.fe1(rounds, a, b, f);
+    }
+
+    /**
+     * Returns a Feistel over the points of a grid of
+     * {@code dimensions[0] x dimensions[1] x ...} points, that transforms
+     * coordinates directly, so that there is no need to convert a
+     * permuted index to coordinates, such as with {@code i % width} and
+     * {@code i / width}, and no divisions are needed per point.
+     * <p>
+     * Each round adds the round function of the other coordinates
+     * to one coordinate, modulo its dimension, taking turns, so the
+     * number of rounds should be a multiple of the number of
+     * dimensions.
+     *
+     * @param dimensions the size of each dimension, at least 2
+     * @param rounds     total number of rounds
+     * @param f          the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if there are fewer than 2
+     *                                  dimensions, {@code rounds} or any
+     *                                  dimension is negative, or the
+     *                                  number of points overflows
+     * @throws NullPointerException     if {@code dimensions} or {@code f}
+     *                                  is null
+     */
+    public static GridFeistel ofGrid(
+            int[] dimensions, int rounds, RoundFunction.OfLong f
+    ) {
+        return GridFeistel.of(dimensions, rounds, f);
+    }
+
+    /**
+     * Returns a Feistel for the domain {0,1,...,size - 1} of any size,
+     * by applying the smallest binary Feistel that covers the domain
+     * repeatedly until the result is in the domain.
+     * <p>
+     * This implements cycle walking from
+     * <em>Ciphers with Arbitrary Finite Domains</em>
+     * by John Black and Phillip Rogaway. On average fewer than two
+     * applications of the binary Feistel are needed, and unlike
+     * {@link #ofLongNumeric(long, long, int, RoundFunction.OfLong)}
+     * the size does not need to be factored into {@code a x b}.
+     *
+     * @param size   the number of elements of the domain and codomain
+     *               of the returned function
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code size} or {@code rounds}
+     *                                  is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static OfLong ofLongRange(
+            long size, int rounds, RoundFunction.OfLong f
+    ) {
+        return FeistelOfLongRange.cycleWalking(rounds, size, f);
+    }
+
+    /**
+     * Returns a Feistel over {0,1,...,size - 1} that keeps blocks of
+     * {@code blockSize} consecutive values together, permuting the blocks,
+     * and the values within each block. When the values are indices into
+     * an array, this keeps the order random at the block level, while each
+     * block of the array, such as a cache line of 8 {@code long} values or
+     * a page of 512, is read as a whole, so there are far fewer cache and
+     * TLB misses than with a Feistel over the whole domain.
+     * <p>
+     * The full blocks and the values within them are permuted by two
+     * {@link #ofLongRange(long, int, RoundFunction.OfLong) cycle walking
+     * Feistels}, using different rounds of the round function. The round
+     * function within a block is also given a key derived from the block
+     * index, so each block is shuffled differently. If {@code blockSize}
+     * does not divide {@code size}, the remaining values form a last
+     * partial block that is only permuted within itself.
+     *
+     * @param size      the number of elements of the domain and codomain
+     *                  of the returned function
+     * @param blockSize the number of consecutive values in a block
+     * @param rounds    total number of rounds of each of the two Feistels,
+     *                  the round function is called with rounds
+     *                  {0,1,...,2 x rounds}
+     * @param f         the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code size} or {@code rounds}
+     *                                  is negative, or {@code blockSize}
+     *                                  is not positive
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static OfLong ofLongBlocks(
+            long size, int blockSize, int rounds, RoundFunction.OfLong f
+    ) {
+        return FeistelOfLongBlocks.of(size, blockSize, rounds, f);
+    }
+
+    /**
+     * Returns a binary Feistel of at most 16 bits that only transforms
+     * values in batches, by evaluating a built-in keyed round function on
+     * 64 values at a time using bit slicing. This has a much higher
+     * throughput than transforming each value with a Feistel such as
+     * {@link #ofIntBinary(int, int, int, int, RoundFunction.OfInt)},
+     * for small domains such as shard or bucket IDs.
+     *
+     * @param totalBits total number of bits, defining the set of valid
+     *                  elements of the domain and codomain of the returned
+     *                  function - {0,1,...,2<sup>totalBits</sup> - 1}, must
+     *                  not be greater than 16
+     * @param rounds    total number of rounds
+     * @param circuit   the round function
+     * @param key       the key from which the round keys are derived
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code totalBits} or {@code rounds}
+     *                                  is negative, or {@code totalBits}
+     *                                  is greater than 16
+     * @throws NullPointerException     if {@code circuit} is null
+     */
+    public static BitslicedFeistel ofBitsliced(
+            int totalBits,
+            int rounds,
+            BitslicedFeistel.Circuit circuit,
+            long key
+    ) {
+        return BitslicedFeistel.of(totalBits, rounds, circuit, key);
+    }
+
+    /**
+     * Returns {@code keys.length} balanced binary Feistels that are at
+     * most 64-bit, one for each key, that are evaluated together.
+     * <p>
+     * Use this instead of one Feistel per key when every input needs
+     * to be transformed by all of the permutations, such as for MinHash
+     * signatures:
+     * <pre>{@code
+     * MultiKeyFeistel minHash = Feistel.ofMultiKey(64, 6, keys);
+     * long[] signature = minHash.newSignature();
+     * minHash.update(hashes, 0, hashes.length, signature);
+     * }</pre>
+     *
+     * @param totalBits total number of bits, defining the set of valid
+     *                  elements of the domain and codomain of the returned
+     *                  functions - {0,1,...,2<sup>totalBits</sup> - 1},
+     *                  must be even and not greater than 64
+     * @param rounds    total number of rounds
+     * @param keys      the keys from which the round keys of each
+     *                  permutation are derived
+     * @return the Feistel functions
+     * @throws IllegalArgumentException if {@code totalBits} or {@code rounds}
+     *                                  is negative, {@code totalBits} is odd
+     *                                  or greater than 64, or {@code keys}
+     *                                  is empty
+     * @throws NullPointerException     if {@code keys} is null
+     */
+    public static MultiKeyFeistel ofMultiKey(
+            int totalBits,
+            int rounds,
+            long[] keys
+    ) {
+        return MultiKeyFeistel.of(totalBits, rounds, keys);
+    }
+
+    /**
+     * Returns the cheapest Feistel implementation for the domain
+     * {0,1,...,a x b - 1}.
+     * <p>
+     * If both {@code a} and {@code b} are powers of two, a binary Feistel is
+     * chosen as it needs no divisions, balanced if {@code log2(a x b)} is
+     * even, otherwise unbalanced. For all other domains, the numeric FE2
+     * algorithm is chosen. The plan also reports the smallest type that can
+     * hold every element of the domain.
+     * The choice depends only on {@code a} and {@code b}.
+     *
+     * @param a the {@code a} in {@code a x b}
+     * @param b the {@code b} in {@code a x b}
+     * @return the plan, from which Feistel functions can be created
+     * @throws IllegalArgumentException if {@code a} or {@code b} is negative
+     * @throws NullPointerException     if {@code a} or {@code b} is null
+     */
+    public static FeistelPlan forDomain(BigInteger a, BigInteger b) {
+        return FeistelPlan.of(a, b);
+    }
+
+    /**
+     * Same as {@link #forDomain(BigInteger, BigInteger)}.
+     *
+     * @param a the {@code a} in {@code a x b}
+     * @param b the {@code b} in {@code a x b}
+     * @return the plan, from which Feistel functions can be created
+     * @throws IllegalArgumentException if {@code a} or {@code b} is negative
+     */
+    public static FeistelPlan forDomain(long a, long b) {
+        return FeistelPlan.of(BigInteger.valueOf(a), BigInteger.valueOf(b));
+    }
+
+    /**
+     * Returns an assignment of the IDs {0,1,...,a x b - 1} to buckets with
+     * exactly balanced sizes, for A/B test groups or shard routing, using
+     * {@link #ofLongNumeric(long, long, int, RoundFunction.OfLong)}. The
+     * members of a bucket can be listed through the inverse of the
+     * Feistel without going through all IDs.
+     *
+     * @param a       the {@code a} in {@code a x b}
+     * @param b       the {@code b} in {@code a x b}
+     * @param buckets the number of buckets
+     * @param rounds  total number of rounds
+     * @param f       the round function
+     * @return the bucket assignment
+     * @throws IllegalArgumentException if {@code a}, {@code b}, or
+     *                                  {@code rounds} is negative,
+     *                                  {@code a x b} overflows, or
+     *                                  {@code buckets} is not positive
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static FeistelBuckets buckets(
+            long a, long b, int buckets, int rounds, RoundFunction.OfLong f
+    ) {
+        return FeistelBuckets.of(a, b, buckets, rounds, f);
+    }
+
+    /**
+     * Returns a spec of a keyed Feistel over {0,1,...,size - 1}, with
+     * round keys derived from {@code seed}. The spec can be
+     * {@link FeistelSpec#encode() encoded} and sent to other processes,
+     * and {@link FeistelSpec#shard(int, int) sharded} between workers.
+     *
+     * @param size   the number of elements of the domain
+     * @param rounds total number of rounds
+     * @param seed   the seed from which the round keys are derived
+     * @return a Feistel spec
+     * @throws IllegalArgumentException if {@code size} or {@code rounds}
+     *                                  is negative
+     */
+    public static FeistelSpec spec(long size, int rounds, long seed) {
+        return FeistelSpec.of(size, rounds, seed);
+    }
+
+    /**
+     * Returns a spec of a keyed Feistel over {0,1,...,size - 1},
+     * with one round for each of the given round keys.
+     *
+     * @param size      the number of elements of the domain
+     * @param roundKeys the round keys, such as from a secure random
+     *                  source if the permutation needs to be unpredictable
+     * @return a Feistel spec
+     * @throws IllegalArgumentException if {@code size} is negative
+     * @throws NullPointerException     if {@code roundKeys} is null
+     * @see #spec(long, int, long)
+     */
+    public static FeistelSpec spec(long size, long[] roundKeys) {
+        return FeistelSpec.of(size, roundKeys);
+    }
+
+    /**
+     * Returns a cursor over {0,1,...,size - 1} in the order given by the
+     * Feistel, at position 0. The cursor can seek to any position, and
+     * find the position of any element, in constant time.
+     *
+     * @param feistel a Feistel over {0,1,...,size - 1}, such as from
+     *                {@link #ofLongRange(long, int, RoundFunction.OfLong)}
+     * @param size    the number of elements
+     * @return a cursor
+     * @throws IllegalArgumentException if {@code size} is negative
+     * @throws NullPointerException     if {@code feistel} is null
+     */
+    public static FeistelCursor cursor(OfLong feistel, long size) {
+        return FeistelCursor.of(feistel, size);
+    }
+
+    /**
+     * Returns {@code k} distinct elements sampled from {0,1,...,n - 1}
+     * without replacement, in O(k) time and without any memory other
+     * than the result.
+     * <p>
+     * The sample is the first {@code k} elements of a permutation
+     * of {0,1,...,n - 1} keyed by {@code key}, with
+     * 8 rounds of the round function of
+     * {@link #spec(long, int, long)}, so the same arguments always
+     * result in the same sample, and the sample for a smaller
+     * {@code k} is a prefix of the sample for a larger {@code k}.
+     *
+     * @param k   the number of elements to sample
+     * @param n   the number of elements to sample from
+     * @param key the key of the permutation
+     * @return the sampled elements
+     * @throws IllegalArgumentException if {@code k} or {@code n} is
+     *                                  negative, or {@code k} is
+     *                                  greater than {@code n}
+     */
+    public static long[] sample(int k, long n, long key) {
+        return Sampling.sample(k, n, key);
+    }
+
+    /**
+     * Same as {@link #sample(int, long, long)}, but computes the elements
+     * in parallel using the common fork join pool.
+     *
+     * @param k   the number of elements to sample
+     * @param n   the number of elements to sample from
+     * @param key the key of the permutation
+     * @return the sampled elements
+     * @throws IllegalArgumentException if {@code k} or {@code n} is
+     *                                  negative, or {@code k} is
+     *                                  greater than {@code n}
+     */
+    public static long[] sampleParallel(int k, long n, long key) {
+        return Sampling.sampleParallel(k, n, key);
+    }
+
+    /**
+     * Same as {@link #sample(int, long, long)}, but returns the elements
+     * as a stream, for samples too large to hold in memory. The stream
+     * can be made {@link LongStream#parallel() parallel}.
+     *
+     * @param k   the number of elements to sample
+     * @param n   the number of elements to sample from
+     * @param key the key of the permutation
+     * @return the sampled elements
+     * @throws IllegalArgumentException if {@code k} or {@code n} is
+     *                                  negative, or {@code k} is
+     *                                  greater than {@code n}
+     */
+    public static LongStream sampleStream(long k, long n, long key) {
+        return Sampling.stream(k, n, key);
+    }
+
+    /**
+     * Shuffles the array in place in parallel, so that the element at
+     * index {@code i} after shuffling is the element at index
+     * {@code f(i)} before. Given the same {@code f}, such as
+     * {@code Feistel.spec(array.length, 8, key).feistel()}, the result
+     * is always the same.
+     * <p>
+     * This follows the cycles of {@code f} from multiple threads, using
+     * a bitset of {@code array.length} bits to mark the visited indices.
+     * If memory allows, {@link #shuffle(long[], long[], OfLong)} is faster.
+     *
+     * @param array the array to shuffle
+     * @param f     a permutation of {0,1,...,array.length - 1}
+     * @throws NullPointerException if {@code array} or {@code f} is null
+     */
+    public static void shuffle(long[] array, OfLong f) {
+        Shuffle.inPlace(array, f);
+    }
+
+    /**
+     * Same as {@link #shuffle(long[], OfLong)}, for {@code int} arrays.
+     *
+     * @param array the array to shuffle
+     * @param f     a permutation of {0,1,...,array.length - 1}
+     * @throws NullPointerException if {@code array} or {@code f} is null
+     */
+    public static void shuffle(int[] array, OfLong f) {
+        Shuffle.inPlace(array, f);
+    }
+
+    /**
+     * Same as {@link #shuffle(long[], OfLong)}, for object arrays.
+     *
+     * @param array the array to shuffle
+     * @param f     a permutation of {0,1,...,array.length - 1}
+     * @throws NullPointerException if {@code array} or {@code f} is null
+     */
+    public static <T> void shuffle(T[] array, OfLong f) {
+        Shuffle.inPlace(array, f);
+    }
+
+    /**
+     * Shuffles {@code src} into {@code dest} in parallel, so that
+     * {@code dest[i] = src[f(i)]}.
+     *
+     * @param src  the array to shuffle
+     * @param dest the array to put the result in, must be a different
+     *             array of the same length as {@code src}
+     * @param f    a permutation of {0,1,...,src.length - 1}
+     * @throws IllegalArgumentException if {@code src} and {@code dest}
+     *                                  are the same array, or are of
+     *                                  different lengths
+     * @throws NullPointerException     if any argument is null
+     * @see #shuffle(long[], OfLong)
+     */
+    public static void shuffle(long[] src, long[] dest, OfLong f) {
+        Shuffle.gather(src, dest, f);
+    }
+
+    /**
+     * Same as {@link #shuffle(long[], long[], OfLong)},
+     * for {@code int} arrays.
+     *
+     * @param src  the array to shuffle
+     * @param dest the array to put the result in, must be a different
+     *             array of the same length as {@code src}
+     * @param f    a permutation of {0,1,...,src.length - 1}
+     * @throws IllegalArgumentException if {@code src} and {@code dest}
+     *                                  are the same array, or are of
+     *                                  different lengths
+     * @throws NullPointerException     if any argument is null
+     */
+    public static void shuffle(int[] src, int[] dest, OfLong f) {
+        Shuffle.gather(src, dest, f);
+    }
+
+    /**
+     * Same as {@link #shuffle(long[], long[], OfLong)},
+     * for object arrays.
+     *
+     * @param src  the array to shuffle
+     * @param dest the array to put the result in, must be a different
+     *             array of the same length as {@code src}
+     * @param f    a permutation of {0,1,...,src.length - 1}
+     * @throws IllegalArgumentException if {@code src} and {@code dest}
+     *                                  are the same array, or are of
+     *                                  different lengths
+     * @throws NullPointerException     if any argument is null
+     */
+    public static <T> void shuffle(T[] src, T[] dest, OfLong f) {
+        Shuffle.gather(src, dest, f);
+    }
+
+    /**
+     * Shuffles a file of fixed size records that may be much larger than
+     * memory into another file, so that the record at index {@code i} of
+     * the target is the record at index {@code f(i)} of the source, the
+     * same as {@link #shuffle(long[], long[], OfLong)} and
+     * {@link #shuffledReader(Path, int, OfLong, int, int) shuffledReader}
+     * with the same {@code f}. Given the same {@code f}, such as
+     * {@code Feistel.spec(records, 8, key).feistel()}, the result is
+     * always the same.
+     * <p>
+     * The source is read sequentially through memory mapped windows by
+     * all available processors, and the records are bucketed by region
+     * of the target into a temporary file next to the target, using
+     * large sequential writes. Each region is then assembled in memory
+     * and written to the target with a single sequential write. Apart
+     * from memory mapped windows, at most {@code memoryBudget} bytes of
+     * heap are used for buffers. The temporary file is as large as the
+     * source, plus 8 bytes per record.
+     *
+     * @param source       the file to shuffle
+     * @param target       the file to write the result to,
+     *                     will be replaced if it exists
+     * @param recordSize   the size of each record in bytes
+     * @param f            a permutation of {0,1,...,records - 1}
+     * @param memoryBudget the maximum number of bytes for buffers
+     * @throws IllegalArgumentException if {@code recordSize} is not
+     *                                  positive, the size of the source
+     *                                  is not a multiple of it,
+     *                                  {@code memoryBudget} is too small,
+     *                                  or {@code f} is found to not be
+     *                                  a permutation
+     * @throws NullPointerException     if any argument is null
+     * @throws IOException              if an I/O error occurs
+     */
+    public static void shuffle(
+            Path source,
+            Path target,
+            int recordSize,
+            OfLong f,
+            long memoryBudget
+    ) throws IOException {
+        FileShuffle.shuffle(source, target, recordSize, f, memoryBudget,
+                Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Opens a reader of a file of fixed size records, that reads the
+     * records in the order given by {@code f} without rewriting the
+     * file, such as with a {@link #spec(long, int, long) keyed Feistel}
+     * with a new key for each epoch of training.
+     * <p>
+     * Positions are read in windows of {@code windowSize} records, each
+     * sorted by offset and read with large reads by a background thread,
+     * with up to {@code readAhead} windows read ahead.
+     *
+     * @param file       the file to read
+     * @param recordSize the size of each record in bytes
+     * @param f          a permutation of {0,1,...,records - 1}
+     * @param windowSize the number of records in each window
+     * @param readAhead  the number of windows to read ahead
+     * @return a reader, which must be closed after use
+     * @throws IllegalArgumentException if {@code recordSize} or
+     *                                  {@code windowSize} is not positive,
+     *                                  {@code readAhead} is negative,
+     *                                  or the size of the file is not a
+     *                                  multiple of {@code recordSize}
+     * @throws NullPointerException     if {@code file} or {@code f} is null
+     * @throws IOException              if an I/O error occurs
+     */
+    public static ShuffledReader shuffledReader(
+            Path file,
+            int recordSize,
+            OfLong f,
+            int windowSize,
+            int readAhead
+    ) throws IOException {
+        return ShuffledReader.open(file, recordSize, f, windowSize, readAhead);
+    }
+
+    /**
+     * Returns a producer of the Feistel applied to
+     * {0,1,...,size - 1} in order, in chunks of reused {@code int[]}
+     * arrays of at most {@code chunkSize} values, for example:
+     * <pre>{@code
+     * Feistel.intChunks(feistel, size, 1024).forEach(chunk -> {
+     *     int[] values = chunk.values();
+     *     for (int i = 0; i < chunk.length(); i++) {
+     *         process(values[i]);
+     *     }
+     *     return true;
+     * });
+     * }</pre>
+     *
+     * @param feistel   the Feistel to apply to the positions
+     * @param size      the number of positions
+     * @param chunkSize the maximum number of values of each chunk
+     * @return a chunk producer
+     * @throws IllegalArgumentException if {@code size} is negative or
+     *                                  {@code chunkSize} is not positive
+     * @throws NullPointerException     if {@code feistel} is null
+     */
+    public static ChunkProducer<int[]> intChunks(
+            OfInt feistel, int size, int chunkSize
+    ) {
+        return ChunkProducer.ofInt(feistel, size, chunkSize);
+    }
+
+    /**
+     * Returns a producer of the Feistel applied to
+     * {0,1,...,size - 1} in order, in chunks of reused {@code long[]}
+     * arrays of at most {@code chunkSize} values.
+     *
+     * @param feistel   the Feistel to apply to the positions
+     * @param size      the number of positions
+     * @param chunkSize the maximum number of values of each chunk
+     * @return a chunk producer
+     * @throws IllegalArgumentException if {@code size} is negative or
+     *                                  {@code chunkSize} is not positive
+     * @throws NullPointerException     if {@code feistel} is null
+     * @see #intChunks(OfInt, int, int)
+     */
+    public static ChunkProducer<long[]> longChunks(
+            OfLong feistel, long size, int chunkSize
+    ) {
+        return ChunkProducer.ofLong(feistel, size, chunkSize);
+    }
+
+    /**
+     * Returns a registry that builds and caches a Feistel for each
+     * tenant key and domain, for example, keyed Feistels over domains
+     * of different sizes:
+     * <pre>{@code
+     * FeistelRegistry<Long> registry = Feistel.registry(10_000,
+     *     (key, size) -> Feistel.spec(size, 8, key).feistel());
+     * long id = registry.get(tenantKey, 1_000_000L).applyAsLong(index);
+     * }</pre>
+     * <p>
+     * At most {@code maximumSize} Feistels are kept, a Feistel is only
+     * cached in place of an older one if it has been requested more
+     * frequently, same as {@link #cache(Isomorphism, int)}.
+     *
+     * @param maximumSize the maximum number of Feistels to cache
+     * @param builder     builds the Feistel for a key and a domain
+     * @return a registry
+     * @throws IllegalArgumentException if {@code maximumSize} is negative
+     * @throws NullPointerException     if {@code builder} is null
+     */
+    public static <D> FeistelRegistry<D> registry(
+            int maximumSize, FeistelRegistry.Builder<D> builder
+    ) {
+        return FeistelRegistry.of(maximumSize, builder);
+    }
+
+    /**
+     * Measures the mixing quality and speed of a Feistel for each number
+     * of rounds from 1 to {@code maxRounds}, to choose the cheapest
+     * number of rounds for a round function and a domain, for example:
+     * <pre>{@code
+     * RoundTuning tuning = Feistel.tuneRounds(
+     *     rounds -> Feistel.ofLongBinary(32, 16, 16, rounds, f),
+     *     1L << 32, 12, 100_000, 0.05);
+     * int rounds = tuning.best().orElseThrow(IllegalStateException::new).rounds();
+     * }</pre>
+     * The measurements run in parallel over the sampled inputs, see
+     * {@link RoundTuning} for what is measured.
+     *
+     * @param factory   returns the Feistel for a number of rounds
+     * @param size      the number of elements of the domain, or 0 for
+     *                  all {@code long} values
+     * @param maxRounds the maximum number of rounds to measure
+     * @param samples   the number of inputs to sample for each number
+     *                  of rounds
+     * @param maxBias   the target that both the avalanche and the
+     *                  independence bias need to be at most
+     * @return the measurements
+     * @throws IllegalArgumentException if {@code size} is negative or 1,
+     *                                  {@code maxRounds} or {@code samples}
+     *                                  is not positive, or {@code maxBias}
+     *                                  is not between 0 and 1
+     * @throws NullPointerException     if {@code factory} is null
+     */
+    public static RoundTuning tuneRounds(
+            IntFunction<? extends OfLong> factory,
+            long size,
+            int maxRounds,
+            int samples,
+            double maxBias
+    ) {
+        return RoundTuning.of(factory, size, maxRounds, samples, maxBias);
+    }
+
+    /**
+     * Returns a pseudorandom number generator in counter mode with 6
+     * rounds, where the value at position {@code i} is a keyed 64-bit
+     * balanced Feistel of {@code i}, see {@link FeistelRandom}.
+     * <p>
+     * Generators with the same seed produce the same values.
+     *
+     * @param seed the seed from which the round keys are derived
+     * @return a generator at position 0
+     */
+    public static FeistelRandom random(long seed) {
+        return FeistelRandom.of(seed, 6);
+    }
+
+    /**
+     * Same as {@link #random(long)}, but with the given number of rounds.
+     *
+     * @param seed   the seed from which the round keys are derived
+     * @param rounds total number of rounds
+     * @return a generator at position 0
+     * @throws IllegalArgumentException if {@code rounds} is negative
+     */
+    public static FeistelRandom random(long seed, int rounds) {
+        return FeistelRandom.of(seed, rounds);
+    }
+
+    /**
+     * Checks that a function is a bijection over {0,1,...,size - 1}, and
+     * that its inverse is its inverse, by applying both to every element
+     * of the domain in parallel. For example, to check a round function
+     * over every {@code int} value:
+     * <pre>{@code
+     * BijectionCheck check = Feistel.checkBijection(
+     *     Feistel.ofLongBinary(32, 16, 16, 8, f), 1L << 32);
+     * }</pre>
+     * This needs {@code size / 8} bytes of memory, 512 MiB for 32 bits and
+     * 8 GiB for 36 bits, off the heap on Java 11 and later, see
+     * {@link BijectionCheck}.
+     *
+     * @param f    the function to check
+     * @param size the number of elements of the domain
+     * @return the result of the check
+     * @throws IllegalArgumentException if {@code size} is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static BijectionCheck checkBijection(OfLong f, long size) {
+        return BijectionCheck.of(f, size);
+    }
+
+    /**
+     * Returns a generator of unique IDs, that applies the Feistel to
+     * counter values in {start,start+1,...,end - 1}, so that no ID is
+     * repeated as long as the Feistel is a bijection over the counter
+     * values. For example, for opaque 40-bit IDs:
+     * <pre>{@code
+     * UniqueIdGenerator ids = Feistel.uniqueIds(
+     *     Feistel.ofLongBalanced(40, 8, f), 0, 1L << 40, 1024);
+     * }</pre>
+     * <p>
+     * Each thread claims {@code blockSize} counter values at a time, so
+     * threads only contend once every {@code blockSize} IDs.
+     *
+     * @param feistel   the Feistel to apply to the counter values
+     * @param start     the first counter value, inclusive
+     * @param end       the last counter value, exclusive
+     * @param blockSize the number of counter values claimed by
+     *                  a thread at a time
+     * @return a generator of unique IDs
+     * @throws IllegalArgumentException if {@code start} or {@code end} is
+     *                                  negative, {@code start} is greater
+     *                                  than {@code end}, or
+     *                                  {@code blockSize} is not positive
+     * @throws NullPointerException     if {@code feistel} is null
+     */
+    public static UniqueIdGenerator uniqueIds(
+            OfLong feistel, long start, long end, int blockSize
+    ) {
+        return UniqueIdGenerator.of(feistel, start, end, blockSize);
+    }
+
+    /**
+     * Returns a function that caches the results of the given function,
+     * useful when the function is expensive to compute, such as a
+     * {@link #ofBigIntegerBinary(int, int, int, int, RoundFunction) BigInteger Feistel}
+     * with a cryptographic round function, and the same inputs are
+     * requested repeatedly.
+     * <p>
+     * Each computed result is cached for both the returned function
+     * and its {@link Isomorphism#inverse() inverse}. At most
+     * {@code maximumSize} results are kept for each direction,
+     * a result is only cached in place of an older one if its input
+     * has been requested more frequently, so a scan over many
+     * inputs that are used only once does not evict frequently
+     * used results.
+     *
+     * @param f           the function to cache
+     * @param maximumSize the maximum number of results to cache
+     *                    for each direction
+     * @return a caching function
+     * @throws IllegalArgumentException if {@code maximumSize} is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public static <A> CachedIsomorphism<A> cache(
+            Isomorphism<A, A> f, int maximumSize
+    ) {
+        return CachedIsomorphism.of(f, maximumSize);
+    }
+
+    /**
+     * Returns a function that caches the results of the given function,
+     * specialized for {@code long} values.
+     *
+     * @param f           the function to cache
+     * @param maximumSize the maximum number of results to cache
+     *                    for each direction
+     * @return a caching function
+     * @throws IllegalArgumentException if {@code maximumSize} is negative
+     * @throws NullPointerException     if {@code f} is null
+     * @see #cache(Isomorphism, int)
+     */
+    public static CachedIsomorphism.OfLong cache(
+            OfLong f, int maximumSize
+    ) {
+        return CachedIsomorphism.OfLong.of(f, maximumSize);
+    }
+
 }
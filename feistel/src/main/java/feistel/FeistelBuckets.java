@@ -0,0 +1,215 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.stream.LongStream;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An assignment of the IDs {0,1,...,size - 1} to {@code buckets} buckets,
+ * such as for A/B test groups or shard routing, where every bucket has
+ * either {@code size / buckets} or {@code size / buckets + 1} IDs, unlike
+ * hashing, which only balances the buckets approximately.
+ * <p>
+ * The bucket of an ID is {@code f(id) mod buckets}, where {@code f} is a
+ * numeric Feistel over the IDs, so the members of bucket {@code j} are the
+ * inverses of {j, j + buckets, j + 2 x buckets, ...}, which can be listed
+ * lazily without going through all IDs. The Feistel does not depend on
+ * the number of buckets, so {@link #withBuckets(int)} and
+ * {@link #reassignAll(long[], int[], int[][])} only change the final
+ * reduction, and when the number of buckets is multiplied, each bucket is
+ * split between the new buckets that are congruent to it, without moving
+ * any ID between unrelated buckets.
+ * <p>
+ * Instances are immutable and thread safe if the round function is.
+ *
+ * @see Feistel#buckets(long, long, int, int, RoundFunction.OfLong)
+ */
+public final class FeistelBuckets {
+
+    private final Isomorphism.OfLong feistel;
+    private final long size;
+    private final int buckets;
+
+    private FeistelBuckets(Isomorphism.OfLong feistel, long size, int buckets) {
+        this.feistel = feistel;
+        this.size = size;
+        this.buckets = buckets;
+    }
+
+    static FeistelBuckets of(
+            long a,
+            long b,
+            int buckets,
+            int rounds,
+            RoundFunction.OfLong f
+    ) {
+        requireNonNull(f, "f cannot be null");
+        requireBuckets(buckets);
+        Isomorphism.OfLong feistel = FeistelOfLongNumeric.fe2(rounds, a, b, f);
+        return new FeistelBuckets(feistel, a * b, buckets);
+    }
+
+    private static void requireBuckets(int buckets) {
+        if (buckets <= 0) {
+            throw new IllegalArgumentException(
+                    "buckets must be positive: " + buckets);
+        }
+    }
+
+    /**
+     * Returns the number of IDs.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of buckets.
+     */
+    public int buckets() {
+        return buckets;
+    }
+
+    /**
+     * Returns an assignment of the same IDs to a different number of
+     * buckets, using the same Feistel.
+     *
+     * @throws IllegalArgumentException if {@code buckets} is not positive
+     */
+    public FeistelBuckets withBuckets(int buckets) {
+        requireBuckets(buckets);
+        return new FeistelBuckets(feistel, size, buckets);
+    }
+
+    /**
+     * Returns the bucket of the ID, in {0,1,...,buckets() - 1}.
+     *
+     * @throws IllegalArgumentException if {@code id} is not in
+     *                                  {0,1,...,size() - 1}
+     */
+    public int bucket(long id) {
+        return (int) (feistel.applyAsLong(id) % buckets);
+    }
+
+    /**
+     * Returns the number of IDs in the bucket, which is either
+     * {@code size() / buckets()} or one more than that.
+     *
+     * @throws IllegalArgumentException if {@code bucket} is not in
+     *                                  {0,1,...,buckets() - 1}
+     */
+    public long bucketSize(int bucket) {
+        requireNonNegative(bucket, buckets - 1);
+        return size / buckets + (bucket < size % buckets ? 1 : 0);
+    }
+
+    /**
+     * Returns the member at {@code index} of the bucket, members are
+     * ordered by their positions in the permutation, not by ID.
+     *
+     * @throws IllegalArgumentException if {@code bucket} is not in
+     *                                  {0,1,...,buckets() - 1}, or
+     *                                  {@code index} is not in
+     *                                  {0,1,...,bucketSize(bucket) - 1}
+     */
+    public long member(int bucket, long index) {
+        requireNonNegative(index, bucketSize(bucket) - 1);
+        return feistel.inverse().applyAsLong(bucket + index * buckets);
+    }
+
+    /**
+     * Returns the IDs of the bucket, in the same order as
+     * {@link #member(int, long)}. The IDs are computed lazily as the stream
+     * is consumed, so a bucket can be paged through, and the stream can be
+     * split for parallel processing.
+     *
+     * @throws IllegalArgumentException if {@code bucket} is not in
+     *                                  {0,1,...,buckets() - 1}
+     */
+    public LongStream members(int bucket) {
+        long bucketSize = bucketSize(bucket);
+        Isomorphism.OfLong inverse = feistel.inverse();
+        long buckets = this.buckets;
+        return LongStream.range(0, bucketSize)
+                .map(i -> inverse.applyAsLong(bucket + i * buckets));
+    }
+
+    /**
+     * Puts the bucket of {@code ids[i]} into {@code output[i]}.
+     *
+     * @throws IllegalArgumentException  if any ID is not in
+     *                                   {0,1,...,size() - 1}
+     * @throws IndexOutOfBoundsException if {@code output} is shorter
+     *                                   than {@code ids}
+     */
+    public void assignAll(long[] ids, int[] output) {
+        requireNonNull(ids, "ids cannot be null");
+        requireNonNull(output, "output cannot be null");
+        checkLength(ids, output);
+        Object event = Events.beginBulk();
+        Isomorphism.OfLong feistel = this.feistel;
+        int buckets = this.buckets;
+        for (int i = 0; i < ids.length; i++) {
+            output[i] = (int) (feistel.applyAsLong(ids[i]) % buckets);
+        }
+        Events.endBulk(event, "buckets", ids.length);
+    }
+
+    /**
+     * Puts the bucket of {@code ids[i]} when there are
+     * {@code bucketCounts[j]} buckets into {@code output[j][i]}, the same
+     * as {@code withBuckets(bucketCounts[j]).bucket(ids[i])}, such as for
+     * finding the IDs that move when going from one number of buckets to
+     * another. The Feistel is evaluated once per ID for all bucket counts.
+     *
+     * @throws IllegalArgumentException  if any ID is not in
+     *                                   {0,1,...,size() - 1}, or any
+     *                                   bucket count is not positive
+     * @throws IndexOutOfBoundsException if {@code output} is shorter than
+     *                                   {@code bucketCounts}, or any
+     *                                   {@code output[j]} is shorter
+     *                                   than {@code ids}
+     */
+    public void reassignAll(long[] ids, int[] bucketCounts, int[][] output) {
+        requireNonNull(ids, "ids cannot be null");
+        requireNonNull(bucketCounts, "bucketCounts cannot be null");
+        requireNonNull(output, "output cannot be null");
+        if (output.length < bucketCounts.length) {
+            throw new IndexOutOfBoundsException(
+                    "expected at least " + bucketCounts.length +
+                            " outputs: " + output.length);
+        }
+        for (int j = 0; j < bucketCounts.length; j++) {
+            requireBuckets(bucketCounts[j]);
+            checkLength(ids, output[j]);
+        }
+        Object event = Events.beginBulk();
+        Isomorphism.OfLong feistel = this.feistel;
+        for (int i = 0; i < ids.length; i++) {
+            long y = feistel.applyAsLong(ids[i]);
+            for (int j = 0; j < bucketCounts.length; j++) {
+                output[j][i] = (int) (y % bucketCounts[j]);
+            }
+        }
+        Events.endBulk(event, "buckets", (long) ids.length * bucketCounts.length);
+    }
+
+    private static void checkLength(long[] ids, int[] output) {
+        if (output.length < ids.length) {
+            throw new IndexOutOfBoundsException(
+                    "expected at least " + ids.length +
+                            " elements: " + output.length);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelBuckets{" +
+                "size=" + size +
+                ", buckets=" + buckets +
+                '}';
+    }
+}
@@ -0,0 +1,178 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.NoSuchElementException;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A cursor over the elements {0,1,...,size - 1} in the order given by a
+ * Feistel, the element at each position being the result of applying the
+ * Feistel to the position.
+ * <p>
+ * As the Feistel can be evaluated at any position, and inverted to find
+ * the position of any element, the cursor can {@link #seek(long) seek}
+ * in constant time, and iterate in both directions. Its entire state is
+ * its {@link #position() position}, so to resume after a restart, persist
+ * the position, and {@link #seek(long) seek} a new cursor of the same
+ * Feistel, such as from the same {@link FeistelSpec}, to it.
+ * <p>
+ * The position is between elements, like {@link java.util.ListIterator}:
+ * {@link #next()} returns the element at the position and increments it,
+ * {@link #previous()} decrements it and returns the element at the
+ * position.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @see Feistel#cursor(Isomorphism.OfLong, long)
+ * @see FeistelSpec#cursor()
+ */
+public final class FeistelCursor {
+
+    private final Isomorphism.OfLong feistel;
+    private final long size;
+    private long position;
+
+    private FeistelCursor(Isomorphism.OfLong feistel, long size) {
+        this.feistel = feistel;
+        this.size = size;
+    }
+
+    static FeistelCursor of(Isomorphism.OfLong feistel, long size) {
+        requireNonNull(feistel, "feistel cannot be null");
+        requireNonNegative(size, "size");
+        return new FeistelCursor(feistel, size);
+    }
+
+    /**
+     * Returns the number of elements.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the current position, in {0,1,...,size}.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Moves to the given position, in {0,1,...,size}.
+     *
+     * @return this cursor
+     * @throws IllegalArgumentException if {@code position} is out of range
+     */
+    public FeistelCursor seek(long position) {
+        requireNonNegative(position, size);
+        this.position = position;
+        return this;
+    }
+
+    /**
+     * Returns true if there is an element after the current position.
+     */
+    public boolean hasNext() {
+        return position < size;
+    }
+
+    /**
+     * Returns true if there is an element before the current position.
+     */
+    public boolean hasPrevious() {
+        return position > 0;
+    }
+
+    /**
+     * Returns the element after the current position,
+     * and moves the position forward by one.
+     *
+     * @throws NoSuchElementException if the position is at the end
+     */
+    public long next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return feistel.applyAsLong(position++);
+    }
+
+    /**
+     * Returns the element before the current position,
+     * and moves the position backward by one.
+     *
+     * @throws NoSuchElementException if the position is at the start
+     */
+    public long previous() {
+        if (!hasPrevious()) {
+            throw new NoSuchElementException();
+        }
+        return feistel.applyAsLong(--position);
+    }
+
+    /**
+     * Fills the buffer with the elements after the current position,
+     * and moves the position forward past them.
+     *
+     * @return the number of elements put into the buffer, fewer than the
+     * length of the buffer if the end is reached
+     */
+    public int next(long[] buffer) {
+        int n = (int) Math.min(buffer.length, size - position);
+        for (int i = 0; i < n; i++) {
+            buffer[i] = feistel.applyAsLong(position + i);
+        }
+        position += n;
+        return n;
+    }
+
+    /**
+     * Fills the buffer with the elements before the current position,
+     * nearest first, and moves the position backward past them.
+     *
+     * @return the number of elements put into the buffer, fewer than the
+     * length of the buffer if the start is reached
+     */
+    public int previous(long[] buffer) {
+        int n = (int) Math.min(buffer.length, position);
+        for (int i = 0; i < n; i++) {
+            buffer[i] = feistel.applyAsLong(position - i - 1);
+        }
+        position -= n;
+        return n;
+    }
+
+    /**
+     * Returns the element at the given position,
+     * without moving the cursor.
+     *
+     * @throws IllegalArgumentException if {@code position} is not in
+     *                                  {0,1,...,size - 1}
+     */
+    public long elementAt(long position) {
+        requireNonNegative(position, size - 1);
+        return feistel.applyAsLong(position);
+    }
+
+    /**
+     * Returns the position of the given element,
+     * without moving the cursor.
+     *
+     * @throws IllegalArgumentException if {@code element} is not in
+     *                                  {0,1,...,size - 1}
+     */
+    public long positionOf(long element) {
+        requireNonNegative(element, size - 1);
+        return feistel.inverse().applyAsLong(element);
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelCursor{" +
+                "position=" + position +
+                ", size=" + size +
+                '}';
+    }
+}
@@ -113,4 +113,97 @@ final class FeistelOfBigIntegerNumeric {
         });
     }
 
+    /**
+     * Same as {@link #fe1(int, BigInteger, BigInteger, RoundFunction)},
+     * but with the divisions by {@code a} and {@code b} replaced by
+     * {@link BarrettReducer Barrett reductions} with precomputed
+     * reciprocals, and a single combined division per round.
+     */
+    static Isomorphism<BigInteger, BigInteger> fe1Barrett(
+            int rounds,
+            BigInteger a,
+            BigInteger b,
+            RoundFunction<BigInteger> rf
+    ) {
+        requireNonNull(rf, "rf cannot be null");
+        BarrettReducer[] ab = reducers(a, b);
+        BarrettReducer ra = ab[0];
+        BarrettReducer rb = ab[1];
+        return create(rounds, a, b, x -> {
+
+            for (int i = 0; i < rounds; i++) {
+                BigInteger[] lr = rb.divideAndRemainder(x);
+                BigInteger w = ra.addMod(lr[0], rf.apply(i, lr[1]));
+                x = a.multiply(lr[1]).add(w);
+            }
+            return x;
+
+        }, y -> {
+
+            for (int i = rounds - 1; i >= 0; i--) {
+                BigInteger[] rw = ra.divideAndRemainder(y);
+                BigInteger l = ra.subtractMod(rw[1], rf.apply(i, rw[0]));
+                y = b.multiply(l).add(rw[0]);
+            }
+            return y;
+        });
+    }
+
+    /**
+     * Same as {@link #fe2(int, BigInteger, BigInteger, RoundFunction)},
+     * but with the divisions by {@code a} and {@code b} replaced by
+     * {@link BarrettReducer Barrett reductions} with precomputed
+     * reciprocals, and a single combined division to split the input.
+     */
+    static Isomorphism<BigInteger, BigInteger> fe2Barrett(
+            int rounds,
+            BigInteger a,
+            BigInteger b,
+            RoundFunction<BigInteger> rf
+    ) {
+        requireNonNull(rf, "rf cannot be null");
+        BarrettReducer[] ab = reducers(a, b);
+        BarrettReducer ra = ab[0];
+        BarrettReducer rb = ab[1];
+        return create(rounds, a, b, x -> {
+
+            BigInteger[] lr = rb.divideAndRemainder(x);
+            BigInteger l = lr[0];
+            BigInteger r = lr[1];
+            BigInteger s = ONE;
+            for (int i = 0; i < rounds; i++) {
+                BarrettReducer rs = i % 2 == 0 ? ra : rb;
+                s = i % 2 == 0 ? a : b;
+                BigInteger l_ = l;
+                l = r;
+                r = rs.addMod(l_, rf.apply(i, r));
+            }
+            return s.multiply(l).add(r);
+
+        }, y -> {
+
+            BarrettReducer rs = rounds % 2 != 0 ? ra : rb;
+            BigInteger[] lr = rs.divideAndRemainder(y);
+            BigInteger r = lr[1];
+            BigInteger l = lr[0];
+            for (int i = rounds - 1; i >= 0; i--) {
+                rs = i % 2 == 0 ? ra : rb;
+                BigInteger r_ = r;
+                r = l;
+                l = rs.subtractMod(r_, rf.apply(i, l));
+            }
+            return b.multiply(l).add(r);
+        });
+    }
+
+    private static BarrettReducer[] reducers(BigInteger a, BigInteger b) {
+        requireNonNull(a, "a cannot be null");
+        requireNonNull(b, "b cannot be null");
+        int maxBits = a.multiply(b).subtract(ONE).bitLength();
+        return new BarrettReducer[]{
+                new BarrettReducer(a, maxBits),
+                new BarrettReducer(b, maxBits)
+        };
+    }
+
 }
@@ -0,0 +1,147 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.lang.Integer.toHexString;
+import static java.util.Objects.requireNonNull;
+
+final class FeistelOfIntBinary {
+    private FeistelOfIntBinary() {
+    }
+
+    /**
+     * Adapted from the traditional balanced Feistel, with separate forward
+     * and inverse kernels that process two rounds per iteration, and
+     * straight-line kernels for 4 and 8 rounds.
+     * <p>
+     * Unlike the {@code long} based Feistels wrapped for {@code int},
+     * when {@code totalBits} is 32 every {@code int} including the
+     * negative ones is a valid element.
+     */
+    static Isomorphism.OfInt balanced(
+            int rounds,
+            int totalBits,
+            RoundFunction.OfInt rf
+    ) {
+        requireNonNull(rf, "rf cannot be null");
+        requireNonNegative(rounds, "rounds");
+        requireNonNegative(totalBits, Integer.SIZE);
+        if (totalBits % 2 != 0) {
+            throw new IllegalArgumentException(
+                    "totalBits must be even: " + totalBits);
+        }
+        return new Balanced(rounds, totalBits, rf, false);
+    }
+
+    private static final class Balanced implements Isomorphism.OfInt {
+
+        private final int rounds;
+        private final int totalBits;
+        private final int halfBits;
+        private final int halfMask;
+        private final int totalMask;
+        private final RoundFunction.OfInt rf;
+        private final boolean inverse;
+
+        Balanced(
+                int rounds,
+                int totalBits,
+                RoundFunction.OfInt rf,
+                boolean inverse
+        ) {
+            this.rounds = rounds;
+            this.totalBits = totalBits;
+            this.halfBits = totalBits / 2;
+            this.totalMask = totalBits == Integer.SIZE
+                    ? 0xffff_ffff
+                    : (1 << totalBits) - 1;
+            this.halfMask = totalMask >>> halfBits;
+            this.rf = rf;
+            this.inverse = inverse;
+        }
+
+        @Override
+        public int applyAsInt(int input) {
+            if ((input & ~totalMask) != 0) {
+                throw new IllegalArgumentException("input " + input +
+                        " (" + toHexString(input) + ") is" +
+                        " outside of mask range " + toHexString(totalMask));
+            }
+            return inverse ? backward(input) : forward(input);
+        }
+
+        private int forward(int value) {
+            int b = value >>> halfBits;
+            int a = value & halfMask;
+            switch (rounds) {
+                case 4:
+                    a ^= rf.applyAsInt(0, b) & halfMask;
+                    b ^= rf.applyAsInt(1, a) & halfMask;
+                    a ^= rf.applyAsInt(2, b) & halfMask;
+                    b ^= rf.applyAsInt(3, a) & halfMask;
+                    return (a << halfBits) | b;
+                case 8:
+                    a ^= rf.applyAsInt(0, b) & halfMask;
+                    b ^= rf.applyAsInt(1, a) & halfMask;
+                    a ^= rf.applyAsInt(2, b) & halfMask;
+                    b ^= rf.applyAsInt(3, a) & halfMask;
+                    a ^= rf.applyAsInt(4, b) & halfMask;
+                    b ^= rf.applyAsInt(5, a) & halfMask;
+                    a ^= rf.applyAsInt(6, b) & halfMask;
+                    b ^= rf.applyAsInt(7, a) & halfMask;
+                    return (a << halfBits) | b;
+                default:
+                    int i = 0;
+                    for (; i + 1 < rounds; i += 2) {
+                        a ^= rf.applyAsInt(i, b) & halfMask;
+                        b ^= rf.applyAsInt(i + 1, a) & halfMask;
+                    }
+                    if (i < rounds) {
+                        return (b << halfBits)
+                                | (a ^ rf.applyAsInt(i, b) & halfMask);
+                    }
+                    return (a << halfBits) | b;
+            }
+        }
+
+        private int backward(int value) {
+            int b = value >>> halfBits;
+            int a = value & halfMask;
+            switch (rounds) {
+                case 4:
+                    a ^= rf.applyAsInt(3, b) & halfMask;
+                    b ^= rf.applyAsInt(2, a) & halfMask;
+                    a ^= rf.applyAsInt(1, b) & halfMask;
+                    b ^= rf.applyAsInt(0, a) & halfMask;
+                    return (a << halfBits) | b;
+                case 8:
+                    a ^= rf.applyAsInt(7, b) & halfMask;
+                    b ^= rf.applyAsInt(6, a) & halfMask;
+                    a ^= rf.applyAsInt(5, b) & halfMask;
+                    b ^= rf.applyAsInt(4, a) & halfMask;
+                    a ^= rf.applyAsInt(3, b) & halfMask;
+                    b ^= rf.applyAsInt(2, a) & halfMask;
+                    a ^= rf.applyAsInt(1, b) & halfMask;
+                    b ^= rf.applyAsInt(0, a) & halfMask;
+                    return (a << halfBits) | b;
+                default:
+                    int i = rounds - 1;
+                    for (; i > 0; i -= 2) {
+                        a ^= rf.applyAsInt(i, b) & halfMask;
+                        b ^= rf.applyAsInt(i - 1, a) & halfMask;
+                    }
+                    if (i == 0) {
+                        return (b << halfBits)
+                                | (a ^ rf.applyAsInt(0, b) & halfMask);
+                    }
+                    return (a << halfBits) | b;
+            }
+        }
+
+        @Override
+        public Isomorphism.OfInt inverse() {
+            return new Balanced(rounds, totalBits, rf, !inverse);
+        }
+    }
+}
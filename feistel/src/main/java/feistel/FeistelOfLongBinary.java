@@ -4,6 +4,7 @@ import isomorphic.Isomorphism;
 
 import static feistel.Constraints.requireNonNegative;
 import static java.lang.Long.toHexString;
+import static java.util.Objects.requireNonNull;
 
 final class FeistelOfLongBinary {
     private FeistelOfLongBinary() {
@@ -55,6 +56,118 @@ final class FeistelOfLongBinary {
         });
     }
 
+    /**
+     * Same as {@link #balanced(int, int, RoundFunction.OfLong)}, but with
+     * separate forward and inverse kernels that process two rounds per
+     * iteration, so the halves never need to be swapped, and with
+     * straight-line kernels for 4 and 8 rounds.
+     */
+    static Isomorphism.OfLong balancedUnrolled(
+            int rounds,
+            int totalBits,
+            RoundFunction.OfLong rf
+    ) {
+        requireNonNull(rf, "rf cannot be null");
+        requireNonNegative(rounds, "rounds");
+        requireNonNegative(totalBits, Long.SIZE);
+        if (totalBits % 2 != 0) {
+            throw new IllegalArgumentException(
+                    "totalBits must be even: " + totalBits);
+        }
+
+        int halfBits = totalBits / 2;
+        long totalMask = getTotalMask(totalBits);
+        long halfMask = totalMask >>> halfBits;
+
+        return Isomorphism.OfLong.of(x -> {
+            checkMask(x, totalMask);
+            return balancedForward(x, rounds, halfBits, halfMask, rf);
+        }, y -> {
+            checkMask(y, totalMask);
+            return balancedInverse(y, rounds, halfBits, halfMask, rf);
+        });
+    }
+
+    private static long balancedForward(
+            long value,
+            int rounds,
+            int halfBits,
+            long halfMask,
+            RoundFunction.OfLong rf
+    ) {
+        long b = value >>> halfBits;
+        long a = value & halfMask;
+        switch (rounds) {
+            case 4:
+                a ^= rf.applyAsLong(0, b) & halfMask;
+                b ^= rf.applyAsLong(1, a) & halfMask;
+                a ^= rf.applyAsLong(2, b) & halfMask;
+                b ^= rf.applyAsLong(3, a) & halfMask;
+                return (a << halfBits) | b;
+            case 8:
+                a ^= rf.applyAsLong(0, b) & halfMask;
+                b ^= rf.applyAsLong(1, a) & halfMask;
+                a ^= rf.applyAsLong(2, b) & halfMask;
+                b ^= rf.applyAsLong(3, a) & halfMask;
+                a ^= rf.applyAsLong(4, b) & halfMask;
+                b ^= rf.applyAsLong(5, a) & halfMask;
+                a ^= rf.applyAsLong(6, b) & halfMask;
+                b ^= rf.applyAsLong(7, a) & halfMask;
+                return (a << halfBits) | b;
+            default:
+                int i = 0;
+                for (; i + 1 < rounds; i += 2) {
+                    a ^= rf.applyAsLong(i, b) & halfMask;
+                    b ^= rf.applyAsLong(i + 1, a) & halfMask;
+                }
+                if (i < rounds) {
+                    return (b << halfBits)
+                            | (a ^ rf.applyAsLong(i, b) & halfMask);
+                }
+                return (a << halfBits) | b;
+        }
+    }
+
+    private static long balancedInverse(
+            long value,
+            int rounds,
+            int halfBits,
+            long halfMask,
+            RoundFunction.OfLong rf
+    ) {
+        long b = value >>> halfBits;
+        long a = value & halfMask;
+        switch (rounds) {
+            case 4:
+                a ^= rf.applyAsLong(3, b) & halfMask;
+                b ^= rf.applyAsLong(2, a) & halfMask;
+                a ^= rf.applyAsLong(1, b) & halfMask;
+                b ^= rf.applyAsLong(0, a) & halfMask;
+                return (a << halfBits) | b;
+            case 8:
+                a ^= rf.applyAsLong(7, b) & halfMask;
+                b ^= rf.applyAsLong(6, a) & halfMask;
+                a ^= rf.applyAsLong(5, b) & halfMask;
+                b ^= rf.applyAsLong(4, a) & halfMask;
+                a ^= rf.applyAsLong(3, b) & halfMask;
+                b ^= rf.applyAsLong(2, a) & halfMask;
+                a ^= rf.applyAsLong(1, b) & halfMask;
+                b ^= rf.applyAsLong(0, a) & halfMask;
+                return (a << halfBits) | b;
+            default:
+                int i = rounds - 1;
+                for (; i > 0; i -= 2) {
+                    a ^= rf.applyAsLong(i, b) & halfMask;
+                    b ^= rf.applyAsLong(i - 1, a) & halfMask;
+                }
+                if (i == 0) {
+                    return (b << halfBits)
+                            | (a ^ rf.applyAsLong(0, b) & halfMask);
+                }
+                return (a << halfBits) | b;
+        }
+    }
+
     /**
      * Adapted from Unbalanced Feistel Networks and Block-Cipher Design
      * by Bruce Schneier and John Kelsey.
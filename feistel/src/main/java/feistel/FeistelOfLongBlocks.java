@@ -0,0 +1,151 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+final class FeistelOfLongBlocks {
+    private FeistelOfLongBlocks() {
+    }
+
+    /**
+     * Splits {0,1,...,size - 1} into blocks of {@code blockSize}
+     * consecutive values, and permutes the full blocks with one cycle
+     * walking Feistel, and the values within each block with another,
+     * so that the values of a block stay together in one block.
+     * <p>
+     * The Feistel over the blocks uses rounds {0,1,...,rounds - 1} of the
+     * round function, the Feistel within the blocks uses rounds
+     * {rounds,rounds+1,...,2 x rounds - 1}, so they are independent. So
+     * that the blocks are not all shuffled the same way, the Feistel
+     * within a block XORs a key derived from round {@code 2 x rounds} of
+     * the block index into the input of its round function, so each block
+     * is shuffled by its own permutation.
+     * <p>
+     * If {@code blockSize} does not divide {@code size}, the remaining
+     * values form a last, partial, block that stays last, and its values
+     * are permuted by cycle walking the Feistel within the blocks, which
+     * takes fewer than {@code 2 x blockSize} walks.
+     */
+    static Isomorphism.OfLong of(
+            long size,
+            int blockSize,
+            int rounds,
+            RoundFunction.OfLong rf
+    ) {
+        requireNonNull(rf, "rf cannot be null");
+        requireNonNegative(size, "size");
+        requireNonNegative(rounds, "rounds");
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException(
+                    "blockSize must be positive: " + blockSize);
+        }
+
+        long fullBlocks = size / blockSize;
+        long fullSize = fullBlocks * blockSize;
+        int tailSize = (int) (size - fullSize);
+        Isomorphism.OfLong blocks =
+                FeistelOfLongRange.cycleWalking(rounds, fullBlocks, rf);
+        Isomorphism.OfLong blocksInverse = blocks.inverse();
+        Within within = new Within(rounds, blockSize, rf);
+
+        return Isomorphism.OfLong.of(x -> {
+            requireNonNegative(x, size - 1);
+            long block = x / blockSize;
+            long offset = x - block * blockSize;
+            long key = blockKey(rf, rounds, block);
+            if (x >= fullSize) {
+                return fullSize + within.apply(offset, key, tailSize);
+            }
+            return blocks.applyAsLong(block) * blockSize
+                    + within.apply(offset, key, blockSize);
+        }, y -> {
+            requireNonNegative(y, size - 1);
+            long offset = y % blockSize;
+            if (y >= fullSize) {
+                long key = blockKey(rf, rounds, fullBlocks);
+                return fullSize + within.invert(offset, key, tailSize);
+            }
+            long block = blocksInverse.applyAsLong(y / blockSize);
+            long key = blockKey(rf, rounds, block);
+            return block * blockSize + within.invert(offset, key, blockSize);
+        });
+    }
+
+    private static long blockKey(RoundFunction.OfLong rf, int rounds, long block) {
+        return rf.applyAsLong(2 * rounds, block);
+    }
+
+    /**
+     * A cycle walking binary Feistel over {0,1,...,blockSize - 1}, with
+     * a key XORed into the input of the round function. The value is split
+     * into a high half of {@code ceil(bits / 2)} bits and a low half of
+     * {@code floor(bits / 2)} bits, even rounds XOR the round function of
+     * the low half into the high half, odd rounds the other way around,
+     * so the halves can be of different sizes, and the binary domain has
+     * fewer than {@code 2 x blockSize} values.
+     */
+    private static final class Within {
+
+        private final int rounds;
+        private final RoundFunction.OfLong rf;
+        private final int lowBits;
+        private final long lowMask;
+        private final long highMask;
+
+        Within(int rounds, int blockSize, RoundFunction.OfLong rf) {
+            int bits = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(blockSize - 1));
+            this.rounds = rounds;
+            this.rf = rf;
+            this.lowBits = bits / 2;
+            this.lowMask = (1L << lowBits) - 1;
+            this.highMask = (1L << (bits - lowBits)) - 1;
+        }
+
+        /**
+         * Applies the Feistel of the key to {@code x}, walking until the
+         * result is less than {@code limit}.
+         */
+        long apply(long x, long key, int limit) {
+            int walks = 0;
+            do {
+                long high = x >>> lowBits;
+                long low = x & lowMask;
+                for (int i = 0; i < rounds; i++) {
+                    if (i % 2 == 0) {
+                        high ^= rf.applyAsLong(rounds + i, low ^ key) & highMask;
+                    } else {
+                        low ^= rf.applyAsLong(rounds + i, high ^ key) & lowMask;
+                    }
+                }
+                x = (high << lowBits) | low;
+                walks++;
+            } while (x >= limit);
+            FeistelOfLongRange.recordWalks(limit, walks);
+            return x;
+        }
+
+        /**
+         * Inverse of {@link #apply(long, long, int)}.
+         */
+        long invert(long y, long key, int limit) {
+            int walks = 0;
+            do {
+                long high = y >>> lowBits;
+                long low = y & lowMask;
+                for (int i = rounds - 1; i >= 0; i--) {
+                    if (i % 2 == 0) {
+                        high ^= rf.applyAsLong(rounds + i, low ^ key) & highMask;
+                    } else {
+                        low ^= rf.applyAsLong(rounds + i, high ^ key) & lowMask;
+                    }
+                }
+                y = (high << lowBits) | low;
+                walks++;
+            } while (y >= limit);
+            FeistelOfLongRange.recordWalks(limit, walks);
+            return y;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.function.LongUnaryOperator;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+final class FeistelOfLongRange {
+    private FeistelOfLongRange() {
+    }
+
+    /**
+     * Walks longer than this are recorded as events, with a domain of
+     * at least half of the binary domain, each walk has a probability of
+     * at most 1/2 of continuing, so these are rare.
+     */
+    private static final int LONG_WALK = 16;
+
+    /**
+     * Cycle walking from <em>Ciphers with Arbitrary Finite Domains</em>
+     * by John Black and Phillip Rogaway, over the smallest binary Feistel
+     * covering {0,1,...,size - 1}. As the binary domain has fewer than
+     * {@code 2 x size} elements, the expected number of walks is less
+     * than 2.
+     */
+    static Isomorphism.OfLong cycleWalking(
+            int rounds,
+            long size,
+            RoundFunction.OfLong rf
+    ) {
+        requireNonNull(rf, "rf cannot be null");
+        requireNonNegative(rounds, "rounds");
+        requireNonNegative(size, "size");
+
+        int totalBits = Math.max(1, Long.SIZE - Long.numberOfLeadingZeros(size - 1));
+        Isomorphism.OfLong binary = totalBits % 2 == 0
+                ? FeistelOfLongBinary.balancedUnrolled(rounds, totalBits, rf)
+                : FeistelOfLongBinary.unbalanced(rounds, totalBits,
+                (totalBits + 1) / 2, totalBits / 2, rf);
+        return cycleWalking(binary, size);
+    }
+
+    static Isomorphism.OfLong cycleWalking(Isomorphism.OfLong f, long size) {
+        requireNonNull(f, "f cannot be null");
+        requireNonNegative(size, "size");
+        Isomorphism.OfLong g = f.inverse();
+        return Isomorphism.OfLong.of(
+                x -> walk(f, x, size),
+                y -> walk(g, y, size));
+    }
+
+    private static long walk(LongUnaryOperator f, long x, long size) {
+        requireNonNegative(x, size - 1);
+        int walks = 0;
+        do {
+            x = f.applyAsLong(x);
+            walks++;
+        } while (x >= size);
+        recordWalks(size, walks);
+        return x;
+    }
+
+    /**
+     * Records a walk of {@code walks} steps over {0,1,...,size - 1}
+     * if it is long.
+     */
+    static void recordWalks(long size, int walks) {
+        if (walks > LONG_WALK) {
+            Events.cycleWalk(size, walks);
+        }
+    }
+}
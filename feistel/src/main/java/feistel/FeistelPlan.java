@@ -0,0 +1,265 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.math.BigInteger;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The Feistel implementation chosen for a domain by
+ * {@link Feistel#forDomain(BigInteger, BigInteger)}.
+ * <p>
+ * The choice is made from a static cost model and depends only on the
+ * domain, so the same domain always results in the same plan, and
+ * {@link #toString()} fully describes it.
+ */
+public final class FeistelPlan {
+
+    /**
+     * How the domain is split between the two sides of the Feistel.
+     */
+    public enum Layout {
+
+        /**
+         * A binary Feistel with equal halves, for domains of
+         * 2<sup>2n</sup> elements, however they are split into
+         * {@code a x b}, no divisions are needed.
+         */
+        BALANCED_BINARY,
+
+        /**
+         * A binary Feistel with unequal halves, for domains of
+         * 2<sup>n</sup> elements, no divisions are needed.
+         */
+        UNBALANCED_BINARY,
+
+        /**
+         * A numeric Feistel using the <em>FE2</em> algorithm,
+         * needing one division per round.
+         */
+        FE2
+    }
+
+    /**
+     * The smallest type that can represent every element of the domain.
+     */
+    public enum Width {
+        INT,
+        LONG,
+
+        /**
+         * Pairs of {@code long} values, for numeric domains where
+         * {@code a} and {@code b} are each less than 2<sup>64</sup>, see
+         * {@link LongPairFeistel}.
+         */
+        LONG_PAIR,
+
+        BIG_INTEGER
+    }
+
+    private final Layout layout;
+    private final Width width;
+    private final BigInteger a;
+    private final BigInteger b;
+    private final int sourceBits;
+    private final int targetBits;
+
+    private FeistelPlan(
+            Layout layout,
+            Width width,
+            BigInteger a,
+            BigInteger b,
+            int sourceBits,
+            int targetBits
+    ) {
+        this.layout = layout;
+        this.width = width;
+        this.a = a;
+        this.b = b;
+        this.sourceBits = sourceBits;
+        this.targetBits = targetBits;
+    }
+
+    static FeistelPlan of(BigInteger a, BigInteger b) {
+        requireNonNull(a, "a cannot be null");
+        requireNonNull(b, "b cannot be null");
+        requireNonNegative(a, "a");
+        requireNonNegative(b, "b");
+
+        if (isPowerOfTwo(a) && isPowerOfTwo(b)) {
+            // The domain is {0,1,...,2^totalBits - 1} however it is split
+            // into a and b, so the halves can be balanced if it is even
+            int totalBits = a.bitLength() + b.bitLength() - 2;
+            boolean balanced = totalBits % 2 == 0;
+            int sourceBits = balanced ? totalBits / 2 : a.bitLength() - 1;
+            int targetBits = balanced ? totalBits / 2 : b.bitLength() - 1;
+            return new FeistelPlan(
+                    balanced
+                            ? Layout.BALANCED_BINARY
+                            : Layout.UNBALANCED_BINARY,
+                    totalBits < Integer.SIZE ? Width.INT
+                            : totalBits <= Long.SIZE ? Width.LONG
+                            : Width.BIG_INTEGER,
+                    a, b, sourceBits, targetBits);
+        }
+
+        int bits = Math.max(a.multiply(b).bitLength(),
+                Math.max(a.bitLength(), b.bitLength()));
+        return new FeistelPlan(
+                Layout.FE2,
+                bits < Integer.SIZE ? Width.INT
+                        : bits < Long.SIZE ? Width.LONG
+                        : Math.max(a.bitLength(), b.bitLength()) <= Long.SIZE
+                        ? Width.LONG_PAIR
+                        : Width.BIG_INTEGER,
+                a, b, -1, -1);
+    }
+
+    private static boolean isPowerOfTwo(BigInteger value) {
+        return value.signum() > 0 && value.bitCount() == 1;
+    }
+
+    /**
+     * Returns the layout of the chosen implementation.
+     */
+    public Layout layout() {
+        return layout;
+    }
+
+    /**
+     * Returns the width of the chosen implementation.
+     */
+    public Width width() {
+        return width;
+    }
+
+    /**
+     * Returns the total number of bits of the domain for a binary
+     * layout, or -1 for a numeric layout.
+     */
+    public int totalBits() {
+        return layout == Layout.FE2 ? -1 : sourceBits + targetBits;
+    }
+
+    /**
+     * Returns a Feistel for the domain using {@code int} values.
+     *
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalStateException    if {@link #width()} is not
+     *                                  {@link Width#INT}
+     * @throws IllegalArgumentException if {@code rounds} is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public Isomorphism.OfInt ofInt(int rounds, RoundFunction.OfInt f) {
+        requireNonNull(f, "f cannot be null");
+        requireWidth(Width.INT);
+        if (layout == Layout.BALANCED_BINARY) {
+            return FeistelOfIntBinary.balanced(rounds, totalBits(), f);
+        }
+        return new IntFeistelImpl(ofLong(
+                rounds, IntFeistelImpl.toRoundFunction64(f)));
+    }
+
+    /**
+     * Returns a Feistel for the domain using {@code long} values.
+     *
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalStateException    if {@link #width()} is wider than
+     *                                  {@link Width#LONG}
+     * @throws IllegalArgumentException if {@code rounds} is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public Isomorphism.OfLong ofLong(int rounds, RoundFunction.OfLong f) {
+        requireNonNull(f, "f cannot be null");
+        requireWidth(Width.LONG);
+        switch (layout) {
+            case BALANCED_BINARY:
+                return FeistelOfLongBinary.balancedUnrolled(
+                        rounds, totalBits(), f);
+            case UNBALANCED_BINARY:
+                return FeistelOfLongBinary.unbalanced(
+                        rounds, totalBits(), sourceBits, targetBits, f);
+            default:
+                return FeistelOfLongNumeric.fe2(
+                        rounds, a.longValue(), b.longValue(), f);
+        }
+    }
+
+    /**
+     * Returns a Feistel for the domain using pairs of {@code long} values,
+     * this is supported for the {@link Layout#FE2} layout up to
+     * {@link Width#LONG_PAIR}.
+     *
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalStateException    if {@link #layout()} is not
+     *                                  {@link Layout#FE2}, or
+     *                                  {@link #width()} is
+     *                                  {@link Width#BIG_INTEGER}
+     * @throws IllegalArgumentException if {@code rounds} is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public LongPairFeistel ofLongPair(int rounds, RoundFunction.OfLong f) {
+        requireNonNull(f, "f cannot be null");
+        requireWidth(Width.LONG_PAIR);
+        if (layout != Layout.FE2) {
+            throw new IllegalStateException(
+                    "domain " + a + "x" + b + " requires " + layout);
+        }
+        return LongPairFeistel.fe2(rounds, a.longValue(), b.longValue(), f);
+    }
+
+    /**
+     * Returns a Feistel for the domain using {@link BigInteger} values,
+     * this is supported for all widths.
+     *
+     * @param rounds total number of rounds
+     * @param f      the round function
+     * @return a Feistel function
+     * @throws IllegalArgumentException if {@code rounds} is negative
+     * @throws NullPointerException     if {@code f} is null
+     */
+    public Isomorphism<BigInteger, BigInteger> ofBigInteger(
+            int rounds,
+            RoundFunction<BigInteger> f
+    ) {
+        requireNonNull(f, "f cannot be null");
+        switch (layout) {
+            case BALANCED_BINARY:
+                return FeistelOfBigIntegerBinary.balanced(
+                        rounds, totalBits(), f);
+            case UNBALANCED_BINARY:
+                return FeistelOfBigIntegerBinary.unbalanced(
+                        rounds, totalBits(), sourceBits, targetBits, f);
+            default:
+                return FeistelOfBigIntegerNumeric.fe2Barrett(rounds, a, b, f);
+        }
+    }
+
+    private void requireWidth(Width max) {
+        if (width.compareTo(max) > 0) {
+            throw new IllegalStateException(
+                    "domain " + a + "x" + b + " requires " + width);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelPlan{" +
+                "layout=" + layout +
+                ", width=" + width +
+                ", a=" + a +
+                ", b=" + b +
+                (layout == Layout.FE2 ? "" :
+                        ", sourceBits=" + sourceBits +
+                                ", targetBits=" + targetBits) +
+                '}';
+    }
+}
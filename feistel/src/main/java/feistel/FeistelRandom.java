@@ -0,0 +1,256 @@
+package feistel;
+
+import java.util.stream.LongStream;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A pseudorandom number generator in counter mode, where the value at
+ * position {@code i} of the stream is a keyed 64-bit balanced Feistel
+ * of {@code i}.
+ * <p>
+ * Unlike generators that step through a state, any value can be computed
+ * directly from its position, so {@link #at(long)} and {@link #jump(long)}
+ * take constant time, and {@link #nextLongs(long[])} fills arrays without
+ * a dependency between consecutive values. The period is 2<sup>64</sup>,
+ * and as the Feistel is a bijection, no value is repeated within a period.
+ * {@link #split()} returns a generator with round keys derived from the
+ * next value of this generator, the same way as
+ * {@link java.util.SplittableRandom#split()}.
+ * <p>
+ * The round function of {@code x} with round key {@code r} is the high
+ * 32 bits of {@code (x ^ r) * 0x9e3779b97f4a7c15}, the same as
+ * {@link MultiKeyFeistel}, called directly rather than through a
+ * {@link RoundFunction} so that the call is never megamorphic.
+ * <p>
+ * This generator is not suitable for security sensitive applications.
+ * On Java 17 and later, the {@code feistel-random} artifact adapts it to
+ * {@code java.util.random.RandomGenerator.SplittableGenerator}.
+ * <p>
+ * Instances are not thread safe, use {@link #split()} to create
+ * a generator for each thread.
+ *
+ * @see Feistel#random(long)
+ * @see Feistel#random(long, int)
+ */
+public final class FeistelRandom {
+
+    private static final int BLOCK = 256;
+
+    private final int rounds;
+    private final long[] roundKeys;
+    private long counter;
+
+    private FeistelRandom(long seed, int rounds) {
+        requireNonNegative(rounds, "rounds");
+        this.rounds = rounds;
+        this.roundKeys = KeySchedule.of(seed, rounds);
+    }
+
+    static FeistelRandom of(long seed, int rounds) {
+        return new FeistelRandom(seed, rounds);
+    }
+
+    /**
+     * Returns the number of rounds.
+     */
+    public int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Returns the value at the given position of the stream, without
+     * changing the position of this generator. This is the value
+     * {@link #nextLong()} returns when {@link #position()} is
+     * {@code index}.
+     */
+    public long at(long index) {
+        long[] roundKeys = this.roundKeys;
+        long left = index >>> 32;
+        long right = index & 0xffff_ffffL;
+        int i = 0;
+        for (; i + 1 < roundKeys.length; i += 2) {
+            left ^= KeySchedule.round(right, roundKeys[i], 32);
+            right ^= KeySchedule.round(left, roundKeys[i + 1], 32);
+        }
+        if (i < roundKeys.length) {
+            left ^= KeySchedule.round(right, roundKeys[i], 32);
+        }
+        return (left << 32) | right;
+    }
+
+    /**
+     * Same as {@link #at(long)} for the {@code n} positions starting at
+     * {@code index}, a round at a time for all of them, so there is no
+     * dependency between the iterations of the inner loops.
+     */
+    private void atBlock(long index, long[] output, int offset, int n, long[] left) {
+        long[] roundKeys = this.roundKeys;
+        for (int j = 0; j < n; j++) {
+            long x = index + j;
+            left[j] = x >>> 32;
+            output[offset + j] = x & 0xffff_ffffL;
+        }
+        int i = 0;
+        for (; i + 1 < roundKeys.length; i += 2) {
+            long even = roundKeys[i];
+            long odd = roundKeys[i + 1];
+            for (int j = 0; j < n; j++) {
+                long l = left[j] ^ KeySchedule.round(output[offset + j], even, 32);
+                left[j] = l;
+                output[offset + j] ^= KeySchedule.round(l, odd, 32);
+            }
+        }
+        if (i < roundKeys.length) {
+            long even = roundKeys[i];
+            for (int j = 0; j < n; j++) {
+                left[j] ^= KeySchedule.round(output[offset + j], even, 32);
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            output[offset + j] |= left[j] << 32;
+        }
+    }
+
+    /**
+     * Returns the position of the next value, this is the number of
+     * values generated and jumped over so far, modulo 2<sup>64</sup>.
+     */
+    public long position() {
+        return counter;
+    }
+
+    /**
+     * Moves the position by {@code distance} values, which may be negative
+     * to go back, in constant time. The period is 2<sup>64</sup>, the
+     * position wraps around.
+     */
+    public void jump(long distance) {
+        counter += distance;
+    }
+
+    /**
+     * Returns the next pseudorandom {@code long} value.
+     */
+    public long nextLong() {
+        return at(counter++);
+    }
+
+    /**
+     * Returns the next pseudorandom {@code int} value.
+     */
+    public int nextInt() {
+        return (int) (nextLong() >>> 32);
+    }
+
+    /**
+     * Returns the next pseudorandom {@code boolean} value.
+     */
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+
+    /**
+     * Returns the next pseudorandom {@code double} value
+     * between 0 (inclusive) and 1 (exclusive).
+     */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * Returns the next pseudorandom {@code int} value
+     * between 0 (inclusive) and {@code bound} (exclusive).
+     *
+     * @throws IllegalArgumentException if {@code bound} is not positive
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException(
+                    "bound must be positive: " + bound);
+        }
+        // A fast alternative to the modulo reduction by Daniel Lemire,
+        // rejecting the few values that would make the result biased
+        long m = (nextLong() >>> 32) * bound;
+        if ((m & 0xffff_ffffL) < bound) {
+            long threshold = (1L << 32) % bound;
+            while ((m & 0xffff_ffffL) < threshold) {
+                m = (nextLong() >>> 32) * bound;
+            }
+        }
+        return (int) (m >>> 32);
+    }
+
+    /**
+     * Returns the next pseudorandom {@code long} value
+     * between 0 (inclusive) and {@code bound} (exclusive).
+     *
+     * @throws IllegalArgumentException if {@code bound} is not positive
+     */
+    public long nextLong(long bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException(
+                    "bound must be positive: " + bound);
+        }
+        long mask = bound - 1;
+        long r = nextLong();
+        if ((bound & mask) == 0) {
+            return r & mask;
+        }
+        // Rejects the values of the last incomplete multiple of bound
+        for (long u = r >>> 1; u + mask - (r = u % bound) < 0; ) {
+            u = nextLong() >>> 1;
+        }
+        return r;
+    }
+
+    /**
+     * Fills the array with the next {@code array.length} values, the same
+     * as calling {@link #nextLong()} for each element. The values only
+     * depend on their positions, not on each other, so the processor
+     * can compute several of them at the same time.
+     */
+    public void nextLongs(long[] array) {
+        requireNonNull(array, "array cannot be null");
+        Object event = Events.beginBulk();
+        long start = counter;
+        long[] left = new long[Math.min(BLOCK, array.length)];
+        for (int offset = 0; offset < array.length; offset += BLOCK) {
+            int n = Math.min(BLOCK, array.length - offset);
+            atBlock(start + offset, array, offset, n, left);
+        }
+        counter = start + array.length;
+        Events.endBulk(event, "counter", array.length);
+    }
+
+    /**
+     * Returns a stream of the next {@code streamSize} values, and moves
+     * the position of this generator past them. The values are computed
+     * by position, so the stream can be split for parallel processing.
+     *
+     * @throws IllegalArgumentException if {@code streamSize} is negative
+     */
+    public LongStream longs(long streamSize) {
+        requireNonNegative(streamSize, "streamSize");
+        long start = counter;
+        counter += streamSize;
+        return LongStream.range(0, streamSize).map(i -> at(start + i));
+    }
+
+    /**
+     * Returns a new generator with the same number of rounds, and round
+     * keys derived from the next value of this generator.
+     */
+    public FeistelRandom split() {
+        return new FeistelRandom(nextLong(), rounds);
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelRandom{" +
+                "rounds=" + rounds +
+                ", position=" + position() +
+                '}';
+    }
+}
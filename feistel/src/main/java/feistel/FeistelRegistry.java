@@ -0,0 +1,191 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A bounded registry of Feistels keyed by a tenant key and a domain,
+ * for when many tenants each need their own Feistel and building one
+ * per request is too wasteful, while keeping all of them is unbounded.
+ * <p>
+ * Feistels are built lazily by a {@link Builder} on first request and
+ * kept in a cache of at most {@code maximumSize} entries, evicted with the
+ * same CLOCK algorithm as {@link CachedIsomorphism}. Unlike there, a newly
+ * built Feistel is always admitted, as a rejected one would be built again
+ * on every request. Concurrent requests for the same key and domain wait
+ * for a single build.
+ * <p>
+ * Instances are thread safe if the builder is.
+ *
+ * @param <D> the type of the domains, which must implement
+ *            {@link Object#equals(Object)} and {@link Object#hashCode()}
+ * @see Feistel#registry(int, Builder)
+ */
+public final class FeistelRegistry<D> {
+
+    /**
+     * Builds the Feistel for a tenant key and a domain.
+     *
+     * @param <D> the type of the domains
+     */
+    @FunctionalInterface
+    public interface Builder<D> {
+
+        /**
+         * Returns the Feistel for the key over the domain, for example
+         * {@code Feistel.spec(domain, 8, key).feistel()}.
+         */
+        Isomorphism.OfLong build(long key, D domain);
+    }
+
+    private static final class Key {
+
+        private final long key;
+        private final Object domain;
+
+        Key(long key, Object domain) {
+            this.key = key;
+            this.domain = domain;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key that = (Key) o;
+            return key == that.key && domain.equals(that.domain);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Long.hashCode(key * 0x9e37_79b9_7f4a_7c15L)
+                    + domain.hashCode();
+        }
+    }
+
+    private final Builder<D> builder;
+    private final ResultCache<Key, Isomorphism.OfLong> cache;
+    private final ConcurrentMap<Key, CompletableFuture<Isomorphism.OfLong>>
+            building = new ConcurrentHashMap<>();
+    private final LongAdder buildCount = new LongAdder();
+    private final LongAdder buildNanos = new LongAdder();
+
+    private FeistelRegistry(Builder<D> builder, int maximumSize) {
+        this.builder = builder;
+        this.cache = new ResultCache<>(maximumSize);
+    }
+
+    static <D> FeistelRegistry<D> of(int maximumSize, Builder<D> builder) {
+        requireNonNull(builder, "builder cannot be null");
+        requireNonNegative(maximumSize, "maximumSize");
+        return new FeistelRegistry<>(builder, maximumSize);
+    }
+
+    /**
+     * Returns the Feistel for the key over the domain, building it if it
+     * is not cached, or waiting for another thread already building it.
+     *
+     * @throws NullPointerException if {@code domain} is null, or the
+     *                              builder returns null
+     * @throws RuntimeException     if the builder throws
+     */
+    public Isomorphism.OfLong get(long key, D domain) {
+        requireNonNull(domain, "domain cannot be null");
+        Key k = new Key(key, domain);
+        Isomorphism.OfLong feistel = cache.get(k);
+        if (feistel != null) {
+            return feistel;
+        }
+
+        CompletableFuture<Isomorphism.OfLong> future = new CompletableFuture<>();
+        CompletableFuture<Isomorphism.OfLong> existing =
+                building.putIfAbsent(k, future);
+        if (existing != null) {
+            return join(existing);
+        }
+        try {
+            // Another thread may have built it between the cache miss and
+            // the putIfAbsent above
+            feistel = cache.peek(k);
+            if (feistel != null) {
+                future.complete(feistel);
+                return feistel;
+            }
+            Object event = Events.beginBuild();
+            long start = System.nanoTime();
+            feistel = requireNonNull(builder.build(key, domain),
+                    "builder returned null");
+            buildNanos.add(System.nanoTime() - start);
+            Events.endBuild(event, "registry");
+            buildCount.increment();
+            cache.admit(k, feistel);
+            future.complete(feistel);
+            return feistel;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            building.remove(k, future);
+        }
+    }
+
+    private static Isomorphism.OfLong join(
+            CompletableFuture<Isomorphism.OfLong> future
+    ) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the statistics of the cache so far, a request waiting for
+     * another thread to build the same Feistel is counted as a miss.
+     */
+    public CacheStats stats() {
+        return new CacheStats(
+                cache.hitCount(),
+                cache.missCount(),
+                cache.evictionCount());
+    }
+
+    /**
+     * Returns the number of Feistels built so far.
+     */
+    public long buildCount() {
+        return buildCount.sum();
+    }
+
+    /**
+     * Returns the total time spent building Feistels so far,
+     * in nanoseconds.
+     */
+    public long totalBuildNanos() {
+        return buildNanos.sum();
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelRegistry{" +
+                "stats=" + stats() +
+                ", buildCount=" + buildCount() +
+                ", totalBuildNanos=" + totalBuildNanos() +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+import static feistel.Constraints.requireNonNegative;
+
+/**
+ * A contiguous range of positions {start,start+1,...,end - 1} of a
+ * permutation, the element at each position being the result of
+ * applying the Feistel to the position.
+ * <p>
+ * Instances are immutable and thread safe, the iterators are not.
+ *
+ * @see FeistelSpec#shard(int, int)
+ */
+public final class FeistelShard {
+
+    private static final int BATCH_SIZE = 256;
+
+    private final Isomorphism.OfLong feistel;
+    private final long start;
+    private final long end;
+
+    FeistelShard(Isomorphism.OfLong feistel, long start, long end) {
+        this.feistel = feistel;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * Returns the first position of this shard, inclusive.
+     */
+    public long start() {
+        return start;
+    }
+
+    /**
+     * Returns the last position of this shard, exclusive.
+     */
+    public long end() {
+        return end;
+    }
+
+    /**
+     * Returns the number of positions of this shard.
+     */
+    public long size() {
+        return end - start;
+    }
+
+    /**
+     * Returns the element at position {@code start() + index}.
+     *
+     * @throws IllegalArgumentException if {@code index} is not in
+     *                                  {0,1,...,size() - 1}
+     */
+    public long get(long index) {
+        requireNonNegative(index, size() - 1);
+        return feistel.applyAsLong(start + index);
+    }
+
+    /**
+     * Returns an iterator over the elements of this shard in position
+     * order, the elements are computed in batches ahead of time.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return new Iterator();
+    }
+
+    private final class Iterator implements PrimitiveIterator.OfLong {
+
+        private final long[] batch = new long[(int) Math.min(BATCH_SIZE, size())];
+        private long position = start;
+        private int index;
+        private int length;
+
+        @Override
+        public boolean hasNext() {
+            return index < length || position < end;
+        }
+
+        @Override
+        public long nextLong() {
+            if (index == length) {
+                if (position == end) {
+                    throw new NoSuchElementException();
+                }
+                length = (int) Math.min(batch.length, end - position);
+                for (int i = 0; i < length; i++) {
+                    batch[i] = feistel.applyAsLong(position + i);
+                }
+                position += length;
+                index = 0;
+            }
+            return batch[index++];
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelShard{" +
+                "start=" + start +
+                ", end=" + end +
+                '}';
+    }
+}
@@ -0,0 +1,178 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.Arrays;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A complete description of a keyed Feistel over {0,1,...,size - 1},
+ * that can be encoded into a compact string and sent to other processes,
+ * so that they all evaluate the same permutation without coordination.
+ * <p>
+ * The Feistel is a {@link Feistel#ofLongRange(long, int, RoundFunction.OfLong)
+ * cycle walking Feistel} with a built-in round function keyed by one
+ * 64-bit key per round. The permutation only depends on the size and
+ * the round keys, which are the only things that are encoded.
+ * <p>
+ * Instances are immutable and thread safe.
+ *
+ * @see Feistel#spec(long, int, long)
+ * @see Feistel#spec(long, long[])
+ */
+public final class FeistelSpec {
+
+    private static final String VERSION = "feistel-v1";
+
+    private final long size;
+    private final long[] keys;
+    private final Isomorphism.OfLong feistel;
+
+    private FeistelSpec(long size, long[] keys) {
+        this.size = size;
+        this.keys = keys;
+        this.feistel = FeistelOfLongRange.cycleWalking(
+                keys.length, size, (round, value) -> KeySchedule.mix(keys[round] ^ value));
+    }
+
+    static FeistelSpec of(long size, int rounds, long seed) {
+        requireNonNegative(size, "size");
+        requireNonNegative(rounds, "rounds");
+        return new FeistelSpec(size, KeySchedule.of(seed, rounds));
+    }
+
+    static FeistelSpec of(long size, long[] keys) {
+        requireNonNull(keys, "roundKeys cannot be null");
+        requireNonNegative(size, "size");
+        return new FeistelSpec(size, keys.clone());
+    }
+
+    /**
+     * Decodes a spec encoded by {@link #encode()}.
+     *
+     * @throws IllegalArgumentException if {@code encoded} is not a valid
+     *                                  encoded spec
+     * @throws NullPointerException     if {@code encoded} is null
+     */
+    public static FeistelSpec parse(String encoded) {
+        requireNonNull(encoded, "encoded cannot be null");
+        String[] parts = encoded.split(":", -1);
+        if (parts.length != 3 || !parts[0].equals(VERSION)) {
+            throw new IllegalArgumentException(
+                    "invalid feistel spec: " + encoded);
+        }
+        try {
+            Object event = Events.beginBuild();
+            long size = Long.parseLong(parts[1], 16);
+            long[] keys = parts[2].isEmpty()
+                    ? new long[0]
+                    : Arrays.stream(parts[2].split(",", -1))
+                    .mapToLong(key -> Long.parseUnsignedLong(key, 16))
+                    .toArray();
+            requireNonNegative(size, "size");
+            FeistelSpec spec = new FeistelSpec(size, keys);
+            Events.endBuild(event, "spec");
+            return spec;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "invalid feistel spec: " + encoded, e);
+        }
+    }
+
+    /**
+     * Encodes this spec into a string of printable ASCII characters,
+     * that can be decoded by {@link #parse(String)}.
+     */
+    public String encode() {
+        StringBuilder builder = new StringBuilder(VERSION)
+                .append(':').append(Long.toHexString(size))
+                .append(':');
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(Long.toHexString(keys[i]));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the number of elements of the domain.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of rounds.
+     */
+    public int rounds() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the Feistel described by this spec.
+     */
+    public Isomorphism.OfLong feistel() {
+        return feistel;
+    }
+
+    /**
+     * Returns a new cursor over the permutation, at position 0.
+     */
+    public FeistelCursor cursor() {
+        return FeistelCursor.of(feistel, size);
+    }
+
+    /**
+     * Returns the shard of {@code worker} out of {@code workers},
+     * that is, a contiguous range of the positions
+     * {0,1,...,size - 1} of the permutation. The ranges of all the
+     * workers are disjoint and together cover all positions, and their
+     * sizes differ by at most one.
+     *
+     * @throws IllegalArgumentException if {@code workers} is not positive,
+     *                                  or {@code worker} is not in
+     *                                  {0,1,...,workers - 1}
+     */
+    public FeistelShard shard(int worker, int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException(
+                    "workers must be positive: " + workers);
+        }
+        requireNonNegative(worker, workers - 1);
+        return new FeistelShard(
+                feistel,
+                start(worker, workers),
+                start(worker + 1, workers));
+    }
+
+    private long start(int worker, int workers) {
+        long quotient = size / workers;
+        long remainder = size % workers;
+        return quotient * worker + Math.min(worker, remainder);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        FeistelSpec that = (FeistelSpec) o;
+        return size == that.size && Arrays.equals(keys, that.keys);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.hashCode(size) + Arrays.hashCode(keys);
+    }
+
+    @Override
+    public String toString() {
+        return "FeistelSpec{" +
+                "size=" + size +
+                ", rounds=" + keys.length +
+                '}';
+    }
+}
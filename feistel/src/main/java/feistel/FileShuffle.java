@@ -0,0 +1,370 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Shuffles a file of fixed size records that does not fit in memory,
+ * so that the record at index {@code i} of the target is the record at
+ * index {@code f(i)} of the source, the same as
+ * {@link Shuffle#gather(long[], long[], Isomorphism.OfLong)}. The source
+ * is read sequentially, so each record is moved to the index given by
+ * the inverse of {@code f} instead.
+ * <p>
+ * The target is split into regions small enough to be assembled in
+ * memory. In the first pass, each thread reads a part of the source
+ * sequentially through memory mapped windows, and appends each record,
+ * prefixed by its target index, to a buffer for its target region, which
+ * is written to the region's part of a temporary file when full. As
+ * {@code f} is a bijection, the part of each region in the temporary
+ * file has exactly as many records as the region. In the second pass,
+ * each region is read sequentially from the temporary file, assembled
+ * in memory, and written to the target with a single sequential write.
+ */
+final class FileShuffle {
+    private FileShuffle() {
+    }
+
+    private static final int INDEX_SIZE = Long.BYTES;
+    private static final long MAX_WINDOW_SIZE = 64 << 20;
+    private static final int MAX_REGION_SIZE = 1 << 30;
+
+    static void shuffle(
+            Path source,
+            Path target,
+            int recordSize,
+            Isomorphism.OfLong f,
+            long memoryBudget,
+            int parallelism
+    ) throws IOException {
+        shuffle(source, target, recordSize, f, memoryBudget, parallelism,
+                MAX_WINDOW_SIZE);
+    }
+
+    /**
+     * Same as {@link #shuffle(Path, Path, int, Isomorphism.OfLong, long, int)},
+     * mapping at most {@code windowSize} bytes at a time, or a single
+     * record if it is larger than that.
+     */
+    static void shuffle(
+            Path source,
+            Path target,
+            int recordSize,
+            Isomorphism.OfLong f,
+            long memoryBudget,
+            int parallelism,
+            long windowSize
+    ) throws IOException {
+        requireNonNull(source, "source cannot be null");
+        requireNonNull(target, "target cannot be null");
+        requireNonNull(f, "f cannot be null");
+        if (recordSize <= 0) {
+            throw new IllegalArgumentException(
+                    "recordSize must be positive: " + recordSize);
+        }
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException(
+                    "parallelism must be positive: " + parallelism);
+        }
+
+        long fileSize = Files.size(source);
+        if (fileSize % recordSize != 0) {
+            throw new IllegalArgumentException(
+                    "size of " + source + " (" + fileSize + ") is not " +
+                            "a multiple of recordSize (" + recordSize + ")");
+        }
+        long records = fileSize / recordSize;
+        int entrySize = recordSize + INDEX_SIZE;
+
+        // Half of the share of each thread is for its buffers for all the
+        // regions in the first pass, the other half is for its region
+        // being assembled in the second pass.
+        long threadBudget = memoryBudget / parallelism;
+        long regionRecords = Math.min(
+                threadBudget / 2 / recordSize,
+                MAX_REGION_SIZE / entrySize);
+        long regions = regionRecords <= 0
+                ? Long.MAX_VALUE
+                : (records + regionRecords - 1) / regionRecords;
+        long bucketRecords = regions == 0 ? 1 : Math.min(
+                threadBudget / 2 / regions / entrySize,
+                MAX_REGION_SIZE / entrySize);
+        if (regionRecords <= 0 || bucketRecords <= 0 || regions > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "memoryBudget (" + memoryBudget + ") is too small for " +
+                            records + " records of " + recordSize +
+                            " bytes with parallelism " + parallelism);
+        }
+
+        Path temp = Files.createTempFile(
+                target.toAbsolutePath().getParent(), "shuffle", ".tmp");
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try (FileChannel in = FileChannel.open(source, READ);
+             FileChannel tmp = FileChannel.open(temp, READ, WRITE, DELETE_ON_CLOSE);
+             FileChannel out = FileChannel.open(target, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+
+            Isomorphism.OfLong scatter = f.inverse();
+            Layout layout = new Layout(records, recordSize, regionRecords,
+                    (int) regions, windowSize);
+            AtomicLongArray filled = new AtomicLongArray((int) regions);
+            List<Callable> tasks = new ArrayList<>();
+            long perThread = (records + parallelism - 1) / parallelism;
+            for (int i = 0; i < parallelism; i++) {
+                long from = Math.min(records, i * perThread);
+                long to = Math.min(records, from + perThread);
+                tasks.add(() -> distribute(in, tmp, scatter, layout, filled,
+                        (int) bucketRecords, from, to));
+            }
+            run(executor, tasks);
+
+            tasks.clear();
+            for (int i = 0; i < parallelism; i++) {
+                int thread = i;
+                tasks.add(() -> {
+                    ByteBuffer region = ByteBuffer.allocate((int) (regionRecords * recordSize));
+                    BitSet written = new BitSet((int) regionRecords);
+                    for (int r = thread; r < regions; r += parallelism) {
+                        assemble(tmp, out, layout, filled, region, written, r);
+                    }
+                });
+            }
+            run(executor, tasks);
+        } finally {
+            executor.shutdown();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private interface Callable {
+        void call() throws IOException;
+    }
+
+    private static void run(ExecutorService executor, List<Callable> tasks)
+            throws IOException {
+        List<Future<?>> futures = new ArrayList<>();
+        for (Callable task : tasks) {
+            futures.add(executor.submit(() -> {
+                try {
+                    task.call();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        } catch (ExecutionException e) {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static final class Layout {
+        final long records;
+        final int recordSize;
+        final long regionRecords;
+        final int regions;
+        final long windowSize;
+
+        Layout(
+                long records,
+                int recordSize,
+                long regionRecords,
+                int regions,
+                long windowSize
+        ) {
+            this.records = records;
+            this.recordSize = recordSize;
+            this.regionRecords = regionRecords;
+            this.regions = regions;
+            this.windowSize = windowSize;
+        }
+
+        /**
+         * Returns the number of entries of the given size to map at a
+         * time, at least one, even if it is larger than the window size.
+         */
+        long windowEntries(int entrySize) {
+            return Math.max(1, windowSize / entrySize);
+        }
+
+        long regionStart(int region) {
+            return region * regionRecords;
+        }
+
+        long regionSize(int region) {
+            return Math.min(records, regionStart(region) + regionRecords)
+                    - regionStart(region);
+        }
+
+        long tempPosition(int region, long index) {
+            return (regionStart(region) + index) * (recordSize + INDEX_SIZE);
+        }
+    }
+
+    private static void distribute(
+            FileChannel in,
+            FileChannel tmp,
+            Isomorphism.OfLong scatter,
+            Layout layout,
+            AtomicLongArray filled,
+            int bucketRecords,
+            long from,
+            long to
+    ) throws IOException {
+        int recordSize = layout.recordSize;
+        int entrySize = recordSize + INDEX_SIZE;
+        ByteBuffer[] buckets = new ByteBuffer[layout.regions];
+        byte[] record = new byte[recordSize];
+        long windowRecords = layout.windowEntries(recordSize);
+
+        for (long start = from; start < to; start += windowRecords) {
+            long end = Math.min(to, start + windowRecords);
+            MappedByteBuffer window = in.map(READ_ONLY,
+                    start * recordSize, (end - start) * recordSize);
+            for (long i = start; i < end; i++) {
+                long index = scatter.applyAsLong(i);
+                if (index < 0 || index >= layout.records) {
+                    throw new IllegalArgumentException(
+                            "f.inverse(" + i + ") = " + index + " is outside of " +
+                                    "{0,1,...," + (layout.records - 1) + "}");
+                }
+                int region = (int) (index / layout.regionRecords);
+                ByteBuffer bucket = buckets[region];
+                if (bucket == null) {
+                    bucket = buckets[region] = ByteBuffer.allocate(
+                            (int) Math.min(bucketRecords, layout.regionSize(region))
+                                    * entrySize);
+                }
+                window.get(record);
+                bucket.putLong(index).put(record);
+                if (!bucket.hasRemaining()) {
+                    flush(tmp, layout, filled, region, bucket);
+                }
+            }
+        }
+        for (int region = 0; region < buckets.length; region++) {
+            if (buckets[region] != null) {
+                flush(tmp, layout, filled, region, buckets[region]);
+            }
+        }
+    }
+
+    private static void flush(
+            FileChannel tmp,
+            Layout layout,
+            AtomicLongArray filled,
+            int region,
+            ByteBuffer bucket
+    ) throws IOException {
+        int entries = bucket.position() / (layout.recordSize + INDEX_SIZE);
+        if (entries == 0) {
+            return;
+        }
+        long index = filled.getAndAdd(region, entries);
+        if (index + entries > layout.regionSize(region)) {
+            throw new IllegalArgumentException(
+                    "f is not a permutation, too many records for region " +
+                            region);
+        }
+        // Casts to Buffer, as Java 8 does not have the ByteBuffer overrides
+        // that calls link to when compiled on a later JDK
+        ((Buffer) bucket).flip();
+        writeFully(tmp, bucket, layout.tempPosition(region, index));
+        ((Buffer) bucket).clear();
+    }
+
+    private static void assemble(
+            FileChannel tmp,
+            FileChannel out,
+            Layout layout,
+            AtomicLongArray filled,
+            ByteBuffer region,
+            BitSet written,
+            int r
+    ) throws IOException {
+        int recordSize = layout.recordSize;
+        long start = layout.regionStart(r);
+        long size = layout.regionSize(r);
+        if (filled.get(r) != size) {
+            throw new IllegalArgumentException(
+                    "f is not a permutation, too few records for region " + r);
+        }
+
+        int entrySize = recordSize + INDEX_SIZE;
+        long windowBytes = layout.windowEntries(entrySize) * entrySize;
+        long position = layout.tempPosition(r, 0);
+        long end = layout.tempPosition(r, size);
+        byte[] record = new byte[recordSize];
+        ((Buffer) region).clear();
+        written.clear();
+        while (position < end) {
+            MappedByteBuffer window = tmp.map(READ_ONLY, position,
+                    Math.min(end - position, windowBytes));
+            position += window.remaining();
+            while (window.hasRemaining()) {
+                long index = window.getLong();
+                window.get(record);
+                int i = (int) (index - start);
+                if (written.get(i)) {
+                    throw new IllegalArgumentException(
+                            "f is not a permutation, more than one record " +
+                                    "is read for index " + index);
+                }
+                written.set(i);
+                ((Buffer) region).position(i * recordSize);
+                region.put(record);
+            }
+        }
+        ((Buffer) region).position(0).limit((int) (size * recordSize));
+        writeFully(out, region, start * recordSize);
+    }
+
+    private static void writeFully(
+            FileChannel channel,
+            ByteBuffer buffer,
+            long position
+    ) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package feistel;
+
+/**
+ * A count-min sketch of 4 rows with saturating 4-bit counters, used to
+ * estimate how often a key has been seen recently, as described in
+ * <em>TinyLFU: A Highly Efficient Cache Admission Policy</em>
+ * by Gil Einziger, Roy Friedman, and Ben Manes.
+ * <p>
+ * The counters are packed 16 to a {@code long}, with one {@code long} per
+ * entry of capacity, so the sketch takes 8 bytes per entry. A key uses one
+ * counter from each of 4 {@code long} values chosen by the rows, and picks
+ * a different group of 4 counters in each, the same layout as the sketch
+ * in Caffeine.
+ * <p>
+ * Counters are halved after a number of additions proportional to
+ * the capacity, so that old popularity decays over time.
+ * <p>
+ * Not thread safe.
+ */
+final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+    private static final long MAX_COUNT = 0xfL;
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long ONE_MASK = 0x1111_1111_1111_1111L;
+    private static final int[] SEEDS = {
+            0x97cb3127, 0xb1a9e5a3, 0x7f4a7c15, 0x5bd1e995
+    };
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int capacity) {
+        int n = Math.min(Math.max(capacity, 1), 1 << 24);
+        this.table = new long[Integer.highestOneBit(n * 2 - 1)];
+        this.tableMask = table.length - 1;
+        this.sampleSize = n * 10;
+    }
+
+    void increment(int hash) {
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < DEPTH; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * Increments counter {@code j} of {@code table[i]}, unless it is at
+     * the maximum, returns true if it was incremented.
+     */
+    private boolean incrementAt(int i, int j) {
+        int offset = j << 2;
+        long mask = MAX_COUNT << offset;
+        if ((table[i] & mask) != mask) {
+            table[i] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    int frequency(int hash) {
+        int start = (hash & 3) << 2;
+        int frequency = (int) MAX_COUNT;
+        for (int i = 0; i < DEPTH; i++) {
+            int offset = (start + i) << 2;
+            int count = (int) ((table[indexOf(hash, i)] >>> offset) & MAX_COUNT);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = (hash + SEEDS[row]) * SEEDS[row];
+        h ^= h >>> 17;
+        return h & tableMask;
+    }
+
+    private void reset() {
+        // Halving loses half a count from every odd counter, and each
+        // addition increments up to 4 counters, so take those off before
+        // halving the additions, at most 8n of the 10n additions
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions = (additions - (odd >>> 2)) >>> 1;
+    }
+}
@@ -0,0 +1,326 @@
+package feistel;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A Feistel over the points of an N-dimensional grid of
+ * {@code d[0] x d[1] x ... x d[N - 1]} points, transforming the
+ * coordinates directly, without converting them to and from a single
+ * index with divisions.
+ * <p>
+ * This is a mixed-radix generalization of the <em>FE2</em> algorithm:
+ * round {@code i} adds the round function of the other coordinates to
+ * coordinate {@code i mod N}, modulo its dimension. The output of the
+ * round function is reduced to a dimension with a multiplication and
+ * a shift instead of a division, and the sum with a conditional
+ * subtraction, so no divisions are needed.
+ * <p>
+ * The batch methods transform consecutive positions of the grid in
+ * row-major order, where the last coordinate varies the fastest, and
+ * step through the input coordinates without divisions too.
+ * <p>
+ * Instances are immutable and thread safe if the round function is.
+ *
+ * @see Feistel#ofGrid(int[], int, RoundFunction.OfLong)
+ */
+public final class GridFeistel {
+
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    private final int[] dimensions;
+    private final long[] strides;
+    private final long size;
+    private final int rounds;
+    private final RoundFunction.OfLong f;
+    private final boolean inverse;
+
+    private GridFeistel(
+            int[] dimensions,
+            long[] strides,
+            long size,
+            int rounds,
+            RoundFunction.OfLong f,
+            boolean inverse
+    ) {
+        this.dimensions = dimensions;
+        this.strides = strides;
+        this.size = size;
+        this.rounds = rounds;
+        this.f = f;
+        this.inverse = inverse;
+    }
+
+    static GridFeistel of(int[] dimensions, int rounds, RoundFunction.OfLong f) {
+        requireNonNull(dimensions, "dimensions cannot be null");
+        requireNonNull(f, "f cannot be null");
+        requireNonNegative(rounds, "rounds");
+        if (dimensions.length < 2) {
+            throw new IllegalArgumentException(
+                    "at least 2 dimensions are required: " +
+                            Arrays.toString(dimensions));
+        }
+        int[] copy = dimensions.clone();
+        long[] strides = new long[copy.length];
+        long size = 1;
+        for (int i = copy.length - 1; i >= 0; i--) {
+            requireNonNegative(copy[i], "dimension");
+            strides[i] = size;
+            try {
+                size = Math.multiplyExact(size, copy[i]);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(
+                        Arrays.toString(copy) + " overflows", e);
+            }
+        }
+        return new GridFeistel(copy, strides, size, rounds, f, false);
+    }
+
+    /**
+     * Returns the inverse of this Feistel.
+     */
+    public GridFeistel inverse() {
+        return new GridFeistel(
+                dimensions, strides, size, rounds, f, !inverse);
+    }
+
+    /**
+     * Returns the number of dimensions.
+     */
+    public int dimensions() {
+        return dimensions.length;
+    }
+
+    /**
+     * Returns the size of the given dimension.
+     */
+    public int dimension(int i) {
+        return dimensions[i];
+    }
+
+    /**
+     * Returns the number of points of the grid.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Transforms the coordinates of a point in place.
+     *
+     * @throws IllegalArgumentException if the number of coordinates is
+     *                                  not the same as the number of
+     *                                  dimensions, or any coordinate is
+     *                                  outside of its dimension
+     */
+    public void apply(int[] point) {
+        if (point.length != dimensions.length) {
+            throw new IllegalArgumentException(
+                    "expected " + dimensions.length + " coordinates: " +
+                            Arrays.toString(point));
+        }
+        for (int i = 0; i < point.length; i++) {
+            requireNonNegative(point[i], dimensions[i] - 1);
+        }
+        transform(point);
+    }
+
+    /**
+     * Transforms the {@code length} points at positions
+     * {start,start+1,...,start + length - 1} of the grid in row-major
+     * order, putting coordinate {@code d} of the point at position
+     * {@code start + i} into {@code coordinates[d][offset + i]}.
+     *
+     * @param start       the first position
+     * @param coordinates one output array for each dimension
+     * @param offset      the first index of the output arrays to write to
+     * @param length      the number of points
+     * @throws IllegalArgumentException  if the number of output arrays is
+     *                                   not the same as the number of
+     *                                   dimensions, or the positions are
+     *                                   outside of the grid
+     * @throws IndexOutOfBoundsException if an output array is too small
+     */
+    public void apply(long start, int[][] coordinates, int offset, int length) {
+        check(start, coordinates, offset, length);
+        Object event = Events.beginBulk();
+        applyChunk(start, coordinates, offset, length);
+        Events.endBulk(event, "grid", length);
+    }
+
+    /**
+     * Same as {@link #apply(long, int[][], int, int)},
+     * but transforms the points in parallel.
+     *
+     * @param start       the first position
+     * @param coordinates one output array for each dimension
+     * @param offset      the first index of the output arrays to write to
+     * @param length      the number of points
+     * @throws IllegalArgumentException  if the number of output arrays is
+     *                                   not the same as the number of
+     *                                   dimensions, or the positions are
+     *                                   outside of the grid
+     * @throws IndexOutOfBoundsException if an output array is too small
+     */
+    public void applyParallel(long start, int[][] coordinates, int offset, int length) {
+        check(start, coordinates, offset, length);
+        Object event = Events.beginBulk();
+        int chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * CHUNK_SIZE;
+            int n = Math.min(CHUNK_SIZE, length - from);
+            applyChunk(start + from, coordinates, offset + from, n);
+        });
+        Events.endBulk(event, "grid-parallel", length);
+    }
+
+    private void check(long start, int[][] coordinates, int offset, int length) {
+        if (coordinates.length != dimensions.length) {
+            throw new IllegalArgumentException(
+                    "expected " + dimensions.length + " coordinate arrays: " +
+                            coordinates.length);
+        }
+        requireNonNegative(length, "length");
+        requireNonNegative(start, size - length);
+        for (int[] array : coordinates) {
+            if (offset < 0 || offset > array.length - length) {
+                throw new IndexOutOfBoundsException(
+                        "offset=" + offset +
+                                ", length=" + length +
+                                ", array length=" + array.length);
+            }
+        }
+    }
+
+    private void applyChunk(long start, int[][] coordinates, int offset, int length) {
+        if (length == 0) {
+            return;
+        }
+        if (dimensions.length == 2) {
+            applyChunk2(start, coordinates[0], coordinates[1], offset, length);
+            return;
+        }
+        int n = dimensions.length;
+        int last = n - 1;
+        int[] position = new int[n];
+        long remaining = start;
+        for (int d = 0; d < n; d++) {
+            position[d] = (int) (remaining / strides[d]);
+            remaining -= position[d] * strides[d];
+        }
+        int[] point = new int[n];
+        for (int i = 0; i < length; i++) {
+            System.arraycopy(position, 0, point, 0, n);
+            transform(point);
+            for (int d = 0; d < n; d++) {
+                coordinates[d][offset + i] = point[d];
+            }
+            for (int d = last; d >= 0 && ++position[d] == dimensions[d]; d--) {
+                position[d] = 0;
+            }
+        }
+    }
+
+    /**
+     * Same as {@link #applyChunk(long, int[][], int, int)}, specialized
+     * for two dimensions to keep the coordinates in local variables.
+     */
+    private void applyChunk2(long start, int[] out0, int[] out1, int offset, int length) {
+        int d0 = dimensions[0];
+        int d1 = dimensions[1];
+        int y = (int) (start / d1);
+        int x = (int) (start - (long) y * d1);
+        for (int i = 0; i < length; i++) {
+            int a = y;
+            int b = x;
+            if (inverse) {
+                for (int round = rounds - 1; round >= 0; round--) {
+                    if ((round & 1) == 0) {
+                        a -= reduce(f.applyAsLong(round, b), d0);
+                        a = a < 0 ? a + d0 : a;
+                    } else {
+                        b -= reduce(f.applyAsLong(round, a), d1);
+                        b = b < 0 ? b + d1 : b;
+                    }
+                }
+            } else {
+                for (int round = 0; round < rounds; round++) {
+                    if ((round & 1) == 0) {
+                        a = addMod(a, reduce(f.applyAsLong(round, b), d0), d0);
+                    } else {
+                        b = addMod(b, reduce(f.applyAsLong(round, a), d1), d1);
+                    }
+                }
+            }
+            out0[offset + i] = a;
+            out1[offset + i] = b;
+            if (++x == d1) {
+                x = 0;
+                y++;
+            }
+        }
+    }
+
+    private void transform(int[] point) {
+        int n = dimensions.length;
+        if (inverse) {
+            for (int i = rounds - 1, d = i % n; i >= 0; i--, d = d == 0 ? n - 1 : d - 1) {
+                int x = point[d] - reduce(f.applyAsLong(i, others(point, d)), dimensions[d]);
+                point[d] = x < 0 ? x + dimensions[d] : x;
+            }
+        } else {
+            for (int i = 0, d = 0; i < rounds; i++, d = d == n - 1 ? 0 : d + 1) {
+                int r = reduce(f.applyAsLong(i, others(point, d)), dimensions[d]);
+                point[d] = addMod(point[d], r, dimensions[d]);
+            }
+        }
+    }
+
+    /**
+     * Returns the position of the point in the grid without dimension
+     * {@code d}, this is the input to the round function.
+     */
+    private long others(int[] point, int d) {
+        long value = 0;
+        for (int i = 0; i < point.length; i++) {
+            if (i != d) {
+                value = value * dimensions[i] + point[i];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Returns {@code (x + r) mod dimension} for {@code x} and {@code r}
+     * in {0,1,...,dimension - 1}, comparing against the difference
+     * instead of the sum, which can overflow an {@code int} for
+     * dimensions above 2<sup>30</sup>.
+     */
+    private static int addMod(int x, int r, int dimension) {
+        int gap = dimension - r;
+        return x >= gap ? x - gap : x + r;
+    }
+
+    /**
+     * Maps {@code value} to {0,1,...,dimension - 1} without a division.
+     * Fibonacci hashing spreads all the bits of the value to the high
+     * 32 bits, which are then reduced with a multiplication and a shift,
+     * see <em>A fast alternative to the modulo reduction</em>
+     * by Daniel Lemire.
+     */
+    private static int reduce(long value, int dimension) {
+        long hash = (value * 0x9e37_79b9_7f4a_7c15L) >>> 32;
+        return (int) ((hash * dimension) >>> 32);
+    }
+
+    @Override
+    public String toString() {
+        return "GridFeistel{" +
+                "dimensions=" + Arrays.toString(dimensions) +
+                ", rounds=" + rounds +
+                '}';
+    }
+}
@@ -0,0 +1,59 @@
+package feistel;
+
+/**
+ * The round keys and the round function of the Feistels with a built in
+ * round function, {@link FeistelSpec}, {@link FeistelRandom},
+ * {@link MultiKeyFeistel} and {@link BitslicedFeistel}.
+ * <p>
+ * The round keys derived from a seed are the outputs of SplitMix64 from
+ * Fast Splittable Pseudorandom Number Generators by Guy L. Steele Jr.,
+ * Doug Lea, and Christine H. Flood, the same as
+ * {@link java.util.SplittableRandom}.
+ */
+final class KeySchedule {
+    private KeySchedule() {
+    }
+
+    /**
+     * The odd integer closest to 2<sup>64</sup> divided by the golden ratio.
+     */
+    static final long GOLDEN_GAMMA = 0x9e37_79b9_7f4a_7c15L;
+
+    /**
+     * Returns {@code rounds} round keys derived from {@code seed}.
+     */
+    static long[] of(long seed, int rounds) {
+        long[] keys = new long[rounds];
+        fill(seed, keys, 0, 1, rounds);
+        return keys;
+    }
+
+    /**
+     * Puts the {@code n} round keys derived from {@code seed} into
+     * {@code keys[offset]}, {@code keys[offset + stride]}, and so on.
+     */
+    static void fill(long seed, long[] keys, int offset, int stride, int n) {
+        long state = seed;
+        for (int i = 0; i < n; i++) {
+            state += GOLDEN_GAMMA;
+            keys[offset + i * stride] = mix(state);
+        }
+    }
+
+    /**
+     * The finalizer of SplitMix64.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58_476d_1ce4_e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d0_49bb_1331_11ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * The round function of {@code x} with round key {@code key}, the high
+     * {@code 64 - shift} bits of {@code (x ^ key) * GOLDEN_GAMMA}.
+     */
+    static long round(long x, long key, int shift) {
+        return ((x ^ key) * GOLDEN_GAMMA) >>> shift;
+    }
+}
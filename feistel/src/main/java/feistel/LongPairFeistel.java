@@ -0,0 +1,299 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.math.BigInteger;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.lang.Long.compareUnsigned;
+import static java.lang.Long.toUnsignedString;
+import static java.math.BigInteger.ONE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A numeric Feistel for domains of {@code a x b} elements where {@code a}
+ * and {@code b} are each less than 2<sup>64</sup> but their product may not
+ * be, up to 2<sup>128</sup> elements, such as domains just beyond the ones
+ * supported by {@link Feistel#ofLongNumeric(long, long, int, RoundFunction.OfLong)}.
+ * <p>
+ * An element is an unsigned 128-bit value stored as two {@code long}
+ * values, the high 64 bits followed by the low 64 bits. Both halves of
+ * the Feistel are less than 2<sup>64</sup>, so each round is computed with
+ * 64x64 to 128-bit multiplications and 128-bit by 64-bit divisions by
+ * {@code a} or {@code b}, using precomputed reciprocals, without
+ * allocating {@link BigInteger} values.
+ * <p>
+ * The results are the same as the {@link BigInteger} version of the same
+ * algorithm with the round function
+ * {@code (round, value) -> BigInteger.valueOf(f.applyAsLong(round, value.longValue()))},
+ * that is, the value passed to the round function is unsigned, which can
+ * only be seen when {@code a} or {@code b} is greater than
+ * {@link Long#MAX_VALUE}, and its result is signed, and reduced the same
+ * way as {@link Math#floorMod(long, long)}.
+ * <p>
+ * Instances are immutable and thread safe if the round function is.
+ *
+ * @see Feistel#ofLongPairNumeric(long, long, int, RoundFunction.OfLong)
+ * @see Feistel#ofLongPairNumericFe1(long, long, int, RoundFunction.OfLong)
+ */
+public final class LongPairFeistel {
+
+    private final boolean fe1;
+    private final int rounds;
+    private final long a;
+    private final long b;
+    private final UnsignedDivisor divisorA;
+    private final UnsignedDivisor divisorB;
+    private final long sizeHi;
+    private final long sizeLo;
+    private final RoundFunction.OfLong rf;
+
+    private LongPairFeistel(
+            boolean fe1,
+            int rounds,
+            long a,
+            long b,
+            RoundFunction.OfLong rf
+    ) {
+        requireNonNull(rf, "rf cannot be null");
+        requireNonNegative(rounds, "rounds");
+        this.fe1 = fe1;
+        this.rounds = rounds;
+        this.a = a;
+        this.b = b;
+        this.divisorA = a == 0 ? null : new UnsignedDivisor(a);
+        this.divisorB = b == 0 ? null : new UnsignedDivisor(b);
+        this.sizeHi = UnsignedMath.multiplyHigh(a, b);
+        this.sizeLo = a * b;
+        this.rf = rf;
+    }
+
+    /**
+     * Algorithm FE1 from Format-Preserving Encryption by
+     * Mihir Bellare, Thomas Ristenpart, Phillip Rogaway, and Till Stegers
+     */
+    static LongPairFeistel fe1(int rounds, long a, long b, RoundFunction.OfLong rf) {
+        return new LongPairFeistel(true, rounds, a, b, rf);
+    }
+
+    /**
+     * Algorithm FE2 from Format-Preserving Encryption by
+     * Mihir Bellare, Thomas Ristenpart, Phillip Rogaway, and Till Stegers
+     */
+    static LongPairFeistel fe2(int rounds, long a, long b, RoundFunction.OfLong rf) {
+        return new LongPairFeistel(false, rounds, a, b, rf);
+    }
+
+    /**
+     * Returns the {@code a} in {@code a x b}, as an unsigned value.
+     */
+    public long a() {
+        return a;
+    }
+
+    /**
+     * Returns the {@code b} in {@code a x b}, as an unsigned value.
+     */
+    public long b() {
+        return b;
+    }
+
+    /**
+     * Returns the number of rounds.
+     */
+    public int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Transforms the value {@code hi * 2^64 + lo}, putting the high and
+     * low 64 bits of the result into {@code output[0]} and
+     * {@code output[1]}.
+     *
+     * @throws IllegalArgumentException  if the value is outside of
+     *                                   {0,1,...,a x b - 1}
+     * @throws IndexOutOfBoundsException if {@code output} has fewer
+     *                                   than 2 elements
+     */
+    public void apply(long hi, long lo, long[] output) {
+        checkLength(output);
+        checkValue(hi, lo);
+        output[0] = hi;
+        output[1] = lo;
+        forward(output, 0);
+    }
+
+    /**
+     * Inverse of {@link #apply(long, long, long[])}.
+     *
+     * @throws IllegalArgumentException  if the value is outside of
+     *                                   {0,1,...,a x b - 1}
+     * @throws IndexOutOfBoundsException if {@code output} has fewer
+     *                                   than 2 elements
+     */
+    public void invert(long hi, long lo, long[] output) {
+        checkLength(output);
+        checkValue(hi, lo);
+        output[0] = hi;
+        output[1] = lo;
+        backward(output, 0);
+    }
+
+    /**
+     * Transforms the values in place, the array holds each value as
+     * its high 64 bits followed by its low 64 bits, so value {@code i}
+     * is {@code values[2i] * 2^64 + values[2i + 1]}. All values are
+     * checked before any is transformed.
+     *
+     * @throws IllegalArgumentException if the array has an odd length,
+     *                                  or any value is outside of
+     *                                  {0,1,...,a x b - 1}
+     */
+    public void applyAll(long[] values) {
+        checkValues(values);
+        Object event = Events.beginBulk();
+        for (int i = 0; i < values.length; i += 2) {
+            forward(values, i);
+        }
+        Events.endBulk(event, "long-pair", values.length / 2);
+    }
+
+    /**
+     * Inverse of {@link #applyAll(long[])}.
+     *
+     * @throws IllegalArgumentException if the array has an odd length,
+     *                                  or any value is outside of
+     *                                  {0,1,...,a x b - 1}
+     */
+    public void invertAll(long[] values) {
+        checkValues(values);
+        Object event = Events.beginBulk();
+        for (int i = 0; i < values.length; i += 2) {
+            backward(values, i);
+        }
+        Events.endBulk(event, "long-pair", values.length / 2);
+    }
+
+    /**
+     * Returns this Feistel as a function of {@link BigInteger} values,
+     * for interoperating with code using the {@link BigInteger} versions.
+     */
+    public Isomorphism<BigInteger, BigInteger> toBigInteger() {
+        BigInteger max = toBigInteger(sizeHi, sizeLo).subtract(ONE);
+        return Isomorphism.of(
+                x -> {
+                    requireNonNull(x, "x cannot be null");
+                    requireNonNegative(x, max);
+                    long[] values = {x.shiftRight(64).longValue(), x.longValue()};
+                    forward(values, 0);
+                    return toBigInteger(values[0], values[1]);
+                },
+                y -> {
+                    requireNonNull(y, "y cannot be null");
+                    requireNonNegative(y, max);
+                    long[] values = {y.shiftRight(64).longValue(), y.longValue()};
+                    backward(values, 0);
+                    return toBigInteger(values[0], values[1]);
+                }
+        );
+    }
+
+    private void forward(long[] values, int i) {
+        if (fe1) {
+            for (int round = 0; round < rounds; round++) {
+                long l = divisorB.divide(values[i], values[i + 1]);
+                long r = values[i + 1] - l * b;
+                long w = divisorA.addMod(l, rf.applyAsLong(round, r));
+                set(values, i, a, r, w);
+            }
+            return;
+        }
+        long l = divisorB.divide(values[i], values[i + 1]);
+        long r = values[i + 1] - l * b;
+        long s = 1;
+        for (int round = 0; round < rounds; round++) {
+            boolean even = round % 2 == 0;
+            s = even ? a : b;
+            long l_ = l;
+            l = r;
+            r = (even ? divisorA : divisorB).addMod(l_, rf.applyAsLong(round, r));
+        }
+        set(values, i, s, l, r);
+    }
+
+    private void backward(long[] values, int i) {
+        if (fe1) {
+            for (int round = rounds - 1; round >= 0; round--) {
+                long r = divisorA.divide(values[i], values[i + 1]);
+                long w = values[i + 1] - r * a;
+                long l = divisorA.subtractMod(w, rf.applyAsLong(round, r));
+                set(values, i, b, l, r);
+            }
+            return;
+        }
+        boolean odd = rounds % 2 != 0;
+        long s = odd ? a : b;
+        long l = (odd ? divisorA : divisorB).divide(values[i], values[i + 1]);
+        long r = values[i + 1] - l * s;
+        for (int round = rounds - 1; round >= 0; round--) {
+            boolean even = round % 2 == 0;
+            long r_ = r;
+            r = l;
+            l = (even ? divisorA : divisorB).subtractMod(r_, rf.applyAsLong(round, l));
+        }
+        set(values, i, b, l, r);
+    }
+
+    /**
+     * Sets the value at {@code i} to {@code x * y + z}.
+     */
+    private static void set(long[] values, int i, long x, long y, long z) {
+        long lo = x * y + z;
+        values[i] = UnsignedMath.multiplyHigh(x, y) + (compareUnsigned(lo, z) < 0 ? 1 : 0);
+        values[i + 1] = lo;
+    }
+
+    private void checkLength(long[] output) {
+        if (output.length < 2) {
+            throw new IndexOutOfBoundsException(
+                    "expected at least 2 elements: " + output.length);
+        }
+    }
+
+    private void checkValues(long[] values) {
+        requireNonNull(values, "values cannot be null");
+        if (values.length % 2 != 0) {
+            throw new IllegalArgumentException(
+                    "values must have an even length: " + values.length);
+        }
+        for (int i = 0; i < values.length; i += 2) {
+            checkValue(values[i], values[i + 1]);
+        }
+    }
+
+    private void checkValue(long hi, long lo) {
+        int c = compareUnsigned(hi, sizeHi);
+        if (c > 0 || (c == 0 && compareUnsigned(lo, sizeLo) >= 0)) {
+            throw new IllegalArgumentException(
+                    "value out of range (min=0, max=" +
+                            toBigInteger(sizeHi, sizeLo).subtract(ONE) + "): " +
+                            toBigInteger(hi, lo));
+        }
+    }
+
+    private static BigInteger toBigInteger(long hi, long lo) {
+        return new BigInteger(toUnsignedString(hi))
+                .shiftLeft(64)
+                .add(new BigInteger(toUnsignedString(lo)));
+    }
+
+    @Override
+    public String toString() {
+        return "LongPairFeistel{" +
+                (fe1 ? "FE1" : "FE2") +
+                ", rounds=" + rounds +
+                ", a=" + toUnsignedString(a) +
+                ", b=" + toUnsignedString(b) +
+                '}';
+    }
+}
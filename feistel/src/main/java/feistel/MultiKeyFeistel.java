@@ -0,0 +1,357 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.lang.Long.toHexString;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@code k} balanced binary Feistels over the same domain, one for each
+ * key, that are evaluated together on the same input, such as for
+ * computing <a href="https://en.wikipedia.org/wiki/MinHash">MinHash</a>
+ * signatures, where each element of a set is permuted by each of the
+ * {@code k} permutations, and the minimum is kept for each permutation.
+ * <p>
+ * All Feistels share a fixed round function, so there are no calls
+ * through a {@link RoundFunction} per round. The round keys are stored
+ * round by round, with the {@code k} keys of a round next to each other,
+ * so the bulk methods evaluate a round for all {@code k} permutations in
+ * a tight loop over arrays that the JIT compiler can unroll and vectorize.
+ * <p>
+ * The value is split into a left block of the high {@code totalBits / 2}
+ * bits and a right block of the low {@code totalBits / 2} bits. Even
+ * rounds XOR the round function of the right block into the left block,
+ * odd rounds the other way around. The round function of {@code x} with
+ * round key {@code r} is the high {@code totalBits / 2} bits of
+ * {@code (x ^ r) * 0x9e3779b97f4a7c15}.
+ * <p>
+ * Signatures compare the permuted values as signed {@code long} values,
+ * which is the same as unsigned unless {@code totalBits} is 64, either
+ * way, every permutation is compared by the same total order, which is
+ * all MinHash needs.
+ * <p>
+ * Instances are immutable and thread safe.
+ *
+ * @see Feistel#ofMultiKey(int, int, long[])
+ */
+public final class MultiKeyFeistel {
+
+    private final int totalBits;
+    private final int rounds;
+    private final int k;
+    private final int halfBits;
+    private final int shift;
+    private final long halfMask;
+    private final long totalMask;
+    private final long[] schedule;
+
+    private MultiKeyFeistel(int totalBits, int rounds, int k, long[] schedule) {
+        this.totalBits = totalBits;
+        this.rounds = rounds;
+        this.k = k;
+        this.halfBits = totalBits / 2;
+        this.shift = Long.SIZE - halfBits;
+        this.halfMask = halfBits == 0 ? 0 : -1L >>> shift;
+        this.totalMask = totalBits == 0 ? 0 : -1L >>> (Long.SIZE - totalBits);
+        this.schedule = schedule;
+    }
+
+    static MultiKeyFeistel of(int totalBits, int rounds, long[] keys) {
+        requireNonNull(keys, "keys cannot be null");
+        requireNonNegative(rounds, "rounds");
+        requireNonNegative(totalBits, Long.SIZE);
+        if (totalBits % 2 != 0) {
+            throw new IllegalArgumentException(
+                    "totalBits must be even: " + totalBits);
+        }
+        if (keys.length == 0) {
+            throw new IllegalArgumentException("keys cannot be empty");
+        }
+
+        Object event = Events.beginBuild();
+        int k = keys.length;
+        long[] schedule = new long[rounds * k];
+        for (int j = 0; j < k; j++) {
+            KeySchedule.fill(keys[j], schedule, j, k, rounds);
+        }
+        Events.endBuild(event, "multi-key");
+        return new MultiKeyFeistel(totalBits, rounds, k, schedule);
+    }
+
+    /**
+     * Returns the number of keys, which is the number of permutations.
+     */
+    public int keys() {
+        return k;
+    }
+
+    /**
+     * Returns the total number of bits of the domain.
+     */
+    public int totalBits() {
+        return totalBits;
+    }
+
+    /**
+     * Returns the number of rounds of each permutation.
+     */
+    public int rounds() {
+        return rounds;
+    }
+
+    /**
+     * Returns the permutation of the given key as a function,
+     * for transforming single values and for inverting.
+     *
+     * @param key the index of the key, in {0,1,...,keys() - 1}
+     * @throws IllegalArgumentException if {@code key} is out of range
+     */
+    public Isomorphism.OfLong permutation(int key) {
+        requireNonNegative(key, k - 1);
+        return Isomorphism.OfLong.of(
+                x -> permute(key, checkValue(x), false),
+                y -> permute(key, checkValue(y), true));
+    }
+
+    private long permute(int key, long value, boolean inverse) {
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        for (int i = 0; i < rounds; i++) {
+            int round = inverse ? rounds - i - 1 : i;
+            long roundKey = schedule[round * k + key];
+            if (round % 2 == 0) {
+                left ^= round(right, roundKey);
+            } else {
+                right ^= round(left, roundKey);
+            }
+        }
+        return (left << halfBits) | right;
+    }
+
+    /**
+     * Same as {@link #permute(int, long, boolean)} forward, two rounds at
+     * a time, for transforming a single value without scratch arrays.
+     * The permutations of different keys do not depend on each other, so
+     * the processor can overlap the rounds of consecutive keys.
+     */
+    private long forward(int key, long value) {
+        int k = this.k;
+        long[] schedule = this.schedule;
+        long left = value >>> halfBits;
+        long right = value & halfMask;
+        int round = 0;
+        for (; round + 1 < rounds; round += 2) {
+            left ^= round(right, schedule[round * k + key]);
+            right ^= round(left, schedule[(round + 1) * k + key]);
+        }
+        if (round < rounds) {
+            left ^= round(right, schedule[round * k + key]);
+        }
+        return (left << halfBits) | right;
+    }
+
+    private long round(long x, long roundKey) {
+        return KeySchedule.round(x, roundKey, shift) & halfMask;
+    }
+
+    /**
+     * Transforms the value with every permutation, putting the result
+     * of permutation {@code j} into {@code output[j]}.
+     *
+     * @throws IllegalArgumentException  if the value is outside of
+     *                                   {0,1,...,2<sup>totalBits</sup> - 1}
+     * @throws IndexOutOfBoundsException if {@code output} is shorter
+     *                                   than {@link #keys()}
+     */
+    public void apply(long value, long[] output) {
+        checkLength(output);
+        checkValue(value);
+        for (int j = 0; j < k; j++) {
+            output[j] = forward(j, value);
+        }
+    }
+
+    /**
+     * Returns a new signature for {@link #update(long[], int, int, long[])},
+     * with every element set to {@link Long#MAX_VALUE}, the signature of
+     * the empty set.
+     */
+    public long[] newSignature() {
+        long[] signature = new long[k];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        return signature;
+    }
+
+    /**
+     * Updates the signature in place with the value, setting
+     * {@code signature[j]} to the minimum of itself and the value
+     * transformed by permutation {@code j}. This allocates nothing, for
+     * values that are already in an array,
+     * {@link #update(long[], int, int, long[])} is faster.
+     *
+     * @throws IllegalArgumentException  if the value is outside of
+     *                                   {0,1,...,2<sup>totalBits</sup> - 1}
+     * @throws IndexOutOfBoundsException if {@code signature} is shorter
+     *                                   than {@link #keys()}
+     */
+    public void update(long value, long[] signature) {
+        checkLength(signature);
+        checkValue(value);
+        for (int j = 0; j < k; j++) {
+            signature[j] = Math.min(signature[j], forward(j, value));
+        }
+    }
+
+    /**
+     * Updates the signature in place with the {@code length} values of
+     * {@code values} starting at {@code offset}, setting
+     * {@code signature[j]} to the minimum of itself and every value
+     * transformed by permutation {@code j}.
+     *
+     * @throws IllegalArgumentException  if any value is outside of
+     *                                   {0,1,...,2<sup>totalBits</sup> - 1}
+     * @throws IndexOutOfBoundsException if the range is out of bounds, or
+     *                                   {@code signature} is shorter
+     *                                   than {@link #keys()}
+     */
+    public void update(long[] values, int offset, int length, long[] signature) {
+        if (offset < 0 || length < 0 || offset > values.length - length) {
+            throw new IndexOutOfBoundsException(
+                    "offset=" + offset +
+                            ", length=" + length +
+                            ", array length=" + values.length);
+        }
+        checkLength(signature);
+        Object event = Events.beginBulk();
+        updateUnchecked(values, offset, length, signature,
+                new long[k], new long[k]);
+        Events.endBulk(event, "multi-key", (long) length * k);
+    }
+
+    /**
+     * Returns the signature of each document, a document being the values
+     * of a set, {@code signatures[d]} is the same as the result of
+     * {@link #update(long[], int, int, long[]) updating} a
+     * {@link #newSignature() new signature} with all values of
+     * {@code documents[d]}.
+     *
+     * @throws IllegalArgumentException if any value is outside of
+     *                                  {0,1,...,2<sup>totalBits</sup> - 1}
+     */
+    public long[][] signatures(long[][] documents) {
+        return signatures(documents, false);
+    }
+
+    /**
+     * Same as {@link #signatures(long[][])}, but computes the signatures
+     * of the documents in parallel.
+     *
+     * @throws IllegalArgumentException if any value is outside of
+     *                                  {0,1,...,2<sup>totalBits</sup> - 1}
+     */
+    public long[][] signaturesParallel(long[][] documents) {
+        return signatures(documents, true);
+    }
+
+    private long[][] signatures(long[][] documents, boolean parallel) {
+        requireNonNull(documents, "documents cannot be null");
+        Object event = Events.beginBulk();
+        long[][] signatures = new long[documents.length][];
+        IntStream indices = IntStream.range(0, documents.length);
+        (parallel ? indices.parallel() : indices).forEach(d -> {
+            long[] document = documents[d];
+            long[] signature = newSignature();
+            updateUnchecked(document, 0, document.length, signature,
+                    new long[k], new long[k]);
+            signatures[d] = signature;
+        });
+        long size = 0;
+        for (long[] document : documents) {
+            size += document.length;
+        }
+        Events.endBulk(event, parallel
+                ? "multi-key-parallel"
+                : "multi-key", size * k);
+        return signatures;
+    }
+
+    private void updateUnchecked(
+            long[] values,
+            int offset,
+            int length,
+            long[] signature,
+            long[] left,
+            long[] right
+    ) {
+        for (int i = offset; i < offset + length; i++) {
+            applyAll(checkValue(values[i]), left, right);
+            for (int j = 0; j < k; j++) {
+                long permuted = (left[j] << halfBits) | right[j];
+                signature[j] = Math.min(signature[j], permuted);
+            }
+        }
+    }
+
+    /**
+     * Transforms the value with every permutation, putting the left and
+     * right blocks of the result of permutation {@code j} into
+     * {@code left[j]} and {@code right[j]}. Each round is evaluated for
+     * all permutations before the next, two rounds at a time.
+     */
+    private void applyAll(long value, long[] left, long[] right) {
+        int k = this.k;
+        int shift = this.shift;
+        long halfMask = this.halfMask;
+        long[] schedule = this.schedule;
+        Arrays.fill(left, 0, k, value >>> halfBits);
+        Arrays.fill(right, 0, k, value & halfMask);
+        int round = 0;
+        for (; round + 1 < rounds; round += 2) {
+            int even = round * k;
+            int odd = even + k;
+            for (int j = 0; j < k; j++) {
+                long l = left[j] ^ KeySchedule.round(
+                        right[j], schedule[even + j], shift) & halfMask;
+                left[j] = l;
+                right[j] ^= KeySchedule.round(
+                        l, schedule[odd + j], shift) & halfMask;
+            }
+        }
+        if (round < rounds) {
+            int even = round * k;
+            for (int j = 0; j < k; j++) {
+                left[j] ^= KeySchedule.round(
+                        right[j], schedule[even + j], shift) & halfMask;
+            }
+        }
+    }
+
+    private void checkLength(long[] array) {
+        if (array.length < k) {
+            throw new IndexOutOfBoundsException(
+                    "expected at least " + k + " elements: " + array.length);
+        }
+    }
+
+    private long checkValue(long value) {
+        if ((value & ~totalMask) != 0) {
+            throw new IllegalArgumentException("input " + value +
+                    " (" + toHexString(value) + ") is" +
+                    " outside of mask range " + toHexString(totalMask));
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "MultiKeyFeistel{" +
+                "totalBits=" + totalBits +
+                ", rounds=" + rounds +
+                ", keys=" + k +
+                '}';
+    }
+}
@@ -0,0 +1,263 @@
+package feistel;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A bounded, striped map from function inputs to outputs.
+ * <p>
+ * Keys are spread over independently locked segments. Each segment evicts
+ * with the CLOCK (second chance) algorithm, and only admits a new key over
+ * the eviction victim if the key has been requested more often recently,
+ * according to a {@link FrequencySketch}. This keeps a long scan of
+ * one-off keys from flushing out the frequently used ones.
+ */
+final class ResultCache<K, V> {
+
+    /**
+     * The number of evictions from a segment recorded as one event.
+     */
+    private static final int EVICTION_BATCH = 1024;
+
+    private final Segment<K, V>[] segments;
+    private final int segmentShift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ResultCache(int maximumSize) {
+        int segmentCount = segmentCount(maximumSize);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Segment<K, V>[] segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            int capacity = maximumSize / segmentCount
+                    + (i < maximumSize % segmentCount ? 1 : 0);
+            segments[i] = new Segment<>(capacity);
+        }
+        this.segments = segments;
+        this.segmentShift = Integer.SIZE
+                - Integer.numberOfTrailingZeros(segmentCount);
+    }
+
+    private static int segmentCount(int maximumSize) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        int count = Integer.highestOneBit(Math.min(cpus * 4, 1 << 16));
+        while (count > 1 && maximumSize / count < 16) {
+            count >>>= 1;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the value cached for the key, or null if there is none.
+     */
+    V get(K key) {
+        int hash = hash(key);
+        V value = segmentFor(hash).get(key, hash);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the value cached for the key, or null if there is none,
+     * without counting it as a request.
+     */
+    V peek(K key) {
+        int hash = hash(key);
+        return segmentFor(hash).peek(key, hash);
+    }
+
+    /**
+     * Offers the key and value for caching after a {@link #get(Object)} miss.
+     */
+    void put(K key, V value) {
+        int hash = hash(key);
+        if (segmentFor(hash).put(key, hash, requireNonNull(value), false, false)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Caches the key and value after a {@link #get(Object)} miss, evicting
+     * the victim even if it has been requested more often, for values that
+     * are too expensive to compute again on every request.
+     */
+    void admit(K key, V value) {
+        int hash = hash(key);
+        if (segmentFor(hash).put(key, hash, requireNonNull(value), false, true)) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Offers a key and value that was computed without a
+     * {@link #get(Object)} on this cache, counting it as a request.
+     */
+    void mirror(K key, V value) {
+        int hash = hash(key);
+        if (segmentFor(hash).put(key, hash, requireNonNull(value), true, false)) {
+            evictions.increment();
+        }
+    }
+
+    long hitCount() {
+        return hits.sum();
+    }
+
+    long missCount() {
+        return misses.sum();
+    }
+
+    long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment<K, V> segmentFor(int hash) {
+        return segmentShift == Integer.SIZE
+                ? segments[0]
+                : segments[hash >>> segmentShift];
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x45d9f3b;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    private static final class Segment<K, V> {
+
+        private final Object[] keys;
+        private final Object[] values;
+        private final int[] hashes;
+        private final boolean[] referenced;
+        private final int[] index;
+        private final FrequencySketch sketch;
+        private int size;
+        private int hand;
+        private int evictions;
+
+        Segment(int capacity) {
+            this.keys = new Object[capacity];
+            this.values = new Object[capacity];
+            this.hashes = new int[capacity];
+            this.referenced = new boolean[capacity];
+            this.index = new int[Integer.highestOneBit(
+                    Math.max(capacity, 1) * 2 - 1) * 2];
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        synchronized V get(Object key, int hash) {
+            sketch.increment(hash);
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            referenced[slot] = true;
+            @SuppressWarnings("unchecked")
+            V value = (V) values[slot];
+            return value;
+        }
+
+        synchronized V peek(Object key, int hash) {
+            int slot = find(key, hash);
+            if (slot < 0) {
+                return null;
+            }
+            @SuppressWarnings("unchecked")
+            V value = (V) values[slot];
+            return value;
+        }
+
+        /**
+         * Returns true if an existing entry was evicted.
+         */
+        synchronized boolean put(
+                K key,
+                int hash,
+                V value,
+                boolean touch,
+                boolean force
+        ) {
+            if (touch) {
+                sketch.increment(hash);
+            }
+            if (keys.length == 0 || find(key, hash) >= 0) {
+                return false;
+            }
+            if (size < keys.length) {
+                insert(size++, key, hash, value);
+                return false;
+            }
+
+            while (referenced[hand]) {
+                referenced[hand] = false;
+                hand = (hand + 1) % keys.length;
+            }
+            if (!force &&
+                    sketch.frequency(hash) <= sketch.frequency(hashes[hand])) {
+                return false;
+            }
+            remove(hand);
+            insert(hand, key, hash, value);
+            hand = (hand + 1) % keys.length;
+            if (++evictions == EVICTION_BATCH) {
+                Events.cacheEvictions(keys.length, evictions);
+                evictions = 0;
+            }
+            return true;
+        }
+
+        private int find(Object key, int hash) {
+            int mask = index.length - 1;
+            for (int i = hash & mask; index[i] != 0; i = (i + 1) & mask) {
+                int slot = index[i] - 1;
+                if (hashes[slot] == hash && keys[slot].equals(key)) {
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        private void insert(int slot, K key, int hash, V value) {
+            keys[slot] = key;
+            values[slot] = value;
+            hashes[slot] = hash;
+            referenced[slot] = false;
+            int mask = index.length - 1;
+            int i = hash & mask;
+            while (index[i] != 0) {
+                i = (i + 1) & mask;
+            }
+            index[i] = slot + 1;
+        }
+
+        /**
+         * Removes the slot from the linear probing index by shifting
+         * back the entries that follow it in the same probe sequence.
+         */
+        private void remove(int slot) {
+            int mask = index.length - 1;
+            int i = hashes[slot] & mask;
+            while (index[i] != slot + 1) {
+                i = (i + 1) & mask;
+            }
+            for (int j = (i + 1) & mask; index[j] != 0; j = (j + 1) & mask) {
+                int home = hashes[index[j] - 1] & mask;
+                if (((j - home) & mask) >= ((j - i) & mask)) {
+                    index[i] = index[j];
+                    i = j;
+                }
+            }
+            index[i] = 0;
+            keys[slot] = null;
+            values[slot] = null;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Measured mixing quality and speed of a Feistel for each number of
+ * rounds, to choose the cheapest number of rounds that mixes well enough
+ * for a round function and a domain, instead of a guess.
+ * <p>
+ * For each sampled input {@code x} and each input bit {@code i}, the
+ * output of {@code x} is compared with the output of {@code x} with bit
+ * {@code i} flipped, inputs outside of the domain are skipped. Two biases
+ * are derived from the flipped output bits, both are 0 for an ideal
+ * permutation and 1 for the worst:
+ * <ul>
+ * <li>the avalanche bias is the maximum over input bits {@code i} and
+ * output bits {@code j} of {@code |2p - 1|}, where {@code p} is the
+ * probability of output bit {@code j} flipping when input bit {@code i}
+ * is flipped (the strict avalanche criterion)</li>
+ * <li>the independence bias is the maximum over input bits {@code i} and
+ * pairs of output bits {@code j} and {@code k} of the absolute correlation
+ * between {@code j} and {@code k} flipping when input bit {@code i} is
+ * flipped (the bit independence criterion)</li>
+ * </ul>
+ * The biases of an ideal permutation measured with {@code n} samples are
+ * around {@code 4 / sqrt(n)}, so the number of samples needs to be large
+ * enough for the target bias.
+ * <p>
+ * The speed is measured by applying the Feistel to the sampled inputs
+ * and keeping the best of a few runs, it is only indicative, use the
+ * benchmarks to confirm.
+ *
+ * @see Feistel#tuneRounds(IntFunction, long, int, int, double)
+ */
+public final class RoundTuning {
+
+    /**
+     * The measurements of a number of rounds.
+     */
+    public static final class Candidate {
+
+        private final int rounds;
+        private final double avalancheBias;
+        private final double independenceBias;
+        private final double nanosPerOp;
+        private final boolean meetsTarget;
+
+        Candidate(
+                int rounds,
+                double avalancheBias,
+                double independenceBias,
+                double nanosPerOp,
+                boolean meetsTarget
+        ) {
+            this.rounds = rounds;
+            this.avalancheBias = avalancheBias;
+            this.independenceBias = independenceBias;
+            this.nanosPerOp = nanosPerOp;
+            this.meetsTarget = meetsTarget;
+        }
+
+        /**
+         * Returns the number of rounds.
+         */
+        public int rounds() {
+            return rounds;
+        }
+
+        /**
+         * Returns the avalanche bias, between 0 (ideal) and 1.
+         */
+        public double avalancheBias() {
+            return avalancheBias;
+        }
+
+        /**
+         * Returns the independence bias, between 0 (ideal) and 1.
+         */
+        public double independenceBias() {
+            return independenceBias;
+        }
+
+        /**
+         * Returns the measured time of applying the Feistel once,
+         * in nanoseconds.
+         */
+        public double nanosPerOp() {
+            return nanosPerOp;
+        }
+
+        /**
+         * Returns true if both biases are at most the target.
+         */
+        public boolean meetsTarget() {
+            return meetsTarget;
+        }
+
+        @Override
+        public String toString() {
+            return "Candidate{" +
+                    "rounds=" + rounds +
+                    ", avalancheBias=" + avalancheBias +
+                    ", independenceBias=" + independenceBias +
+                    ", nanosPerOp=" + nanosPerOp +
+                    ", meetsTarget=" + meetsTarget +
+                    '}';
+        }
+    }
+
+    private static final int CHUNK = 1024;
+    private static final int TIMING_INPUTS = 1 << 16;
+    private static final int TIMING_RUNS = 5;
+
+    @SuppressWarnings("unused")
+    private static volatile long sink;
+
+    private final double maxBias;
+    private final List<Candidate> candidates;
+
+    private RoundTuning(double maxBias, List<Candidate> candidates) {
+        this.maxBias = maxBias;
+        this.candidates = candidates;
+    }
+
+    static RoundTuning of(
+            IntFunction<? extends Isomorphism.OfLong> factory,
+            long size,
+            int maxRounds,
+            int samples,
+            double maxBias
+    ) {
+        requireNonNull(factory, "factory cannot be null");
+        if (size < 0 || size == 1) {
+            throw new IllegalArgumentException(
+                    "size must be 0 or greater than 1: " + size);
+        }
+        if (maxRounds <= 0) {
+            throw new IllegalArgumentException(
+                    "maxRounds must be positive: " + maxRounds);
+        }
+        if (samples <= 0) {
+            throw new IllegalArgumentException(
+                    "samples must be positive: " + samples);
+        }
+        if (!(maxBias >= 0 && maxBias <= 1)) {
+            throw new IllegalArgumentException(
+                    "maxBias must be between 0 and 1: " + maxBias);
+        }
+
+        int bits = size == 0 ? Long.SIZE
+                : Long.SIZE - Long.numberOfLeadingZeros(size - 1);
+        List<Candidate> candidates = new ArrayList<>(maxRounds);
+        for (int rounds = 1; rounds <= maxRounds; rounds++) {
+            Isomorphism.OfLong f = requireNonNull(factory.apply(rounds),
+                    "factory returned null");
+            Stats stats = measure(f, size, bits, samples);
+            double avalancheBias = stats.avalancheBias();
+            double independenceBias = stats.independenceBias();
+            candidates.add(new Candidate(
+                    rounds,
+                    avalancheBias,
+                    independenceBias,
+                    time(f, size),
+                    avalancheBias <= maxBias && independenceBias <= maxBias));
+        }
+        return new RoundTuning(maxBias, unmodifiableList(candidates));
+    }
+
+    private static long sample(SplittableRandom random, long size) {
+        if (size == 0) {
+            return random.nextLong();
+        }
+        if ((size & (size - 1)) == 0) {
+            return random.nextLong() & (size - 1);
+        }
+        return random.nextLong(size);
+    }
+
+    private static Stats measure(
+            Isomorphism.OfLong f,
+            long size,
+            int bits,
+            int samples
+    ) {
+        int chunks = (samples + CHUNK - 1) / CHUNK;
+        return IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            SplittableRandom random = new SplittableRandom(chunk);
+            Stats stats = new Stats(bits);
+            int n = Math.min(CHUNK, samples - chunk * CHUNK);
+            for (int s = 0; s < n; s++) {
+                stats.add(f, sample(random, size), size);
+            }
+            return stats;
+        }).reduce(Stats::merge).orElseGet(() -> new Stats(bits));
+    }
+
+    private static double time(Isomorphism.OfLong f, long size) {
+        SplittableRandom random = new SplittableRandom(-1);
+        long[] inputs = new long[TIMING_INPUTS];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = sample(random, size);
+        }
+        long best = Long.MAX_VALUE;
+        long sum = 0;
+        for (int run = 0; run < TIMING_RUNS * 2; run++) {
+            long start = System.nanoTime();
+            for (long input : inputs) {
+                sum += f.applyAsLong(input);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (run >= TIMING_RUNS) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        sink = sum;
+        return (double) best / inputs.length;
+    }
+
+    /**
+     * Counts of flipped output bits, {@code flips[i * bits + j]} counts
+     * output bit {@code j} flipping for input bit {@code i}, and
+     * {@code pairs[i * pairsPerBit + pair(j, k)]} for {@code j < k} counts
+     * output bits {@code j} and {@code k} flipping together for input bit
+     * {@code i}.
+     */
+    private static final class Stats {
+
+        private final int bits;
+        private final int pairsPerBit;
+        private final long[] trials;
+        private final long[] flips;
+        private final long[] pairs;
+
+        Stats(int bits) {
+            this.bits = bits;
+            this.pairsPerBit = bits * (bits - 1) / 2;
+            this.trials = new long[bits];
+            this.flips = new long[bits * bits];
+            this.pairs = new long[bits * pairsPerBit];
+        }
+
+        /**
+         * Returns the index of the pair {@code j < k} among the pairs of
+         * an input bit, the pairs are ordered by {@code j} then {@code k}.
+         */
+        private int pair(int j, int k) {
+            return j * (2 * bits - j - 1) / 2 + k - j - 1;
+        }
+
+        void add(Isomorphism.OfLong f, long x, long size) {
+            long y = f.applyAsLong(x);
+            for (int i = 0; i < bits; i++) {
+                long flipped = x ^ (1L << i);
+                if (size != 0 && Long.compareUnsigned(flipped, size) >= 0) {
+                    continue;
+                }
+                long d = y ^ f.applyAsLong(flipped);
+                trials[i]++;
+                int row = i * bits;
+                int pairRow = i * pairsPerBit;
+                for (long a = d; a != 0; a &= a - 1) {
+                    int j = Long.numberOfTrailingZeros(a);
+                    flips[row + j]++;
+                    // pair(j, k) - k, so the index of pair (j, k) is pairStart + k
+                    int pairStart = pairRow + pair(j, j + 1) - j - 1;
+                    for (long b = a & (a - 1); b != 0; b &= b - 1) {
+                        pairs[pairStart + Long.numberOfTrailingZeros(b)]++;
+                    }
+                }
+            }
+        }
+
+        Stats merge(Stats other) {
+            for (int i = 0; i < bits; i++) {
+                trials[i] += other.trials[i];
+            }
+            for (int i = 0; i < flips.length; i++) {
+                flips[i] += other.flips[i];
+            }
+            for (int i = 0; i < pairs.length; i++) {
+                pairs[i] += other.pairs[i];
+            }
+            return this;
+        }
+
+        double avalancheBias() {
+            double bias = 0;
+            for (int i = 0; i < bits; i++) {
+                if (trials[i] == 0) {
+                    continue;
+                }
+                for (int j = 0; j < bits; j++) {
+                    double p = (double) flips[i * bits + j] / trials[i];
+                    bias = Math.max(bias, Math.abs(2 * p - 1));
+                }
+            }
+            return bias;
+        }
+
+        double independenceBias() {
+            double bias = 0;
+            for (int i = 0; i < bits; i++) {
+                if (trials[i] == 0) {
+                    continue;
+                }
+                double n = trials[i];
+                int row = i * bits;
+                int pairRow = i * pairsPerBit;
+                for (int j = 0; j < bits; j++) {
+                    double pj = flips[row + j] / n;
+                    double vj = pj * (1 - pj);
+                    if (vj == 0) {
+                        continue;
+                    }
+                    for (int k = j + 1; k < bits; k++) {
+                        double pk = flips[row + k] / n;
+                        double vk = pk * (1 - pk);
+                        if (vk == 0) {
+                            continue;
+                        }
+                        double pjk = pairs[pairRow + pair(j, k)] / n;
+                        double correlation = (pjk - pj * pk) / Math.sqrt(vj * vk);
+                        bias = Math.max(bias, Math.min(1, Math.abs(correlation)));
+                    }
+                }
+            }
+            return bias;
+        }
+    }
+
+    /**
+     * Returns the target that both biases need to be at most.
+     */
+    public double maxBias() {
+        return maxBias;
+    }
+
+    /**
+     * Returns the measurements for each number of rounds,
+     * starting from 1.
+     */
+    public List<Candidate> candidates() {
+        return candidates;
+    }
+
+    /**
+     * Returns the fastest candidate that meets the target,
+     * or empty if there is none.
+     */
+    public Optional<Candidate> best() {
+        Candidate best = null;
+        for (Candidate candidate : candidates) {
+            if (candidate.meetsTarget() &&
+                    (best == null || candidate.nanosPerOp() < best.nanosPerOp())) {
+                best = candidate;
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    @Override
+    public String toString() {
+        return "RoundTuning{" +
+                "maxBias=" + maxBias +
+                ", candidates=" + candidates +
+                '}';
+    }
+}
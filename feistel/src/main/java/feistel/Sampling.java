@@ -0,0 +1,51 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.Arrays;
+import java.util.stream.LongStream;
+
+import static feistel.Constraints.requireNonNegative;
+
+/**
+ * Sampling without replacement by taking the first {@code k} elements of a
+ * keyed permutation of {0,1,...,n - 1}. As the permutation is a bijection,
+ * the elements are distinct without having to remember which elements have
+ * been sampled, and each element is computed independently of the others.
+ */
+final class Sampling {
+    private Sampling() {
+    }
+
+    static final int ROUNDS = 8;
+
+    static Isomorphism.OfLong permutation(long k, long n, long key) {
+        requireNonNegative(k, "k");
+        requireNonNegative(n, "n");
+        if (k > n) {
+            throw new IllegalArgumentException(
+                    "k (" + k + ") cannot be greater than n (" + n + ")");
+        }
+        return FeistelSpec.of(n, ROUNDS, key).feistel();
+    }
+
+    static long[] sample(int k, long n, long key) {
+        Isomorphism.OfLong f = permutation(k, n, key);
+        long[] sample = new long[k];
+        for (int i = 0; i < k; i++) {
+            sample[i] = f.applyAsLong(i);
+        }
+        return sample;
+    }
+
+    static long[] sampleParallel(int k, long n, long key) {
+        Isomorphism.OfLong f = permutation(k, n, key);
+        long[] sample = new long[k];
+        Arrays.parallelSetAll(sample, f::applyAsLong);
+        return sample;
+    }
+
+    static LongStream stream(long k, long n, long key) {
+        return LongStream.range(0, k).map(permutation(k, n, key));
+    }
+}
@@ -0,0 +1,244 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Shuffles arrays by a permutation, so that the element at index
+ * {@code i} after shuffling is the element at index {@code f(i)} before.
+ */
+final class Shuffle {
+    private Shuffle() {
+    }
+
+    private static final int CHUNK_SIZE = 1 << 12;
+
+    static void gather(long[] src, long[] dest, Isomorphism.OfLong f) {
+        checkGather(src, src.length, dest, dest.length, f);
+        Object event = Events.beginBulk();
+        IntStream.range(0, dest.length).parallel().forEach(i ->
+                dest[i] = src[(int) f.applyAsLong(i)]);
+        Events.endBulk(event, "gather", dest.length);
+    }
+
+    static void gather(int[] src, int[] dest, Isomorphism.OfLong f) {
+        checkGather(src, src.length, dest, dest.length, f);
+        Object event = Events.beginBulk();
+        IntStream.range(0, dest.length).parallel().forEach(i ->
+                dest[i] = src[(int) f.applyAsLong(i)]);
+        Events.endBulk(event, "gather", dest.length);
+    }
+
+    static <T> void gather(T[] src, T[] dest, Isomorphism.OfLong f) {
+        checkGather(src, src.length, dest, dest.length, f);
+        Object event = Events.beginBulk();
+        IntStream.range(0, dest.length).parallel().forEach(i ->
+                dest[i] = src[(int) f.applyAsLong(i)]);
+        Events.endBulk(event, "gather", dest.length);
+    }
+
+    private static void checkGather(
+            Object src,
+            int srcLength,
+            Object dest,
+            int destLength,
+            Isomorphism.OfLong f
+    ) {
+        requireNonNull(f, "f cannot be null");
+        if (src == dest) {
+            throw new IllegalArgumentException(
+                    "src and dest cannot be the same array");
+        }
+        if (srcLength != destLength) {
+            throw new IllegalArgumentException(
+                    "src length (" + srcLength + ") is not the same as " +
+                            "dest length (" + destLength + ")");
+        }
+    }
+
+    static void inPlace(long[] array, Isomorphism.OfLong f) {
+        inPlace(new Elements() {
+            @Override
+            int length() {
+                return array.length;
+            }
+
+            @Override
+            void copy(int to, int from) {
+                array[to] = array[from];
+            }
+
+            @Override
+            Object get(int i) {
+                return array[i];
+            }
+
+            @Override
+            void set(int i, Object value) {
+                array[i] = (Long) value;
+            }
+        }, f);
+    }
+
+    static void inPlace(int[] array, Isomorphism.OfLong f) {
+        inPlace(new Elements() {
+            @Override
+            int length() {
+                return array.length;
+            }
+
+            @Override
+            void copy(int to, int from) {
+                array[to] = array[from];
+            }
+
+            @Override
+            Object get(int i) {
+                return array[i];
+            }
+
+            @Override
+            void set(int i, Object value) {
+                array[i] = (Integer) value;
+            }
+        }, f);
+    }
+
+    static void inPlace(Object[] array, Isomorphism.OfLong f) {
+        inPlace(new Elements() {
+            @Override
+            int length() {
+                return array.length;
+            }
+
+            @Override
+            void copy(int to, int from) {
+                array[to] = array[from];
+            }
+
+            @Override
+            Object get(int i) {
+                return array[i];
+            }
+
+            @Override
+            void set(int i, Object value) {
+                array[i] = value;
+            }
+        }, f);
+    }
+
+    private abstract static class Elements {
+        abstract int length();
+
+        abstract void copy(int to, int from);
+
+        abstract Object get(int i);
+
+        abstract void set(int i, Object value);
+    }
+
+    /**
+     * A parallel cycle leader traversal. Each thread scans its chunks
+     * for indices not yet visited, and from each one follows the cycle,
+     * claiming each index in a shared visited bitset and moving its
+     * element, until the cycle closes or it reaches an index claimed by
+     * another thread. Each index is claimed once, so the cycles are split
+     * into disjoint segments.
+     * <p>
+     * A segment that does not close its cycle ends at the first index of
+     * another segment, whose element has been overwritten by then. So the
+     * first element of every such segment is saved, and written to the
+     * last index of the segment before it once all threads are done.
+     */
+    private static void inPlace(Elements elements, Isomorphism.OfLong f) {
+        requireNonNull(f, "f cannot be null");
+        int length = elements.length();
+        Object event = Events.beginBulk();
+        AtomicLongArray visited = new AtomicLongArray((length + 63) >>> 6);
+        int chunks = (int) Math.min(
+                (length + (long) CHUNK_SIZE - 1) / CHUNK_SIZE,
+                ForkJoinPool.getCommonPoolParallelism() * 16L);
+        long chunkSize = chunks == 0 ? 0 : (length + (long) chunks - 1) / chunks;
+        List<Segments> results = IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> walk(elements, f, visited,
+                        (int) Math.min(length, chunk * chunkSize),
+                        (int) Math.min(length, (chunk + 1) * chunkSize)))
+                .collect(toList());
+
+        Map<Integer, Object> heads = new HashMap<>();
+        for (Segments segments : results) {
+            heads.putAll(segments.heads);
+        }
+        for (Segments segments : results) {
+            for (int i = 0; i < segments.tails.size(); i++) {
+                elements.set(segments.tails.get(i),
+                        heads.get(segments.nextHeads.get(i)));
+            }
+        }
+        Events.endBulk(event, "cycle-leader", length);
+    }
+
+    private static final class Segments {
+        final Map<Integer, Object> heads = new HashMap<>();
+        final List<Integer> tails = new ArrayList<>();
+        final List<Integer> nextHeads = new ArrayList<>();
+    }
+
+    private static Segments walk(
+            Elements elements,
+            Isomorphism.OfLong f,
+            AtomicLongArray visited,
+            int from,
+            int to
+    ) {
+        Segments segments = new Segments();
+        for (int head = from; head < to; head++) {
+            if (!claim(visited, head)) {
+                continue;
+            }
+            Object first = elements.get(head);
+            int i = head;
+            while (true) {
+                int next = (int) f.applyAsLong(i);
+                if (claim(visited, next)) {
+                    elements.copy(i, next);
+                    i = next;
+                } else if (next == head) {
+                    elements.set(i, first);
+                    break;
+                } else {
+                    segments.heads.put(head, first);
+                    segments.tails.add(i);
+                    segments.nextHeads.add(next);
+                    break;
+                }
+            }
+        }
+        return segments;
+    }
+
+    private static boolean claim(AtomicLongArray visited, int i) {
+        int word = i >>> 6;
+        long bit = 1L << i;
+        while (true) {
+            long current = visited.get(word);
+            if ((current & bit) != 0) {
+                return false;
+            }
+            if (visited.compareAndSet(word, current, current | bit)) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads the records of a file of fixed size records in the order given
+ * by a Feistel, the record at each position being the record at index
+ * {@code f(position)} of the file.
+ * <p>
+ * Positions are read in windows of {@code windowSize}. The indices of
+ * each window are sorted, so the file is read in order, and indices close
+ * to each other are read together with a single read. Up to
+ * {@code readAhead} windows are read ahead of the window being consumed
+ * by a background thread, so memory use is bounded by
+ * {@code (readAhead + 1) x windowSize x recordSize} bytes. With a
+ * {@code readAhead} of 0, each window is only read when it is needed.
+ * <p>
+ * Instances are not thread safe.
+ *
+ * @see Feistel#shuffledReader(Path, int, Isomorphism.OfLong, int, int)
+ */
+public final class ShuffledReader implements Closeable {
+
+    private static final int MAX_READ_SIZE = 1 << 20;
+    private static final int MAX_GAP_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    private final int recordSize;
+    private final long records;
+    private final Isomorphism.OfLong f;
+    private final int windowSize;
+    private final int readAhead;
+    private final ExecutorService executor;
+    private final Deque<Future<Window>> pending = new ArrayDeque<>();
+
+    private long submitted;
+    private long position;
+    private Window window;
+
+    private ShuffledReader(
+            FileChannel channel,
+            int recordSize,
+            long records,
+            Isomorphism.OfLong f,
+            int windowSize,
+            int readAhead
+    ) {
+        this.channel = channel;
+        this.recordSize = recordSize;
+        this.records = records;
+        this.f = f;
+        this.windowSize = windowSize;
+        this.readAhead = readAhead;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "feistel-shuffled-reader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < readAhead; i++) {
+            submit();
+        }
+    }
+
+    static ShuffledReader open(
+            Path file,
+            int recordSize,
+            Isomorphism.OfLong f,
+            int windowSize,
+            int readAhead
+    ) throws IOException {
+        requireNonNull(file, "file cannot be null");
+        requireNonNull(f, "f cannot be null");
+        if (recordSize <= 0) {
+            throw new IllegalArgumentException(
+                    "recordSize must be positive: " + recordSize);
+        }
+        if (windowSize <= 0 || (long) windowSize * recordSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "windowSize must be positive and windowSize x " +
+                            "recordSize must fit in a byte array: " + windowSize);
+        }
+        if (readAhead < 0) {
+            throw new IllegalArgumentException(
+                    "readAhead cannot be negative: " + readAhead);
+        }
+        long size = Files.size(file);
+        if (size % recordSize != 0) {
+            throw new IllegalArgumentException(
+                    "size of " + file + " (" + size + ") is not " +
+                            "a multiple of recordSize (" + recordSize + ")");
+        }
+        return new ShuffledReader(FileChannel.open(file, READ),
+                recordSize, size / recordSize, f, windowSize, readAhead);
+    }
+
+    /**
+     * Returns the number of records.
+     */
+    public long records() {
+        return records;
+    }
+
+    /**
+     * Returns the position of the next record.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * Returns true if there are more records.
+     */
+    public boolean hasNext() {
+        return position < records;
+    }
+
+    /**
+     * Copies the next record into {@code record}, which must be at least
+     * {@code recordSize} long.
+     *
+     * @throws NoSuchElementException   if there are no more records
+     * @throws IllegalArgumentException if the Feistel returns an index
+     *                                  outside of the file
+     * @throws IOException              if an I/O error occurs
+     */
+    public void next(byte[] record) throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (window == null || position == window.end) {
+            // Releases the consumed window before reading the next one,
+            // so at most readAhead + 1 windows are held at a time
+            window = null;
+            if (pending.isEmpty()) {
+                submit();
+            }
+            window = take();
+            while (pending.size() < readAhead) {
+                if (!submit()) {
+                    break;
+                }
+            }
+        }
+        int slot = (int) (position - window.start);
+        System.arraycopy(window.data, window.offsets[slot],
+                record, 0, recordSize);
+        position++;
+    }
+
+    /**
+     * Submits the next window to be read, returning false if
+     * there are no more windows.
+     */
+    private boolean submit() {
+        long start = submitted * windowSize;
+        if (start >= records) {
+            return false;
+        }
+        long end = Math.min(records, start + windowSize);
+        pending.add(executor.submit(() -> read(start, end)));
+        submitted++;
+        return true;
+    }
+
+    /**
+     * Returns the number of windows held or being read, the window
+     * being consumed included.
+     */
+    int windows() {
+        return pending.size() + (window == null ? 0 : 1);
+    }
+
+    private Window take() throws IOException {
+        try {
+            return pending.remove().get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static final class Window {
+        final long start;
+        final long end;
+        final byte[] data;
+        final int[] offsets;
+
+        Window(long start, long end, byte[] data, int[] offsets) {
+            this.start = start;
+            this.end = end;
+            this.data = data;
+            this.offsets = offsets;
+        }
+    }
+
+    private Window read(long start, long end) throws IOException {
+        int n = (int) (end - start);
+        long[] indices = new long[n];
+        for (int i = 0; i < n; i++) {
+            long index = f.applyAsLong(start + i);
+            if (index < 0 || index >= records) {
+                throw new IllegalArgumentException(
+                        "f(" + (start + i) + ") = " + index + " is outside of " +
+                                "{0,1,...," + (records - 1) + "}");
+            }
+            indices[i] = index;
+        }
+        long[] sorted = indices.clone();
+        Arrays.sort(sorted);
+
+        int[] offsets = new int[n];
+        for (int i = 0; i < n; i++) {
+            offsets[i] = Arrays.binarySearch(sorted, indices[i]) * recordSize;
+        }
+
+        byte[] data = new byte[n * recordSize];
+        ByteBuffer buffer = ByteBuffer.allocate(
+                Math.max(recordSize, MAX_READ_SIZE / recordSize * recordSize));
+        long maxRun = buffer.capacity() / recordSize;
+        long maxGap = MAX_GAP_SIZE / recordSize;
+        for (int from = 0; from < n; ) {
+            int to = from + 1;
+            while (to < n
+                    && sorted[to] - sorted[from] < maxRun
+                    && sorted[to] - sorted[to - 1] - 1 <= maxGap) {
+                to++;
+            }
+            long first = sorted[from];
+            // Casts to Buffer, as Java 8 does not have the ByteBuffer overrides
+            // that calls link to when compiled on a later JDK
+            ((Buffer) buffer).clear().limit((int) ((sorted[to - 1] - first + 1) * recordSize));
+            long filePosition = first * recordSize;
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, filePosition);
+                if (read < 0) {
+                    throw new IOException("unexpected end of file");
+                }
+                filePosition += read;
+            }
+            byte[] array = buffer.array();
+            for (int i = from; i < to; i++) {
+                System.arraycopy(array, (int) ((sorted[i] - first) * recordSize),
+                        data, i * recordSize, recordSize);
+            }
+            from = to;
+        }
+        return new Window(start, end, data, offsets);
+    }
+
+    @Override
+    public void close() throws IOException {
+        executor.shutdownNow();
+        channel.close();
+    }
+
+    @Override
+    public String toString() {
+        return "ShuffledReader{" +
+                "position=" + position +
+                ", records=" + records +
+                '}';
+    }
+}
@@ -0,0 +1,130 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static feistel.Constraints.requireNonNegative;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Generates unique IDs by applying a Feistel to a counter. As the Feistel
+ * is a bijection, no ID is ever repeated while the counter does not
+ * repeat, and the IDs do not reveal the order they were generated in.
+ * <p>
+ * The counter is shared by all threads, but each thread claims a block
+ * of {@code blockSize} counter values at a time and generates IDs from its
+ * own block without synchronization, so the shared counter is only
+ * updated once every {@code blockSize} IDs. IDs are therefore not
+ * generated in counter order across threads, and the values left in
+ * the block of a thread that stops generating IDs are never used.
+ * <p>
+ * Once every counter value below the end has been claimed, and the
+ * block of the calling thread has been used up, {@link #next()} throws
+ * {@link IllegalStateException}. To continue generating IDs after a
+ * restart without repeating any, persist {@link #claimed()} and use it
+ * as the start of the next generator.
+ * <p>
+ * Instances are thread safe if the Feistel is.
+ *
+ * @see Feistel#uniqueIds(Isomorphism.OfLong, long, long, int)
+ */
+public final class UniqueIdGenerator {
+
+    private static final class Block {
+        long next;
+        long end;
+    }
+
+    private final Isomorphism.OfLong feistel;
+    private final long end;
+    private final int blockSize;
+    private final AtomicLong counter;
+    private final ThreadLocal<Block> blocks = ThreadLocal.withInitial(Block::new);
+
+    private UniqueIdGenerator(
+            Isomorphism.OfLong feistel,
+            long start,
+            long end,
+            int blockSize
+    ) {
+        this.feistel = feistel;
+        this.end = end;
+        this.blockSize = blockSize;
+        this.counter = new AtomicLong(start);
+    }
+
+    static UniqueIdGenerator of(
+            Isomorphism.OfLong feistel,
+            long start,
+            long end,
+            int blockSize
+    ) {
+        requireNonNull(feistel, "feistel cannot be null");
+        requireNonNegative(start, "start");
+        requireNonNegative(end, "end");
+        if (start > end) {
+            throw new IllegalArgumentException(
+                    "start (" + start + ") cannot be greater than " +
+                            "end (" + end + ")");
+        }
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException(
+                    "blockSize must be positive: " + blockSize);
+        }
+        return new UniqueIdGenerator(feistel, start, end, blockSize);
+    }
+
+    /**
+     * Returns the next ID.
+     *
+     * @throws IllegalStateException if all counter values have been used
+     */
+    public long next() {
+        Block block = blocks.get();
+        if (block.next == block.end) {
+            claim(block);
+        }
+        return feistel.applyAsLong(block.next++);
+    }
+
+    private void claim(Block block) {
+        long start;
+        long blockEnd;
+        do {
+            start = counter.get();
+            if (start >= end) {
+                throw new IllegalStateException(
+                        "all IDs below counter " + end + " have been used");
+            }
+            blockEnd = start + Math.min(blockSize, end - start);
+        } while (!counter.compareAndSet(start, blockEnd));
+        block.next = start;
+        block.end = blockEnd;
+    }
+
+    /**
+     * Returns the counter value below which every value has been claimed
+     * by a thread, a generator starting from this value will not repeat
+     * any ID generated by this generator.
+     */
+    public long claimed() {
+        return counter.get();
+    }
+
+    /**
+     * Returns the end of the counter, exclusive.
+     */
+    public long end() {
+        return end;
+    }
+
+    @Override
+    public String toString() {
+        return "UniqueIdGenerator{" +
+                "claimed=" + claimed() +
+                ", end=" + end +
+                ", blockSize=" + blockSize +
+                '}';
+    }
+}
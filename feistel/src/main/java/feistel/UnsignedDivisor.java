@@ -0,0 +1,102 @@
+package feistel;
+
+import java.math.BigInteger;
+
+import static java.math.BigInteger.ONE;
+
+/**
+ * Division of unsigned 128-bit values by a fixed unsigned 64-bit divisor
+ * using a precomputed reciprocal, as described in <em>Improved division by
+ * invariant integers</em> by Niels Möller and Torbjörn Granlund.
+ * <p>
+ * The divisor is shifted left until its highest bit is set, and the
+ * reciprocal is {@code floor((2^128 - 1) / d) - 2^64} of the shifted
+ * divisor {@code d}. The quotient is then estimated with one 64x64 to
+ * 128-bit multiplication and corrected at most twice, replacing a
+ * 128-bit by 64-bit long division, which Java has no operator for.
+ */
+final class UnsignedDivisor {
+
+    private final long divisor;
+    private final int shift;
+    private final long normalized;
+    private final long reciprocal;
+
+    UnsignedDivisor(long divisor) {
+        if (divisor == 0) {
+            throw new IllegalArgumentException("divisor cannot be zero");
+        }
+        this.divisor = divisor;
+        this.shift = Long.numberOfLeadingZeros(divisor);
+        this.normalized = divisor << shift;
+        this.reciprocal = ONE.shiftLeft(128).subtract(ONE)
+                .divide(new BigInteger(Long.toUnsignedString(normalized)))
+                .longValue();
+    }
+
+    /**
+     * Returns the quotient of {@code hi * 2^64 + lo} divided by the
+     * divisor, {@code hi} must be less than the divisor, both unsigned,
+     * so that the quotient fits in 64 bits. The remainder is
+     * {@code lo - quotient * divisor}.
+     */
+    long divide(long hi, long lo) {
+        long d = normalized;
+        long u1 = hi << shift | lo >>> 1 >>> (63 - shift);
+        long u0 = lo << shift;
+
+        long q0 = reciprocal * u1;
+        long q1 = UnsignedMath.multiplyHigh(reciprocal, u1);
+        long sum = q0 + u0;
+        q1 += u1 + 1 + (Long.compareUnsigned(sum, q0) < 0 ? 1 : 0);
+        q0 = sum;
+
+        long r = u0 - q1 * d;
+        if (Long.compareUnsigned(r, q0) > 0) {
+            q1--;
+            r += d;
+        }
+        if (Long.compareUnsigned(r, d) >= 0) {
+            q1++;
+        }
+        return q1;
+    }
+
+    /**
+     * Returns {@code x mod divisor} for a signed {@code x}, the same as
+     * {@link BigInteger#mod(BigInteger)}, the result is never negative.
+     */
+    long floorMod(long x) {
+        if (x >= 0) {
+            if (Long.compareUnsigned(x, divisor) < 0) {
+                return x;
+            }
+            return x - divide(0, x) * divisor;
+        }
+        long magnitude = -x;
+        long m = magnitude - divide(0, magnitude) * divisor;
+        return m == 0 ? 0 : divisor - m;
+    }
+
+    /**
+     * Returns {@code (x + y) mod divisor}, {@code x} must be less than
+     * the divisor, unsigned.
+     */
+    long addMod(long x, long y) {
+        long sum = x + floorMod(y);
+        if (Long.compareUnsigned(sum, x) < 0 ||
+                Long.compareUnsigned(sum, divisor) >= 0) {
+            sum -= divisor;
+        }
+        return sum;
+    }
+
+    /**
+     * Returns {@code (x - y) mod divisor}, {@code x} must be less than
+     * the divisor, unsigned.
+     */
+    long subtractMod(long x, long y) {
+        long z = floorMod(y);
+        return Long.compareUnsigned(x, z) >= 0 ? x - z : x - z + divisor;
+    }
+}
@@ -0,0 +1,31 @@
+package feistel;
+
+/**
+ * Unsigned 128-bit arithmetic helpers.
+ * <p>
+ * This version computes the high half of a product from 32-bit halves,
+ * on Java 11 and later, the version in {@code src/main/java11} replaces it
+ * from the multi-release section of the jar, and uses the intrinsic
+ * {@code Math.multiplyHigh} instead.
+ */
+final class UnsignedMath {
+    private UnsignedMath() {
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of
+     * {@code x} and {@code y}, the low 64 bits being {@code x * y}.
+     */
+    static long multiplyHigh(long x, long y) {
+        long x0 = x & 0xffff_ffffL;
+        long x1 = x >>> 32;
+        long y0 = y & 0xffff_ffffL;
+        long y1 = y >>> 32;
+        long p01 = x0 * y1;
+        long p10 = x1 * y0;
+        long middle = ((x0 * y0) >>> 32)
+                + (p01 & 0xffff_ffffL)
+                + (p10 & 0xffff_ffffL);
+        return x1 * y1 + (p01 >>> 32) + (p10 >>> 32) + (middle >>> 32);
+    }
+}
@@ -0,0 +1,57 @@
+package feistel;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * A fixed size bit set that can be set concurrently, keeping the bits
+ * off the heap in direct buffers of at most 2<sup>30</sup> bytes,
+ * replacing the Java 8 version that keeps them on the heap. The direct
+ * memory is limited by {@code -XX:MaxDirectMemorySize}, which defaults
+ * to the maximum heap size.
+ */
+final class AtomicBits {
+
+    private static final int WORD_BITS = 27;
+    private static final int WORD_MASK = (1 << WORD_BITS) - 1;
+    private static final VarHandle WORDS = MethodHandles.byteBufferViewVarHandle(
+            long[].class, ByteOrder.nativeOrder());
+
+    private final ByteBuffer[] segments;
+
+    AtomicBits(long size) {
+        long words = (size + Long.SIZE - 1) >>> 6;
+        int count = (int) ((words + WORD_MASK) >>> WORD_BITS);
+        segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long remaining = words - ((long) i << WORD_BITS);
+            int bytes = (int) Math.min(remaining, 1 << WORD_BITS) * Long.BYTES;
+            segments[i] = ByteBuffer.allocateDirect(bytes);
+        }
+    }
+
+    /**
+     * Reads the word of the bit with a plain read, to bring it into the
+     * cache ahead of {@link #set(long)}. Unlike the atomic update in
+     * {@link #set(long)}, plain reads of different words can wait for
+     * memory at the same time.
+     */
+    long touch(long index) {
+        long word = index >>> 6;
+        ByteBuffer segment = segments[(int) (word >>> WORD_BITS)];
+        return (long) WORDS.get(segment, ((int) word & WORD_MASK) * Long.BYTES);
+    }
+
+    /**
+     * Sets the bit, returning true if it was not already set.
+     */
+    boolean set(long index) {
+        long word = index >>> 6;
+        ByteBuffer segment = segments[(int) (word >>> WORD_BITS)];
+        int offset = ((int) word & WORD_MASK) * Long.BYTES;
+        long bit = 1L << index;
+        return ((long) WORDS.getAndBitwiseOr(segment, offset, bit) & bit) == 0;
+    }
+}
@@ -0,0 +1,122 @@
+package feistel;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Records JDK Flight Recorder events, replacing the Java 8 version that
+ * does nothing. Duration events have a default threshold, so a recording
+ * with the default settings only commits the slow ones, and the others
+ * only cost an allocation that is usually optimized away.
+ */
+final class Events {
+    private Events() {
+    }
+
+    @Name("feistel.BulkApply")
+    @Label("Bulk Apply")
+    @Category("Feistel")
+    @Description("A Feistel applied to many values at once")
+    @Threshold("1 ms")
+    @StackTrace(false)
+    static final class BulkApplyEvent extends Event {
+
+        @Label("Kernel")
+        String kernel;
+
+        @Label("Size")
+        long size;
+    }
+
+    @Name("feistel.CycleWalk")
+    @Label("Long Cycle Walk")
+    @Category("Feistel")
+    @Description("A cycle walk that took more than the expected number of walks")
+    static final class CycleWalkEvent extends Event {
+
+        @Label("Domain Size")
+        long size;
+
+        @Label("Walks")
+        int walks;
+    }
+
+    @Name("feistel.Build")
+    @Label("Build")
+    @Category("Feistel")
+    @Description("Building or loading a Feistel or its tables")
+    @Threshold("1 ms")
+    static final class BuildEvent extends Event {
+
+        @Label("Kind")
+        String kind;
+    }
+
+    @Name("feistel.CacheEvictions")
+    @Label("Cache Evictions")
+    @Category("Feistel")
+    @Description("A batch of evictions from a cache segment")
+    @StackTrace(false)
+    static final class CacheEvictionsEvent extends Event {
+
+        @Label("Segment Capacity")
+        int capacity;
+
+        @Label("Evictions")
+        int count;
+    }
+
+    static Object beginBulk() {
+        BulkApplyEvent event = new BulkApplyEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endBulk(Object event, String kernel, long size) {
+        BulkApplyEvent e = (BulkApplyEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.kernel = kernel;
+            e.size = size;
+            e.commit();
+        }
+    }
+
+    static void cycleWalk(long size, int walks) {
+        CycleWalkEvent event = new CycleWalkEvent();
+        if (event.shouldCommit()) {
+            event.size = size;
+            event.walks = walks;
+            event.commit();
+        }
+    }
+
+    static Object beginBuild() {
+        BuildEvent event = new BuildEvent();
+        event.begin();
+        return event;
+    }
+
+    static void endBuild(Object event, String kind) {
+        BuildEvent e = (BuildEvent) event;
+        e.end();
+        if (e.shouldCommit()) {
+            e.kind = kind;
+            e.commit();
+        }
+    }
+
+    static void cacheEvictions(int capacity, int count) {
+        CacheEvictionsEvent event = new CacheEvictionsEvent();
+        if (event.shouldCommit()) {
+            event.capacity = capacity;
+            event.count = count;
+            event.commit();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package feistel;
+
+/**
+ * Unsigned 128-bit arithmetic helpers, replacing the Java 8 version
+ * with one that uses the intrinsic {@link Math#multiplyHigh(long, long)}.
+ */
+final class UnsignedMath {
+    private UnsignedMath() {
+    }
+
+    /**
+     * Returns the high 64 bits of the unsigned 128-bit product of
+     * {@code x} and {@code y}, the low 64 bits being {@code x * y}.
+     */
+    static long multiplyHigh(long x, long y) {
+        // Corrects the signed product for the operands with the sign bit set
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+}
@@ -0,0 +1,91 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static feistel.BijectionCheck.Failure.Kind.COLLISION;
+import static feistel.BijectionCheck.Failure.Kind.INVERSE_MISMATCH;
+import static feistel.BijectionCheck.Failure.Kind.OUT_OF_RANGE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class BijectionCheckTest extends BaseTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 6, 63, 64, 65, 100_000, 1 << 22})
+    void acceptsBijections(int size) {
+        Isomorphism.OfLong f = Feistel.spec(size, 8, size).feistel();
+        BijectionCheck check = Feistel.checkBijection(f, size);
+        assertTrue(check.isBijection(), check::toString);
+        assertFalse(check.failure().isPresent());
+        assertEquals(size, check.size());
+    }
+
+    @Test
+    void acceptsEmptyDomain() {
+        assertTrue(Feistel.checkBijection(
+                Isomorphism.OfLong.of(x -> -1, x -> -1), 0).isBijection());
+    }
+
+    @Test
+    void acceptsBinaryFeistelOver24Bits() {
+        Isomorphism.OfLong f = Feistel.ofLongBinary(24, 12, 12, 4,
+                (round, value) -> value * 0x9e37_79b9_7f4a_7c15L >>> 40);
+        assertTrue(Feistel.checkBijection(f, 1 << 24).isBijection());
+    }
+
+    @Test
+    void reportsFirstOutOfRange() {
+        Isomorphism.OfLong f = Isomorphism.OfLong.of(
+                x -> x == 300_000 || x == 700_000 ? -1 : x, x -> x);
+        BijectionCheck.Failure failure =
+                Feistel.checkBijection(f, 1_000_000).failure().get();
+        assertEquals(OUT_OF_RANGE, failure.kind());
+        assertEquals(300_000, failure.input());
+        assertEquals(-1, failure.output());
+    }
+
+    @Test
+    void reportsFirstInverseMismatch() {
+        Isomorphism.OfLong f = Isomorphism.OfLong.of(
+                x -> x, y -> y % 100_000 == 99_999 && y > 0 ? 0 : y);
+        BijectionCheck.Failure failure =
+                Feistel.checkBijection(f, 1_000_000).failure().get();
+        assertEquals(INVERSE_MISMATCH, failure.kind());
+        assertEquals(99_999, failure.input());
+        assertEquals(99_999, failure.output());
+        assertEquals(0, failure.inverse());
+    }
+
+    @Test
+    void reportsCollision() {
+        Isomorphism.OfLong f = Isomorphism.OfLong.of(
+                x -> x == 500_001 ? 500_000 : x, y -> y);
+        BijectionCheck.Failure failure =
+                Feistel.checkBijection(f, 1_000_000).failure().get();
+        assertEquals(COLLISION, failure.kind());
+        assertEquals(500_001, failure.input());
+        assertEquals(500_000, failure.output());
+        assertEquals(500_000, failure.inverse());
+    }
+
+    @Test
+    void reportsFailureWithSmallestInput() {
+        Isomorphism.OfLong f = Isomorphism.OfLong.of(x -> x / 2 * 2, y -> y);
+        BijectionCheck check = Feistel.checkBijection(f, 1 << 20);
+        assertFalse(check.isBijection());
+        assertEquals(1, check.failure().get().input());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.checkBijection(Isomorphism.OfLong.of(x -> x, x -> x), -1));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.checkBijection(null, 1));
+    }
+}
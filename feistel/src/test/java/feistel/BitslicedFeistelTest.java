@@ -0,0 +1,184 @@
+package feistel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static feistel.BitslicedFeistel.Circuit.CHI;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class BitslicedFeistelTest extends BaseTest {
+
+    private static Stream<Arguments> params() {
+        return IntStream.rangeClosed(0, 16).boxed().flatMap(totalBits ->
+                IntStream.of(0, 1, 4, 7, 8).boxed().flatMap(rounds ->
+                        Stream.of(BitslicedFeistel.Circuit.values()).map(circuit ->
+                                Arguments.of(totalBits, rounds, circuit))));
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void isPermutationSameAsScalar(
+            int totalBits,
+            int rounds,
+            BitslicedFeistel.Circuit circuit
+    ) {
+        long key = 0x1234_5678_9abc_def0L ^ totalBits;
+        BitslicedFeistel feistel =
+                Feistel.ofBitsliced(totalBits, rounds, circuit, key);
+
+        long[] input = LongStream.range(0, 1L << totalBits).toArray();
+        long[] output = input.clone();
+        feistel.apply(output);
+
+        for (int i = 0; i < input.length; i++) {
+            assertEquals(scalar(input[i], totalBits, rounds, circuit, key, false),
+                    output[i]);
+        }
+
+        long[] inverse = output.clone();
+        feistel.inverse().apply(inverse);
+        assertArrayEquals(input, inverse);
+
+        long[] sorted = output.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(input, sorted);
+    }
+
+    private static long scalar(
+            long x,
+            int totalBits,
+            int rounds,
+            BitslicedFeistel.Circuit circuit,
+            long key,
+            boolean inverse
+    ) {
+        int rightBits = totalBits / 2;
+        int leftBits = totalBits - rightBits;
+        long right = x & ((1L << rightBits) - 1);
+        long left = x >>> rightBits;
+
+        long[] roundKeys = new long[rounds];
+        for (int i = 0; i < rounds; i++) {
+            long z = key + (i + 1) * 0x9e37_79b9_7f4a_7c15L;
+            z = (z ^ (z >>> 30)) * 0xbf58_476d_1ce4_e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d0_49bb_1331_11ebL;
+            roundKeys[i] = z ^ (z >>> 31);
+        }
+
+        for (int i = 0; i < rounds; i++) {
+            int round = inverse ? rounds - i - 1 : i;
+            if (round % 2 == 0) {
+                left ^= f(right, rightBits, leftBits, roundKeys[round], circuit);
+            } else {
+                right ^= f(left, leftBits, rightBits, roundKeys[round], circuit);
+            }
+        }
+        return (left << rightBits) | right;
+    }
+
+    private static long f(
+            long x,
+            int inputBits,
+            int outputBits,
+            long key,
+            BitslicedFeistel.Circuit circuit
+    ) {
+        long u = x ^ key;
+        long y = (key >>> 32) & ((1L << outputBits) - 1);
+        if (inputBits == 0) {
+            return y;
+        }
+        for (int j = 0; j < outputBits; j++) {
+            long u0 = u >>> (j % inputBits) & 1;
+            long u1 = u >>> ((j + 1) % inputBits) & 1;
+            long u2 = u >>> ((j + 2) % inputBits) & 1;
+            long bit = circuit == CHI
+                    ? u0 ^ (~u1 & 1 & u2)
+                    : u0 ^ (u1 & u2);
+            y ^= bit << j;
+        }
+        return y;
+    }
+
+    @Test
+    void toPlanesTransposesValues() {
+        Random random = new Random(0);
+        long[] values = new long[64];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(1 << 16);
+        }
+        long[] planes = values.clone();
+        BitslicedFeistel.toPlanes(planes);
+        for (int i = 0; i < 64; i++) {
+            for (int j = 0; j < 16; j++) {
+                assertEquals(values[i] >>> j & 1, planes[j] >>> i & 1);
+            }
+        }
+        BitslicedFeistel.fromPlanes(planes);
+        assertArrayEquals(values, planes);
+    }
+
+    @Test
+    void intAndLongAndRangesAgree() {
+        BitslicedFeistel feistel = Feistel.ofBitsliced(12, 8, CHI, 42);
+        long[] longs = LongStream.range(0, 1000).map(i -> i * 3).toArray();
+        int[] ints = LongStream.of(longs).mapToInt(i -> (int) i).toArray();
+
+        long[] expected = longs.clone();
+        feistel.apply(expected);
+
+        feistel.apply(ints);
+        assertArrayEquals(expected, IntStream.of(ints).asLongStream().toArray());
+
+        long[] dest = new long[1010];
+        feistel.apply(longs, 100, dest, 5, 333);
+        assertArrayEquals(
+                Arrays.copyOfRange(expected, 100, 433),
+                Arrays.copyOfRange(dest, 5, 338));
+
+        for (int shift : new int[]{1, 10, 64, 100}) {
+            long[] forward = longs.clone();
+            feistel.apply(forward, 0, forward, shift, 500);
+            assertArrayEquals(
+                    Arrays.copyOfRange(expected, 0, 500),
+                    Arrays.copyOfRange(forward, shift, shift + 500));
+
+            long[] backward = longs.clone();
+            feistel.apply(backward, shift, backward, 0, 500);
+            assertArrayEquals(
+                    Arrays.copyOfRange(expected, shift, shift + 500),
+                    Arrays.copyOfRange(backward, 0, 500));
+
+            int[] overlappingInts = LongStream.of(longs).mapToInt(i -> (int) i).toArray();
+            feistel.apply(overlappingInts, 0, overlappingInts, shift, 500);
+            assertArrayEquals(
+                    Arrays.copyOfRange(expected, 0, 500),
+                    IntStream.of(overlappingInts).skip(shift).limit(500).asLongStream().toArray());
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        BitslicedFeistel feistel = Feistel.ofBitsliced(8, 8, CHI, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> feistel.apply(new long[]{1, 256}));
+        assertThrows(IllegalArgumentException.class,
+                () -> feistel.apply(new int[]{-1}));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> feistel.apply(new long[2], 1, new long[2], 0, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofBitsliced(17, 8, CHI, 0));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.ofBitsliced(8, 8, null, 0));
+    }
+}
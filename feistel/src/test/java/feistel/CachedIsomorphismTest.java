@@ -0,0 +1,136 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class CachedIsomorphismTest extends BaseTest {
+
+    private static final RoundFunction.OfLong longF =
+            (round, value) -> (value * 31) + round;
+
+    private static final RoundFunction<BigInteger> bigF = (round, value) ->
+            value.multiply(BigInteger.valueOf(31))
+                    .add(BigInteger.valueOf(round));
+
+    @Test
+    void returnsSameResultsAsDelegate() {
+        Isomorphism<BigInteger, BigInteger> feistel =
+                Feistel.ofBigIntegerBinary(20, 10, 10, 7, bigF);
+        CachedIsomorphism<BigInteger> cached = Feistel.cache(feistel, 100);
+        for (int pass = 0; pass < 2; pass++) {
+            for (long i = 0; i < 1000; i += 3) {
+                BigInteger input = BigInteger.valueOf(i);
+                BigInteger output = feistel.apply(input);
+                assertEquals(output, cached.apply(input));
+                assertEquals(input, cached.inverse().apply(output));
+            }
+        }
+    }
+
+    @Test
+    void cachesBothDirections() {
+        AtomicInteger calls = new AtomicInteger();
+        Isomorphism.OfLong feistel = Feistel.ofLongBinary(32, 16, 16, 7, longF);
+        Isomorphism.OfLong counting = Isomorphism.OfLong.of(x -> {
+            calls.incrementAndGet();
+            return feistel.applyAsLong(x);
+        }, y -> {
+            calls.incrementAndGet();
+            return feistel.inverse().applyAsLong(y);
+        });
+
+        CachedIsomorphism.OfLong cached = Feistel.cache(counting, 100);
+        long output = cached.applyAsLong(42);
+        assertEquals(1, calls.get());
+        assertEquals(output, cached.applyAsLong(42));
+        assertEquals(42, cached.inverse().applyAsLong(output));
+        assertEquals(1, calls.get());
+
+        CacheStats stats = cached.stats();
+        assertEquals(2, stats.hitCount());
+        assertEquals(1, stats.missCount());
+        assertEquals(0, stats.evictionCount());
+        assertEquals(2.0 / 3, stats.hitRate(), 1e-9);
+    }
+
+    @Test
+    void frequentlyUsedResultsSurviveScan() {
+        Isomorphism.OfLong feistel = Feistel.ofLongNumeric(1000, 1000, 7, longF);
+        CachedIsomorphism.OfLong cached = Feistel.cache(feistel, 100);
+        for (int pass = 0; pass < 5; pass++) {
+            LongStream.range(0, 50).forEach(cached::applyAsLong);
+        }
+
+        long hits = 0;
+        for (long scan = 1000; scan < 100_000; scan += 500) {
+            LongStream.range(scan, scan + 500).forEach(cached::applyAsLong);
+            CacheStats before = cached.stats();
+            LongStream.range(0, 50).forEach(cached::applyAsLong);
+            hits += cached.stats().hitCount() - before.hitCount();
+        }
+        assertTrue(hits > 0.8 * 50 * 198, "hits=" + hits);
+    }
+
+    @Test
+    void isBoundedAndCountsEvictions() {
+        AtomicInteger calls = new AtomicInteger();
+        Isomorphism.OfLong feistel = Feistel.ofLongNumeric(1000, 1000, 7, longF);
+        Isomorphism.OfLong counting = Isomorphism.OfLong.of(x -> {
+            calls.incrementAndGet();
+            return feistel.applyAsLong(x);
+        }, feistel.inverse());
+
+        CachedIsomorphism.OfLong cached = Feistel.cache(counting, 64);
+        for (int pass = 0; pass < 3; pass++) {
+            LongStream.range(0, 1000).forEach(cached::applyAsLong);
+        }
+        assertTrue(calls.get() > 2 * 1000, () -> "calls=" + calls);
+        assertTrue(cached.stats().evictionCount() > 0);
+        assertTrue(cached.stats().hitCount() <= 2 * 64 * 3,
+                () -> cached.stats().toString());
+    }
+
+    @Test
+    void zeroMaximumSizeCachesNothing() {
+        Isomorphism.OfLong feistel = Feistel.ofLongBinary(16, 8, 8, 7, longF);
+        CachedIsomorphism.OfLong cached = Feistel.cache(feistel, 0);
+        for (long i = 0; i < 100; i++) {
+            assertEquals(feistel.applyAsLong(i), cached.applyAsLong(i));
+            assertEquals(feistel.applyAsLong(i), cached.applyAsLong(i));
+        }
+        assertEquals(0, cached.stats().hitCount());
+    }
+
+    @Test
+    void isConsistentWhenUsedConcurrently() {
+        Isomorphism.OfLong feistel = Feistel.ofLongNumeric(1000, 1000, 7, longF);
+        CachedIsomorphism.OfLong cached = Feistel.cache(feistel, 10_000);
+        LongStream.range(0, 1_000_000).parallel().forEach(i -> {
+            long input = i % 20_000;
+            long output = cached.applyAsLong(input);
+            assertEquals(feistel.applyAsLong(input), output);
+            assertEquals(input, cached.inverse().applyAsLong(output));
+        });
+        CacheStats stats = cached.stats();
+        assertEquals(2_000_000, stats.requestCount());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        Isomorphism.OfLong feistel = Feistel.ofLongBinary(16, 8, 8, 7, longF);
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.cache(feistel, -1));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.cache((Isomorphism.OfLong) null, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.cache(feistel, 1).applyAsLong(1 << 16));
+    }
+}
@@ -0,0 +1,165 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class ChunkProducerTest extends BaseTest {
+
+    private static Stream<Arguments> params() {
+        return Stream.of(
+                Arguments.of(0, 1, 1),
+                Arguments.of(1, 1, 1),
+                Arguments.of(10, 3, 1),
+                Arguments.of(1000, 64, 2),
+                Arguments.of(1000, 1000, 4),
+                Arguments.of(1000, 4096, 4),
+                Arguments.of(10_007, 100, 3)
+        );
+    }
+
+    private static long[] expected(Isomorphism.OfLong f, long size) {
+        return LongStream.range(0, size).map(f).toArray();
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void forEachProducesAllValuesInOrder(int size, int chunkSize, int capacity) {
+        Isomorphism.OfLong f = Feistel.spec(size, 8, size).feistel();
+        Isomorphism.OfInt g = Isomorphism.OfInt.of(
+                i -> (int) f.applyAsLong(i), i -> (int) f.inverse().applyAsLong(i));
+
+        long[] longs = new long[size];
+        int[] ints = new int[size];
+        List<long[]> arrays = new ArrayList<>();
+        Feistel.longChunks(f, size, chunkSize).forEach(chunk -> {
+            arrays.add(chunk.values());
+            assertTrue(chunk.length() <= chunkSize);
+            System.arraycopy(chunk.values(), 0,
+                    longs, (int) chunk.position(), chunk.length());
+            return true;
+        });
+        Feistel.intChunks(g, size, chunkSize).forEach(chunk -> {
+            System.arraycopy(chunk.values(), 0,
+                    ints, (int) chunk.position(), chunk.length());
+            return true;
+        });
+
+        long[] expected = expected(f, size);
+        assertArrayEquals(expected, longs);
+        assertArrayEquals(LongStream.of(expected).mapToInt(i -> (int) i).toArray(), ints);
+        for (long[] array : arrays) {
+            assertSame(arrays.get(0), array);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void queueProducesAllValuesInOrder(int size, int chunkSize, int capacity)
+            throws InterruptedException {
+        Isomorphism.OfLong f = Feistel.spec(size, 8, size).feistel();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ChunkProducer.Queue<long[]> queue =
+                    Feistel.longChunks(f, size, chunkSize).start(executor, capacity);
+            long[] values = new long[size];
+            int offset = 0;
+            for (ChunkProducer.Chunk<long[]> chunk;
+                 (chunk = queue.take()) != null; ) {
+                assertEquals(offset, chunk.position());
+                System.arraycopy(chunk.values(), 0, values, offset, chunk.length());
+                offset += chunk.length();
+                queue.release(chunk);
+            }
+            assertTrue(queue.isDone());
+            assertNull(queue.take());
+            assertNull(queue.poll());
+            assertArrayEquals(expected(f, size), values);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void sinkCanStop() {
+        int[] count = {0};
+        Feistel.longChunks(Feistel.spec(100, 8, 0).feistel(), 100, 10)
+                .forEach(chunk -> ++count[0] < 3);
+        assertEquals(3, count[0]);
+    }
+
+    @Test
+    void producerWaitsForRelease() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ChunkProducer.Queue<long[]> queue = Feistel
+                    .longChunks(Feistel.spec(100, 8, 0).feistel(), 100, 10)
+                    .start(executor, 2);
+            ChunkProducer.Chunk<long[]> first = queue.take();
+            ChunkProducer.Chunk<long[]> second = queue.take();
+            Thread.sleep(50);
+            assertNull(queue.poll());
+            assertTrue(!queue.isDone());
+
+            queue.release(first);
+            ChunkProducer.Chunk<long[]> third = queue.take();
+            assertSame(first, third);
+            assertEquals(20, third.position());
+
+            queue.cancel();
+            queue.release(second);
+            queue.release(third);
+            assertNull(queue.take());
+            assertTrue(queue.isDone());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void queueRethrowsProducerFailure() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ChunkProducer.Queue<long[]> queue = Feistel.longChunks(
+                    Feistel.ofLongBalanced(4, 1, (round, value) -> value), 100, 10)
+                    .start(executor, 2);
+            assertThrows(IllegalArgumentException.class, () -> {
+                for (ChunkProducer.Chunk<long[]> chunk;
+                     (chunk = queue.take()) != null; ) {
+                    queue.release(chunk);
+                }
+            });
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        Isomorphism.OfLong f = Feistel.spec(10, 8, 0).feistel();
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.longChunks(f, -1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.longChunks(f, 10, 0));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.longChunks(null, 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.longChunks(f, 10, 1).start(Runnable::run, 0));
+    }
+}
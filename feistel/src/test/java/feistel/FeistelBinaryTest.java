@@ -4,9 +4,11 @@ import com.carrotsearch.hppc.LongHashSet;
 import com.carrotsearch.hppc.LongSet;
 import isomorphic.Isomorphism;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigInteger;
+import java.util.Random;
 import java.util.function.Function;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -272,4 +274,42 @@ final class FeistelBinaryTest extends BaseTest {
                 .max(ONE);
     }
 
+    private static Stream<Arguments> unrolledParams() {
+        return IntStream.range(0, 10).boxed().flatMap(rounds ->
+                IntStream.of(2, 16, 32, 64).mapToObj(totalBits ->
+                        Arguments.of(rounds, totalBits)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("unrolledParams")
+    void balancedUnrolledIsSameAsBalanced(int rounds, int totalBits) {
+        RoundFunction.OfInt intF = (round, value) ->
+                (value * 0x9e3779b9) ^ (value >>> 7) + round;
+        RoundFunction.OfLong longF = (round, value) ->
+                intF.applyAsInt(round, (int) value);
+
+        Isomorphism.OfLong expected =
+                FeistelOfLongBinary.balanced(rounds, totalBits, longF);
+        Isomorphism.OfLong actual =
+                FeistelOfLongBinary.balancedUnrolled(rounds, totalBits, longF);
+        Isomorphism.OfInt actualInt = totalBits <= 32
+                ? FeistelOfIntBinary.balanced(rounds, totalBits, intF)
+                : null;
+
+        long mask = -1L >>> (64 - totalBits);
+        Random random = new Random(rounds * 100 + totalBits);
+        for (int i = 0; i < 10_000; i++) {
+            long x = random.nextLong() & mask;
+            assertEquals(expected.applyAsLong(x), actual.applyAsLong(x));
+            assertEquals(expected.inverse().applyAsLong(x),
+                    actual.inverse().applyAsLong(x));
+            if (actualInt != null) {
+                assertEquals((int) expected.applyAsLong(x),
+                        actualInt.applyAsInt((int) x));
+                assertEquals((int) expected.inverse().applyAsLong(x),
+                        actualInt.inverse().applyAsInt((int) x));
+            }
+        }
+    }
+
 }
@@ -0,0 +1,112 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class FeistelBlocksTest extends BaseTest {
+
+    private static final RoundFunction.OfLong F = (round, value) ->
+            (value ^ (round * 0x2545_f491_4f6c_dd1dL)) * 0x9e37_79b9_7f4a_7c15L;
+
+    private static Stream<Arguments> params() {
+        return IntStream.of(1, 7, 8, 64, 512).boxed().flatMap(blockSize ->
+                LongStream.of(0, 1, blockSize - 1, blockSize, blockSize + 1,
+                        10L * blockSize, 10L * blockSize + 3, 1000)
+                        .distinct()
+                        .mapToObj(size -> Arguments.of(size, blockSize)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void isPermutation(long size, int blockSize) {
+        Isomorphism.OfLong f = Feistel.ofLongBlocks(size, blockSize, 4, F);
+        long[] input = LongStream.range(0, size).toArray();
+        long[] output = LongStream.of(input).map(f).toArray();
+        assertArrayEquals(input, LongStream.of(output).map(f.inverse()).toArray());
+        Arrays.sort(output);
+        assertArrayEquals(input, output);
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void keepsBlocksTogether(long size, int blockSize) {
+        Isomorphism.OfLong f = Feistel.ofLongBlocks(size, blockSize, 4, F);
+        for (long x = 0; x < size; x++) {
+            long block = x / blockSize;
+            long first = f.applyAsLong(block * blockSize);
+            assertEquals(first / blockSize, f.applyAsLong(x) / blockSize);
+        }
+    }
+
+    @Test
+    void shufflesBlocksAndWithinBlocks() {
+        int blockSize = 64;
+        Isomorphism.OfLong f = Feistel.ofLongBlocks(1 << 16, blockSize, 4, F);
+        long[] blocks = LongStream.range(0, 1 << 10)
+                .map(block -> f.applyAsLong(block * blockSize) / blockSize)
+                .toArray();
+        assertNotEquals(0, LongStream.range(0, blocks.length)
+                .filter(i -> blocks[(int) i] != i)
+                .count());
+
+        long[] first = LongStream.range(0, blockSize)
+                .map(x -> f.applyAsLong(x) % blockSize)
+                .toArray();
+        long[] second = LongStream.range(blockSize, 2 * blockSize)
+                .map(x -> f.applyAsLong(x) % blockSize)
+                .toArray();
+        assertNotEquals(Arrays.toString(first), Arrays.toString(second));
+        assertNotEquals(Arrays.toString(LongStream.range(0, blockSize).toArray()),
+                Arrays.toString(first));
+    }
+
+    @Test
+    void shufflesEachBlockDifferently() {
+        // Orders that are rotations of each other normalize to the same order,
+        // the low bits of F only depend on the low bits of the block key, so
+        // use a round function that mixes all bits of its input
+        int blockSize = 64;
+        Isomorphism.OfLong f = Feistel.ofLongBlocks(1 << 16, blockSize, 4,
+                (round, value) -> KeySchedule.mix(value + round * KeySchedule.GOLDEN_GAMMA));
+        assertEquals(256, LongStream.range(0, 256)
+                .mapToObj(block -> {
+                    long[] order = LongStream.range(0, blockSize)
+                            .map(x -> f.applyAsLong(block * blockSize + x) % blockSize)
+                            .toArray();
+                    return Arrays.toString(Arrays.stream(order)
+                            .map(x -> Math.floorMod(x - order[0], blockSize))
+                            .toArray());
+                })
+                .distinct()
+                .count());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofLongBlocks(-1, 8, 4, F));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofLongBlocks(100, 0, 4, F));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofLongBlocks(100, 8, -1, F));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.ofLongBlocks(100, 8, 4, null));
+
+        Isomorphism.OfLong f = Feistel.ofLongBlocks(100, 8, 4, F);
+        assertThrows(IllegalArgumentException.class, () -> f.applyAsLong(100));
+        assertThrows(IllegalArgumentException.class, () -> f.inverse().applyAsLong(-1));
+    }
+}
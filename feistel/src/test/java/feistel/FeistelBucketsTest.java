@@ -0,0 +1,120 @@
+package feistel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelBucketsTest extends BaseTest {
+
+    private static final RoundFunction.OfLong F = (round, value) ->
+            ((value ^ round) * 0x9e37_79b9_7f4a_7c15L) >>> 16;
+
+    private static Stream<Arguments> params() {
+        return Stream.of(
+                new long[]{1, 1},
+                new long[]{37, 41},
+                new long[]{100, 100},
+                new long[]{3, 500}
+        ).flatMap(ab -> IntStream.of(1, 2, 3, 7, 16, 2000).mapToObj(buckets ->
+                Arguments.of(ab[0], ab[1], buckets)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void bucketSizesAreExactlyBalanced(long a, long b, int buckets) {
+        FeistelBuckets feistel = Feistel.buckets(a, b, buckets, 7, F);
+        long[] counts = new long[buckets];
+        for (long id = 0; id < feistel.size(); id++) {
+            counts[feistel.bucket(id)]++;
+        }
+        long total = 0;
+        for (int j = 0; j < buckets; j++) {
+            assertEquals(feistel.bucketSize(j), counts[j]);
+            assertTrue(counts[j] == feistel.size() / buckets ||
+                    counts[j] == feistel.size() / buckets + 1);
+            total += counts[j];
+        }
+        assertEquals(a * b, total);
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void membersAreIdsOfBucket(long a, long b, int buckets) {
+        FeistelBuckets feistel = Feistel.buckets(a, b, buckets, 7, F);
+        for (int j = 0; j < buckets; j++) {
+            int bucket = j;
+            long[] members = feistel.members(bucket).toArray();
+            for (int i = 0; i < members.length; i++) {
+                assertEquals(feistel.member(bucket, i), members[i]);
+            }
+            Arrays.sort(members);
+            long[] expected = LongStream.range(0, feistel.size())
+                    .filter(id -> feistel.bucket(id) == bucket)
+                    .toArray();
+            assertArrayEquals(expected, members);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void assignAllIsSameAsBucket(long a, long b, int buckets) {
+        FeistelBuckets feistel = Feistel.buckets(a, b, buckets, 7, F);
+        long[] ids = LongStream.range(0, feistel.size()).toArray();
+        int[] output = new int[ids.length];
+        feistel.assignAll(ids, output);
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(feistel.bucket(ids[i]), output[i]);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void reassignAllIsSameAsWithBuckets(long a, long b, int buckets) {
+        FeistelBuckets feistel = Feistel.buckets(a, b, buckets, 7, F);
+        long[] ids = LongStream.range(0, feistel.size()).toArray();
+        int[] counts = {buckets, buckets * 2, 5, 1};
+        int[][] output = new int[counts.length][ids.length];
+        feistel.reassignAll(ids, counts, output);
+        for (int j = 0; j < counts.length; j++) {
+            FeistelBuckets other = feistel.withBuckets(counts[j]);
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(other.bucket(ids[i]), output[j][i]);
+            }
+        }
+        for (int i = 0; i < ids.length; i++) {
+            assertEquals(output[0][i], output[1][i] % buckets);
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        FeistelBuckets feistel = Feistel.buckets(10, 10, 4, 7, F);
+        assertThrows(IllegalArgumentException.class, () -> feistel.bucket(100));
+        assertThrows(IllegalArgumentException.class, () -> feistel.bucket(-1));
+        assertThrows(IllegalArgumentException.class, () -> feistel.bucketSize(4));
+        assertThrows(IllegalArgumentException.class, () -> feistel.member(0, 25));
+        assertThrows(IllegalArgumentException.class, () -> feistel.members(-1));
+        assertThrows(IllegalArgumentException.class, () -> feistel.withBuckets(0));
+        assertThrows(IllegalArgumentException.class, () ->
+                feistel.assignAll(new long[]{100}, new int[1]));
+        assertThrows(IndexOutOfBoundsException.class, () ->
+                feistel.assignAll(new long[2], new int[1]));
+        assertThrows(IllegalArgumentException.class, () ->
+                feistel.reassignAll(new long[1], new int[]{0}, new int[1][1]));
+        assertThrows(IllegalArgumentException.class, () ->
+                Feistel.buckets(10, 10, 0, 7, F));
+        assertThrows(IllegalArgumentException.class, () ->
+                Feistel.buckets(Long.MAX_VALUE, 2, 1, 7, F));
+    }
+}
@@ -0,0 +1,91 @@
+package feistel;
+
+import com.carrotsearch.hppc.LongHashSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelCursorTest extends BaseTest {
+
+    @ParameterizedTest
+    @ValueSource(longs = {0, 1, 2, 100, 1000, 4097})
+    void iteratesForwardAndBackward(long size) {
+        FeistelCursor cursor = Feistel.spec(size, 8, 3).cursor();
+        long[] forward = new long[(int) size];
+        LongHashSet seen = new LongHashSet();
+        for (int i = 0; i < size; i++) {
+            assertEquals(i, cursor.position());
+            forward[i] = cursor.next();
+            assertTrue(seen.add(forward[i]));
+            assertEquals(i, cursor.positionOf(forward[i]));
+            assertEquals(forward[i], cursor.elementAt(i));
+        }
+        assertFalse(cursor.hasNext());
+        assertThrows(NoSuchElementException.class, cursor::next);
+
+        for (int i = (int) size - 1; i >= 0; i--) {
+            assertEquals(forward[i], cursor.previous());
+        }
+        assertFalse(cursor.hasPrevious());
+        assertThrows(NoSuchElementException.class, cursor::previous);
+    }
+
+    @Test
+    void batchesAreSameAsSingleSteps() {
+        FeistelSpec spec = Feistel.spec(1000, 8, 5);
+        FeistelCursor single = spec.cursor().seek(123);
+        FeistelCursor batch = spec.cursor().seek(123);
+
+        long[] buffer = new long[100];
+        while (batch.hasNext()) {
+            int n = batch.next(buffer);
+            for (int i = 0; i < n; i++) {
+                assertEquals(single.next(), buffer[i]);
+            }
+            assertEquals(single.position(), batch.position());
+        }
+        assertEquals(0, batch.next(buffer));
+
+        while (batch.hasPrevious()) {
+            int n = batch.previous(buffer);
+            for (int i = 0; i < n; i++) {
+                assertEquals(single.previous(), buffer[i]);
+            }
+            assertEquals(single.position(), batch.position());
+        }
+        assertEquals(0, batch.previous(buffer));
+    }
+
+    @Test
+    void resumesFromPosition() {
+        String encoded = Feistel.spec(10_000_000_000L, 8, 9).encode();
+        FeistelCursor cursor = FeistelSpec.parse(encoded).cursor()
+                .seek(5_000_000_000L);
+        cursor.next();
+        cursor.next();
+        long checkpoint = cursor.position();
+        long expected = cursor.next();
+
+        FeistelCursor resumed = FeistelSpec.parse(encoded).cursor()
+                .seek(checkpoint);
+        assertEquals(expected, resumed.next());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        FeistelCursor cursor = Feistel.spec(10, 8, 0).cursor();
+        assertThrows(IllegalArgumentException.class, () -> cursor.seek(11));
+        assertThrows(IllegalArgumentException.class, () -> cursor.seek(-1));
+        assertThrows(IllegalArgumentException.class, () -> cursor.elementAt(10));
+        assertThrows(IllegalArgumentException.class, () -> cursor.positionOf(10));
+        cursor.seek(10);
+        assertFalse(cursor.hasNext());
+    }
+}
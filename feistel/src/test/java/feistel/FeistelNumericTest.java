@@ -4,8 +4,10 @@ import isomorphic.Isomorphism;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
+import org.junit.jupiter.params.provider.ValueSource;
 
 import java.math.BigInteger;
+import java.util.Random;
 import java.util.function.Function;
 import java.util.function.LongUnaryOperator;
 import java.util.stream.LongStream;
@@ -97,7 +99,9 @@ final class FeistelNumericTest extends BaseTest {
             BigInteger b = BigInteger.valueOf(this.b);
             return Stream.of(
                     FeistelOfBigIntegerNumeric.fe1(rounds, a, b, bigF),
-                    FeistelOfBigIntegerNumeric.fe2(rounds, a, b, bigF)
+                    FeistelOfBigIntegerNumeric.fe2(rounds, a, b, bigF),
+                    FeistelOfBigIntegerNumeric.fe1Barrett(rounds, a, b, bigF),
+                    FeistelOfBigIntegerNumeric.fe2Barrett(rounds, a, b, bigF)
             );
         }
 
@@ -172,4 +176,38 @@ final class FeistelNumericTest extends BaseTest {
             assertEquals(i, id.apply(i));
         }
     }
+
+    @ParameterizedTest
+    @ValueSource(ints = {80, 128, 256})
+    void barrettIsSameAsDivision(int bits) {
+        Random random = new Random(bits);
+        BigInteger a = new BigInteger(bits / 2, random).setBit(bits / 2 - 1);
+        BigInteger b = new BigInteger(bits / 2, random).setBit(bits / 2 - 2);
+        BigInteger max = a.multiply(b);
+        RoundFunction<BigInteger> f = (round, value) -> round % 3 == 0
+                ? value.multiply(value).add(BigInteger.valueOf(round))
+                : value.shiftLeft(bits).negate().subtract(BigInteger.valueOf(round));
+
+        for (int rounds : new int[]{1, 2, 7, 8}) {
+            Isomorphism<BigInteger, BigInteger> fe1 =
+                    FeistelOfBigIntegerNumeric.fe1(rounds, a, b, f);
+            Isomorphism<BigInteger, BigInteger> fe2 =
+                    FeistelOfBigIntegerNumeric.fe2(rounds, a, b, f);
+            Isomorphism<BigInteger, BigInteger> fe1Barrett =
+                    FeistelOfBigIntegerNumeric.fe1Barrett(rounds, a, b, f);
+            Isomorphism<BigInteger, BigInteger> fe2Barrett =
+                    FeistelOfBigIntegerNumeric.fe2Barrett(rounds, a, b, f);
+
+            for (int i = 0; i < 1000; i++) {
+                BigInteger x = new BigInteger(bits, random).mod(max);
+                assertEquals(fe1.apply(x), fe1Barrett.apply(x));
+                assertEquals(fe2.apply(x), fe2Barrett.apply(x));
+                assertEquals(fe1.inverse().apply(x), fe1Barrett.inverse().apply(x));
+                assertEquals(fe2.inverse().apply(x), fe2Barrett.inverse().apply(x));
+            }
+            BigInteger last = max.subtract(ONE);
+            assertEquals(fe1.apply(last), fe1Barrett.apply(last));
+            assertEquals(fe2.apply(last), fe2Barrett.apply(last));
+        }
+    }
 }
@@ -0,0 +1,165 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static feistel.FeistelPlan.Layout.BALANCED_BINARY;
+import static feistel.FeistelPlan.Layout.FE2;
+import static feistel.FeistelPlan.Layout.UNBALANCED_BINARY;
+import static feistel.FeistelPlan.Width.BIG_INTEGER;
+import static feistel.FeistelPlan.Width.INT;
+import static feistel.FeistelPlan.Width.LONG;
+import static feistel.FeistelPlan.Width.LONG_PAIR;
+import static java.math.BigInteger.ONE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class FeistelPlanTest extends BaseTest {
+
+    private static Stream<Arguments> plans() {
+        BigInteger twoTo40 = ONE.shiftLeft(40);
+        BigInteger twoTo33 = ONE.shiftLeft(33);
+        return Stream.of(
+                Arguments.of(256, 256, BALANCED_BINARY, INT, 16),
+                Arguments.of(1 << 15, 1 << 16, UNBALANCED_BINARY, INT, 31),
+                Arguments.of(1 << 16, 1 << 16, BALANCED_BINARY, LONG, 32),
+                Arguments.of(1L << 32, 1L << 32, BALANCED_BINARY, LONG, 64),
+                Arguments.of(1L << 40, 1L << 24, BALANCED_BINARY, LONG, 64),
+                Arguments.of(1 << 4, 1 << 8, BALANCED_BINARY, INT, 12),
+                Arguments.of(1L << 41, 1L << 22, UNBALANCED_BINARY, LONG, 63),
+                Arguments.of(twoTo40, twoTo40, BALANCED_BINARY, BIG_INTEGER, 80),
+                Arguments.of(320, 200, FE2, INT, -1),
+                Arguments.of(256, 255, FE2, INT, -1),
+                Arguments.of(100_000, 100_000, FE2, LONG, -1),
+                Arguments.of(twoTo33, twoTo33.add(ONE), FE2, LONG_PAIR, -1),
+                Arguments.of(new BigInteger("18446744073709551615"), 3, FE2, LONG_PAIR, -1),
+                Arguments.of(ONE.shiftLeft(64).add(ONE), 3, FE2, BIG_INTEGER, -1)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("plans")
+    void choosesExpectedPlan(
+            Object a,
+            Object b,
+            FeistelPlan.Layout layout,
+            FeistelPlan.Width width,
+            int totalBits
+    ) {
+        FeistelPlan plan = Feistel.forDomain(
+                new BigInteger(a.toString()),
+                new BigInteger(b.toString()));
+        assertEquals(layout, plan.layout(), plan::toString);
+        assertEquals(width, plan.width(), plan::toString);
+        assertEquals(totalBits, plan.totalBits(), plan::toString);
+        assertEquals(plan.toString(), Feistel.forDomain(
+                new BigInteger(a.toString()),
+                new BigInteger(b.toString())).toString());
+    }
+
+    @ParameterizedTest
+    @MethodSource("smallDomains")
+    void createsPermutations(long a, long b) {
+        FeistelPlan plan = Feistel.forDomain(a, b);
+        long count = a * b;
+
+        Isomorphism.OfLong ofLong = plan.ofLong(
+                7, (round, value) -> value * 31 + round);
+        assertEquals(count, LongStream.range(0, count)
+                .map(ofLong)
+                .peek(i -> assertEquals(i, ofLong.inverse().applyAsLong(
+                        ofLong.applyAsLong(i))))
+                .filter(i -> i >= 0 && i < count)
+                .distinct()
+                .count());
+
+        Isomorphism.OfInt ofInt = plan.ofInt(
+                7, (round, value) -> value * 31 + round);
+        assertEquals(count, IntStream.range(0, (int) count)
+                .map(ofInt)
+                .filter(i -> i >= 0 && i < count)
+                .distinct()
+                .count());
+
+        Isomorphism<BigInteger, BigInteger> ofBigInteger = plan.ofBigInteger(
+                7, (round, value) -> value.multiply(BigInteger.valueOf(31)));
+        assertEquals(count, LongStream.range(0, count)
+                .mapToObj(BigInteger::valueOf)
+                .map(ofBigInteger)
+                .filter(i -> i.signum() >= 0 && i.longValue() < count)
+                .distinct()
+                .count());
+    }
+
+    private static Stream<Arguments> smallDomains() {
+        return Stream.of(
+                Arguments.of(16L, 16L),
+                Arguments.of(8L, 32L),
+                Arguments.of(2L, 1L),
+                Arguments.of(320L, 200L),
+                Arguments.of(7L, 16L)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("longPairDomains")
+    void longPairIsSameAsBigInteger(BigInteger a, BigInteger b) {
+        FeistelPlan plan = Feistel.forDomain(a, b);
+        RoundFunction.OfLong f = (round, value) ->
+                (value ^ round) * 0x9e37_79b9_7f4a_7c15L;
+        Isomorphism<BigInteger, BigInteger> expected = plan.ofBigInteger(
+                7, (round, value) -> BigInteger.valueOf(
+                        f.applyAsLong(round, value.longValue())));
+        Isomorphism<BigInteger, BigInteger> actual =
+                plan.ofLongPair(7, f).toBigInteger();
+        BigInteger size = a.multiply(b);
+        Random random = new Random(0);
+        for (int i = 0; i < 1000; i++) {
+            BigInteger x = new BigInteger(130, random).mod(size);
+            assertEquals(expected.apply(x), actual.apply(x));
+            assertEquals(expected.inverse().apply(x), actual.inverse().apply(x));
+        }
+    }
+
+    private static Stream<Arguments> longPairDomains() {
+        return Stream.of(
+                Arguments.of(BigInteger.valueOf(320), BigInteger.valueOf(200)),
+                Arguments.of(ONE.shiftLeft(33), ONE.shiftLeft(33).add(ONE)),
+                Arguments.of(new BigInteger("18446744073709551615"),
+                        new BigInteger("18446744073709551557"))
+        );
+    }
+
+    @Test
+    void rejectsTooNarrowWidth() {
+        FeistelPlan plan = Feistel.forDomain(1L << 40, 1L << 40);
+        assertThrows(IllegalStateException.class,
+                () -> plan.ofLong(7, (round, value) -> value));
+        assertThrows(IllegalStateException.class,
+                () -> Feistel.forDomain(1 << 16, 1 << 16)
+                        .ofInt(7, (round, value) -> value));
+        assertThrows(IllegalStateException.class,
+                () -> Feistel.forDomain(ONE.shiftLeft(64).add(ONE), ONE)
+                        .ofLongPair(7, (round, value) -> value));
+        assertThrows(IllegalStateException.class,
+                () -> Feistel.forDomain(1 << 16, 1 << 16)
+                        .ofLongPair(7, (round, value) -> value));
+    }
+
+    @Test
+    void rejectsNegativeDomain() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.forDomain(-1, 2));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.forDomain(2, -1));
+    }
+}
@@ -0,0 +1,165 @@
+package feistel;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelRandomTest extends BaseTest {
+
+    private static long[] next(FeistelRandom random, int n) {
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextLong();
+        }
+        return values;
+    }
+
+    @Test
+    void sameSeedGivesSameValues() {
+        assertArrayEquals(next(Feistel.random(1), 100), next(Feistel.random(1), 100));
+        assertNotEquals(Feistel.random(1).nextLong(), Feistel.random(2).nextLong());
+        assertNotEquals(Feistel.random(1).nextLong(), Feistel.random(1, 8).nextLong());
+    }
+
+    @Test
+    void nextLongIsValueAtPosition() {
+        FeistelRandom random = Feistel.random(3);
+        for (long i = 0; i < 1000; i++) {
+            assertEquals(i, random.position());
+            long expected = random.at(i);
+            assertEquals(expected, random.nextLong());
+        }
+    }
+
+    @Test
+    void jumpMovesPosition() {
+        FeistelRandom random = Feistel.random(4);
+        random.jump(1_000_000);
+        assertEquals(Feistel.random(4).at(1_000_000), random.nextLong());
+        random.jump(-1_000_001);
+        assertEquals(Feistel.random(4).nextLong(), random.nextLong());
+        random.jump(-2);
+        assertEquals(-1, random.position());
+        assertEquals(random.at(-1), random.nextLong());
+        assertEquals(0, random.position());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 255, 256, 257, 1000})
+    void nextLongsIsSameAsNextLong(int n) {
+        for (int rounds : new int[]{0, 1, 6, 7}) {
+            FeistelRandom expected = Feistel.random(5, rounds);
+            FeistelRandom actual = Feistel.random(5, rounds);
+            expected.jump(-10);
+            actual.jump(-10);
+            long[] array = new long[n];
+            actual.nextLongs(array);
+            assertArrayEquals(next(expected, n), array);
+            assertEquals(expected.position(), actual.position());
+            assertEquals(expected.nextLong(), actual.nextLong());
+        }
+    }
+
+    @Test
+    void longsIsSameAsNextLong() {
+        FeistelRandom expected = Feistel.random(6);
+        FeistelRandom actual = Feistel.random(6);
+        LongStream stream = actual.longs(10_000);
+        assertEquals(10_000, actual.position());
+        assertArrayEquals(next(expected, 10_000), stream.parallel().toArray());
+        assertEquals(expected.nextLong(), actual.nextLong());
+    }
+
+    @Test
+    void consecutiveValuesAreDistinct() {
+        FeistelRandom random = Feistel.random(7);
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(seen.add(random.nextLong()));
+        }
+    }
+
+    @Test
+    void boundedValuesAreInRangeAndUniform() {
+        FeistelRandom random = Feistel.random(8);
+        for (int bound : new int[]{1, 2, 3, 7, 16, 1000, Integer.MAX_VALUE}) {
+            for (int i = 0; i < 1000; i++) {
+                int value = random.nextInt(bound);
+                assertTrue(value >= 0 && value < bound, () -> bound + ": " + value);
+                long longValue = random.nextLong(bound + 3L * Integer.MAX_VALUE);
+                assertTrue(longValue >= 0 && longValue < bound + 3L * Integer.MAX_VALUE);
+            }
+        }
+
+        int bound = 10;
+        int n = 100_000;
+        long[] intCounts = new long[bound];
+        long[] longCounts = new long[bound];
+        for (int i = 0; i < n; i++) {
+            intCounts[random.nextInt(bound)]++;
+            longCounts[(int) random.nextLong(bound)]++;
+        }
+        // 99.9th percentile of chi-squared with 9 degrees of freedom
+        assertTrue(chiSquared(intCounts, n) < 27.88);
+        assertTrue(chiSquared(longCounts, n) < 27.88);
+    }
+
+    private static double chiSquared(long[] counts, int n) {
+        double expected = n / (double) counts.length;
+        double sum = 0;
+        for (long count : counts) {
+            sum += (count - expected) * (count - expected) / expected;
+        }
+        return sum;
+    }
+
+    @Test
+    void nextDoubleIsInUnitInterval() {
+        FeistelRandom random = Feistel.random(9);
+        double sum = 0;
+        for (int i = 0; i < 100_000; i++) {
+            double value = random.nextDouble();
+            assertTrue(value >= 0 && value < 1);
+            sum += value;
+        }
+        assertEquals(0.5, sum / 100_000, 0.01);
+    }
+
+    @Test
+    void splitGivesIndependentGenerator() {
+        FeistelRandom random = Feistel.random(10);
+        FeistelRandom split = random.split();
+        assertEquals(1, random.position());
+        assertEquals(0, split.position());
+        assertArrayEquals(next(Feistel.random(10).split(), 100), next(split, 100));
+
+        Set<Long> values = new HashSet<>();
+        for (long value : next(Feistel.random(10), 1000)) {
+            values.add(value);
+        }
+        for (long value : next(Feistel.random(10).split(), 1000)) {
+            values.add(value);
+        }
+        assertEquals(2000, values.size());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> Feistel.random(1, -1));
+        FeistelRandom random = Feistel.random(1);
+        assertThrows(IllegalArgumentException.class, () -> random.nextInt(0));
+        assertThrows(IllegalArgumentException.class, () -> random.nextLong(-1));
+        assertThrows(IllegalArgumentException.class, () -> random.longs(-1));
+        assertThrows(NullPointerException.class, () -> random.nextLongs(null));
+    }
+}
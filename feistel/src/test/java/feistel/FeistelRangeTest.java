@@ -0,0 +1,60 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class FeistelRangeTest extends BaseTest {
+
+    private static Stream<Arguments> params() {
+        return LongStream.of(1, 2, 3, 7, 8, 100, 1000, 1024, 4097, 65535)
+                .boxed()
+                .flatMap(size -> Stream.of(0, 1, 4, 7, 8)
+                        .map(rounds -> Arguments.of(size, rounds)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void isPermutation(long size, int rounds) {
+        Isomorphism.OfLong f = Feistel.ofLongRange(
+                size, rounds, (round, value) -> value * 31 + round);
+        assertEquals(size, LongStream.range(0, size)
+                .map(f)
+                .peek(i -> assertEquals(i, f.applyAsLong(
+                        f.inverse().applyAsLong(i))))
+                .filter(i -> i >= 0 && i < size)
+                .distinct()
+                .count());
+    }
+
+    @Test
+    void rejectsValuesOutsideOfRange() {
+        Isomorphism.OfLong f = Feistel.ofLongRange(
+                100, 7, (round, value) -> value);
+        assertThrows(IllegalArgumentException.class, () -> f.applyAsLong(100));
+        assertThrows(IllegalArgumentException.class, () -> f.applyAsLong(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> f.inverse().applyAsLong(100));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofLongRange(0, 7, (round, value) -> value)
+                        .applyAsLong(0));
+    }
+
+    @Test
+    void supportsLargestSize() {
+        Isomorphism.OfLong f = Feistel.ofLongRange(
+                Long.MAX_VALUE, 7, (round, value) -> value * 31 + round);
+        LongStream.of(0, 1, Long.MAX_VALUE - 1).forEach(x -> {
+            long y = f.applyAsLong(x);
+            assertEquals(x, f.inverse().applyAsLong(y));
+        });
+    }
+}
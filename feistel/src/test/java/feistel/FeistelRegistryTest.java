@@ -0,0 +1,145 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelRegistryTest extends BaseTest {
+
+    @Test
+    void buildsOncePerKeyAndDomain() {
+        AtomicInteger builds = new AtomicInteger();
+        FeistelRegistry<Long> registry = Feistel.registry(100, (key, size) -> {
+            builds.incrementAndGet();
+            return Feistel.spec(size, 8, key).feistel();
+        });
+
+        Isomorphism.OfLong a = registry.get(1, 1000L);
+        assertSame(a, registry.get(1, 1000L));
+        Isomorphism.OfLong b = registry.get(2, 1000L);
+        Isomorphism.OfLong c = registry.get(1, 2000L);
+        assertEquals(3, builds.get());
+        assertEquals(3, registry.buildCount());
+        assertTrue(registry.totalBuildNanos() > 0);
+
+        long x = 123;
+        assertEquals(Feistel.spec(1000, 8, 1).feistel().applyAsLong(x), a.applyAsLong(x));
+        assertNotEquals(a.applyAsLong(x), b.applyAsLong(x));
+        assertTrue(c.applyAsLong(1999) < 2000);
+
+        CacheStats stats = registry.stats();
+        assertEquals(1, stats.hitCount());
+        assertEquals(3, stats.missCount());
+        assertEquals(0, stats.evictionCount());
+    }
+
+    @Test
+    void boundsNumberOfCachedFeistels() {
+        FeistelRegistry<Long> registry = Feistel.registry(16,
+                (key, size) -> Feistel.spec(size, 8, key).feistel());
+        for (int pass = 0; pass < 3; pass++) {
+            for (long key = 0; key < 1000; key++) {
+                registry.get(key, 100L);
+            }
+        }
+        CacheStats stats = registry.stats();
+        assertTrue(stats.missCount() > 2000, stats::toString);
+        assertTrue(stats.evictionCount() > 0, stats::toString);
+    }
+
+    @Test
+    void admitsBuildsIntoFullCache() {
+        AtomicInteger builds = new AtomicInteger();
+        FeistelRegistry<Long> registry = Feistel.registry(16, (key, size) -> {
+            builds.incrementAndGet();
+            return Feistel.spec(size, 8, key).feistel();
+        });
+        for (int pass = 0; pass < 5; pass++) {
+            for (long key = 0; key < 16; key++) {
+                registry.get(key, 100L);
+            }
+        }
+        assertEquals(16, builds.get());
+
+        Isomorphism.OfLong rare = registry.get(100, 100L);
+        assertEquals(17, builds.get());
+        assertSame(rare, registry.get(100, 100L));
+        assertEquals(17, builds.get());
+        assertEquals(17, registry.buildCount());
+    }
+
+    @Test
+    void deduplicatesConcurrentBuilds() throws Exception {
+        int threads = 8;
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FeistelRegistry<String> registry = Feistel.registry(10, (key, domain) -> {
+            builds.incrementAndGet();
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return Feistel.spec(100, 8, key).feistel();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Isomorphism.OfLong>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> registry.get(7, "domain")));
+            }
+            started.await();
+            Thread.sleep(50);
+            release.countDown();
+            Isomorphism.OfLong first = futures.get(0).get();
+            for (Future<Isomorphism.OfLong> future : futures) {
+                assertSame(first, future.get());
+            }
+            assertEquals(1, builds.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void rethrowsBuilderFailureAndRetries() {
+        AtomicInteger builds = new AtomicInteger();
+        FeistelRegistry<Long> registry = Feistel.registry(10, (key, size) -> {
+            if (builds.incrementAndGet() == 1) {
+                throw new IllegalArgumentException("first");
+            }
+            return Feistel.spec(size, 8, key).feistel();
+        });
+        assertThrows(IllegalArgumentException.class, () -> registry.get(1, 10L));
+        registry.get(1, 10L);
+        assertEquals(2, builds.get());
+        assertEquals(1, registry.buildCount());
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.registry(-1, (key, size) -> null));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.registry(1, null));
+        FeistelRegistry<Long> registry = Feistel.registry(1, (key, size) -> null);
+        assertThrows(NullPointerException.class, () -> registry.get(1, null));
+        assertThrows(NullPointerException.class, () -> registry.get(1, 1L));
+    }
+}
@@ -0,0 +1,135 @@
+package feistel;
+
+import com.carrotsearch.hppc.LongHashSet;
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PrimitiveIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.LongConsumer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class FeistelSpecTest extends BaseTest {
+
+    private static Stream<Arguments> shardParams() {
+        return Stream.of(
+                Arguments.of(0L, 1),
+                Arguments.of(1L, 1),
+                Arguments.of(3L, 8),
+                Arguments.of(1000L, 1),
+                Arguments.of(1000L, 7),
+                Arguments.of(100_003L, 16),
+                Arguments.of(1L << 20, 64)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("shardParams")
+    void shardsCoverDomainWithoutOverlap(long size, int workers)
+            throws Exception {
+        String encoded = Feistel.spec(size, 8, 42).encode();
+
+        ExecutorService executor = newFixedThreadPool(Math.min(workers, 8));
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < workers; i++) {
+                int worker = i;
+                futures.add(executor.submit(() -> {
+                    FeistelShard shard = FeistelSpec.parse(encoded)
+                            .shard(worker, workers);
+                    LongStream.Builder values = LongStream.builder();
+                    shard.iterator().forEachRemaining((LongConsumer) values::add);
+                    return values.build().toArray();
+                }));
+            }
+
+            LongHashSet seen = new LongHashSet();
+            long expectedStart = 0;
+            for (int i = 0; i < workers; i++) {
+                long[] values = futures.get(i).get();
+                FeistelShard shard = Feistel.spec(size, 8, 42).shard(i, workers);
+                assertEquals(expectedStart, shard.start());
+                assertEquals(shard.size(), values.length);
+                assertTrue(shard.size() == size / workers
+                        || shard.size() == size / workers + 1, shard::toString);
+                for (long value : values) {
+                    assertTrue(value >= 0 && value < size, () -> "" + value);
+                    assertTrue(seen.add(value), () -> "" + value);
+                }
+                expectedStart = shard.end();
+            }
+            assertEquals(size, expectedStart);
+            assertEquals(size, seen.size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void shardIteratorIsSameAsFeistel() {
+        FeistelSpec spec = Feistel.spec(10_000, 8, 1);
+        Isomorphism.OfLong feistel = spec.feistel();
+        FeistelShard shard = spec.shard(2, 3);
+        PrimitiveIterator.OfLong iterator = shard.iterator();
+        for (long i = 0; i < shard.size(); i++) {
+            long expected = feistel.applyAsLong(shard.start() + i);
+            assertEquals(expected, shard.get(i));
+            assertEquals(expected, iterator.nextLong());
+        }
+        assertFalse(iterator.hasNext());
+        assertThrows(IllegalArgumentException.class,
+                () -> shard.get(shard.size()));
+    }
+
+    @Test
+    void encodingRoundTrips() {
+        FeistelSpec spec = Feistel.spec(10_000_000_000L, 8, 7);
+        FeistelSpec parsed = FeistelSpec.parse(spec.encode());
+        assertEquals(spec, parsed);
+        assertEquals(spec.hashCode(), parsed.hashCode());
+        assertEquals(10_000_000_000L, parsed.size());
+        assertEquals(8, parsed.rounds());
+        LongStream.of(0, 1, 12345, 9_999_999_999L).forEach(i -> assertEquals(
+                spec.feistel().applyAsLong(i),
+                parsed.feistel().applyAsLong(i)));
+
+        FeistelSpec keyed = Feistel.spec(100, new long[]{-1, 0, 1});
+        assertEquals(keyed, FeistelSpec.parse(keyed.encode()));
+        FeistelSpec empty = Feistel.spec(100, new long[0]);
+        assertEquals(empty, FeistelSpec.parse(empty.encode()));
+
+        assertNotEquals(spec, Feistel.spec(10_000_000_000L, 8, 8));
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> FeistelSpec.parse("feistel-v1:10"));
+        assertThrows(IllegalArgumentException.class,
+                () -> FeistelSpec.parse("feistel-v0:10:1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> FeistelSpec.parse("feistel-v1:-10:1"));
+        assertThrows(IllegalArgumentException.class,
+                () -> FeistelSpec.parse("feistel-v1:10:x"));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.spec(10, 8, 0).shard(1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.spec(10, 8, 0).shard(0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.spec(-1, 8, 0));
+    }
+}
@@ -0,0 +1,151 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class FileShuffleTest extends BaseTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("feistel");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (Path path : (Iterable<Path>) paths
+                    .sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static Stream<Arguments> params() {
+        return Stream.of(
+                Arguments.of(0, 8, 1 << 10, 1),
+                Arguments.of(1, 1, 1 << 10, 1),
+                Arguments.of(1000, 8, 1 << 20, 1),
+                Arguments.of(10_003, 7, 1 << 14, 4),
+                Arguments.of(10_003, 7, 1 << 20, 3),
+                Arguments.of(100_000, 16, 1 << 18, 8)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void readsEachRecordFromItsIndex(
+            int records,
+            int recordSize,
+            long memoryBudget,
+            int parallelism
+    ) throws IOException {
+        byte[] data = new byte[records * recordSize];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        for (int i = 0; i < records; i++) {
+            for (int j = 0; j < recordSize; j++) {
+                buffer.put((byte) (i * 31 + j * 7 + (i >>> 8)));
+            }
+        }
+        Path source = Files.write(dir.resolve("source"), data);
+        Path target = dir.resolve("target");
+        Isomorphism.OfLong f = Feistel.spec(records, 8, 42).feistel();
+
+        FileShuffle.shuffle(source, target, recordSize, f,
+                memoryBudget, parallelism);
+
+        byte[] expected = new byte[data.length];
+        for (int i = 0; i < records; i++) {
+            System.arraycopy(data, (int) f.applyAsLong(i) * recordSize,
+                    expected, i * recordSize, recordSize);
+        }
+        assertArrayEquals(expected, Files.readAllBytes(target));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    void mapsOneRecordAtATimeIfRecordIsLargerThanWindow() throws IOException {
+        int records = 37;
+        int recordSize = 100;
+        byte[] data = new byte[records * recordSize];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + (i >>> 8));
+        }
+        Path source = Files.write(dir.resolve("source"), data);
+        Path target = dir.resolve("target");
+        Isomorphism.OfLong f = Feistel.spec(records, 8, 42).feistel();
+
+        FileShuffle.shuffle(source, target, recordSize, f, 1 << 16, 2, 64);
+
+        byte[] expected = new byte[data.length];
+        for (int i = 0; i < records; i++) {
+            System.arraycopy(data, (int) f.applyAsLong(i) * recordSize,
+                    expected, i * recordSize, recordSize);
+        }
+        assertArrayEquals(expected, Files.readAllBytes(target));
+    }
+
+    @Test
+    void isSameAsArrayShuffle() throws IOException {
+        int records = 10_003;
+        long[] array = new long[records];
+        ByteBuffer buffer = ByteBuffer.allocate(records * Long.BYTES);
+        for (int i = 0; i < records; i++) {
+            array[i] = i * 31L + 7;
+            buffer.putLong(array[i]);
+        }
+        Path source = Files.write(dir.resolve("source"), buffer.array());
+        Path target = dir.resolve("target");
+        Isomorphism.OfLong f = Feistel.spec(records, 8, 42).feistel();
+
+        Feistel.shuffle(source, target, Long.BYTES, f, 1 << 16);
+        long[] expected = new long[records];
+        Feistel.shuffle(array, expected, f);
+
+        long[] actual = new long[records];
+        ByteBuffer.wrap(Files.readAllBytes(target)).asLongBuffer().get(actual);
+        assertArrayEquals(expected, actual);
+
+        long[] inPlace = array.clone();
+        Feistel.shuffle(inPlace, f);
+        assertArrayEquals(expected, inPlace);
+    }
+
+    @Test
+    void rejectsInvalidArguments() throws IOException {
+        Path source = Files.write(dir.resolve("source"), new byte[100]);
+        Path target = dir.resolve("target");
+        assertThrows(IllegalArgumentException.class, () -> Feistel.shuffle(
+                source, target, 3, Feistel.spec(33, 8, 0).feistel(), 1 << 20));
+        assertThrows(IllegalArgumentException.class, () -> Feistel.shuffle(
+                source, target, 0, Feistel.spec(100, 8, 0).feistel(), 1 << 20));
+        assertThrows(IllegalArgumentException.class, () -> Feistel.shuffle(
+                source, target, 10, Feistel.spec(10, 8, 0).feistel(), 10));
+        assertThrows(IllegalArgumentException.class, () -> Feistel.shuffle(
+                source, target, 10, Feistel.spec(20, 8, 0).feistel(), 1 << 20));
+        assertThrows(IllegalArgumentException.class, () -> Feistel.shuffle(
+                source, target, 10, Isomorphism.OfLong.of(i -> 0, i -> 0), 1 << 20));
+        assertEquals(Arrays.asList(source), Arrays.asList(
+                Files.list(dir).filter(p -> !p.equals(target)).toArray()));
+    }
+}
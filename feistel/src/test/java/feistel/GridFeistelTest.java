@@ -0,0 +1,146 @@
+package feistel;
+
+import com.carrotsearch.hppc.LongHashSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class GridFeistelTest extends BaseTest {
+
+    private static final RoundFunction.OfLong F =
+            (round, value) -> value * 31 + round;
+
+    private static Stream<Arguments> params() {
+        return Stream.of(
+                Arguments.of(new int[]{0, 5}, 4),
+                Arguments.of(new int[]{1, 1}, 4),
+                Arguments.of(new int[]{2, 3}, 0),
+                Arguments.of(new int[]{2, 3}, 1),
+                Arguments.of(new int[]{320, 200}, 8),
+                Arguments.of(new int[]{7, 1, 5}, 9),
+                Arguments.of(new int[]{16, 16, 16}, 6),
+                Arguments.of(new int[]{3, 4, 5, 6}, 8)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void isPermutation(int[] dimensions, int rounds) {
+        GridFeistel grid = Feistel.ofGrid(dimensions, rounds, F);
+        int size = (int) grid.size();
+        int n = dimensions.length;
+        int[][] coordinates = new int[n][size + 3];
+        grid.apply(0, coordinates, 3, size);
+
+        int[][] parallel = new int[n][size + 3];
+        grid.applyParallel(0, parallel, 3, size);
+        assertArrayEquals(coordinates, parallel);
+
+        int[][] inverse = new int[n][size];
+        grid.inverse().apply(0, inverse, 0, size);
+
+        LongHashSet seen = new LongHashSet();
+        int[] position = new int[n];
+        for (int i = 0; i < size; i++) {
+            int[] point = new int[n];
+            long index = 0;
+            for (int d = 0; d < n; d++) {
+                point[d] = coordinates[d][3 + i];
+                assertTrue(point[d] >= 0 && point[d] < dimensions[d]);
+                index = index * dimensions[d] + point[d];
+            }
+            assertTrue(seen.add(index));
+
+            int[] expected = position.clone();
+            grid.apply(expected);
+            assertArrayEquals(expected, point);
+
+            grid.inverse().apply(point);
+            assertArrayEquals(position, point);
+
+            for (int d = 0; d < n; d++) {
+                point[d] = inverse[d][i];
+            }
+            grid.apply(point);
+            assertArrayEquals(position, point);
+
+            for (int d = n - 1; d >= 0 && ++position[d] == dimensions[d]; d--) {
+                position[d] = 0;
+            }
+        }
+        assertEquals(size, seen.size());
+    }
+
+    @Test
+    void appliesRangesInTheMiddle() {
+        GridFeistel grid = Feistel.ofGrid(new int[]{33, 17}, 8, F);
+        int[][] all = new int[2][33 * 17];
+        grid.apply(0, all, 0, 33 * 17);
+        int[][] part = new int[2][100];
+        grid.apply(250, part, 0, 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(all[0][250 + i], part[0][i]);
+            assertEquals(all[1][250 + i], part[1][i]);
+        }
+    }
+
+    @Test
+    void staysInDimensionsNearIntegerMaxValue() {
+        int[] dimensions = {3, Integer.MAX_VALUE - 1, 2};
+        GridFeistel grid = Feistel.ofGrid(dimensions, 9, F);
+        int[][] coordinates = new int[3][1000];
+        long start = grid.size() - 1000;
+        grid.apply(start, coordinates, 0, 1000);
+        int[][] twoDimensions = new int[2][1000];
+        GridFeistel grid2 = Feistel.ofGrid(new int[]{Integer.MAX_VALUE, 2}, 8, F);
+        grid2.apply(grid2.size() - 1000, twoDimensions, 0, 1000);
+        for (int i = 0; i < 1000; i++) {
+            int[] point = new int[3];
+            for (int d = 0; d < 3; d++) {
+                point[d] = coordinates[d][i];
+                assertTrue(point[d] >= 0 && point[d] < dimensions[d]);
+            }
+            grid.inverse().apply(point);
+            long position = start + i;
+            assertArrayEquals(new int[]{
+                    (int) (position / 2 / (Integer.MAX_VALUE - 1)),
+                    (int) (position / 2 % (Integer.MAX_VALUE - 1)),
+                    (int) (position % 2)
+            }, point);
+
+            int[] point2 = {twoDimensions[0][i], twoDimensions[1][i]};
+            assertTrue(point2[0] >= 0 && point2[0] < Integer.MAX_VALUE);
+            assertTrue(point2[1] >= 0 && point2[1] < 2);
+            grid2.inverse().apply(point2);
+            position = grid2.size() - 1000 + i;
+            assertArrayEquals(new int[]{(int) (position / 2), (int) (position % 2)}, point2);
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofGrid(new int[]{5}, 8, F));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofGrid(new int[]{5, -1}, 8, F));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofGrid(new int[]{1 << 30, 1 << 30, 1 << 30}, 8, F));
+        GridFeistel grid = Feistel.ofGrid(new int[]{4, 5}, 8, F);
+        assertThrows(IllegalArgumentException.class,
+                () -> grid.apply(new int[]{4, 0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> grid.apply(new int[]{0, 0, 0}));
+        assertThrows(IllegalArgumentException.class,
+                () -> grid.apply(1, new int[2][20], 0, 20));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> grid.apply(0, new int[2][10], 1, 10));
+    }
+}
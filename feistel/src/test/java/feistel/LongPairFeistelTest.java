@@ -0,0 +1,222 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static java.lang.Long.toUnsignedString;
+import static java.math.BigInteger.ONE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class LongPairFeistelTest extends BaseTest {
+
+    private static final RoundFunction.OfLong F = (round, value) ->
+            (value ^ round) * 0x9e37_79b9_7f4a_7c15L;
+
+    private static final RoundFunction<BigInteger> BIG_F = (round, value) ->
+            BigInteger.valueOf(F.applyAsLong(round, value.longValue()));
+
+    private static Stream<Arguments> small() {
+        return Stream.of(
+                new long[]{0, 0},
+                new long[]{0, 5},
+                new long[]{1, 1},
+                new long[]{7, 13},
+                new long[]{320, 200},
+                new long[]{1, 99}
+        ).flatMap(ab -> IntStream.of(0, 1, 2, 7).boxed().flatMap(rounds ->
+                Stream.of(true, false).map(fe1 ->
+                        Arguments.of(ab[0], ab[1], rounds, fe1))));
+    }
+
+    private static Stream<Arguments> large() {
+        return Stream.of(
+                new long[]{(1L << 32) + 15, (1L << 32) + 17},
+                new long[]{-1L, -1L},
+                new long[]{-159L, -189L},
+                new long[]{Long.MAX_VALUE, 3},
+                new long[]{3, -5L},
+                new long[]{1L << 63, (1L << 63) + 1},
+                new long[]{-1L, 1},
+                new long[]{1, -1L}
+        ).flatMap(ab -> IntStream.of(0, 1, 2, 7).boxed().flatMap(rounds ->
+                Stream.of(true, false).map(fe1 ->
+                        Arguments.of(ab[0], ab[1], rounds, fe1))));
+    }
+
+    private static LongPairFeistel create(long a, long b, int rounds, boolean fe1) {
+        return fe1
+                ? Feistel.ofLongPairNumericFe1(a, b, rounds, F)
+                : Feistel.ofLongPairNumeric(a, b, rounds, F);
+    }
+
+    private static Isomorphism<BigInteger, BigInteger> createBig(
+            long a, long b, int rounds, boolean fe1) {
+        BigInteger bigA = new BigInteger(toUnsignedString(a));
+        BigInteger bigB = new BigInteger(toUnsignedString(b));
+        return fe1
+                ? Feistel.ofBigIntegerNumericFe1(bigA, bigB, rounds, BIG_F)
+                : Feistel.ofBigIntegerNumeric(bigA, bigB, rounds, BIG_F);
+    }
+
+    private static BigInteger size(long a, long b) {
+        return new BigInteger(toUnsignedString(a))
+                .multiply(new BigInteger(toUnsignedString(b)));
+    }
+
+    /**
+     * FE2 with no rounds maps {@code x} to {@code x / b + x mod b}, the same
+     * as the {@link BigInteger} version, which is not a bijection.
+     */
+    private static boolean isBijection(int rounds, boolean fe1) {
+        return fe1 || rounds > 0;
+    }
+
+    private static long[] split(BigInteger x) {
+        return new long[]{x.shiftRight(64).longValue(), x.longValue()};
+    }
+
+    @ParameterizedTest
+    @MethodSource("small")
+    void isSameAsBigIntegerOverWholeDomain(long a, long b, int rounds, boolean fe1) {
+        LongPairFeistel feistel = create(a, b, rounds, fe1);
+        Isomorphism<BigInteger, BigInteger> expected = createBig(a, b, rounds, fe1);
+        long[] output = new long[2];
+        long[] inverse = new long[2];
+        for (long x = 0; x < a * b; x++) {
+            BigInteger y = expected.apply(BigInteger.valueOf(x));
+            feistel.apply(0, x, output);
+            assertArrayEquals(split(y), output);
+            if (isBijection(rounds, fe1)) {
+                feistel.invert(output[0], output[1], inverse);
+                assertArrayEquals(new long[]{0, x}, inverse);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("large")
+    void isSameAsBigIntegerForLargeDomains(long a, long b, int rounds, boolean fe1) {
+        LongPairFeistel feistel = create(a, b, rounds, fe1);
+        Isomorphism<BigInteger, BigInteger> expected = createBig(a, b, rounds, fe1);
+        BigInteger size = size(a, b);
+        SplittableRandom random = new SplittableRandom(rounds);
+        long[] output = new long[2];
+        long[] inverse = new long[2];
+        for (int i = 0; i < 2000; i++) {
+            BigInteger x = i < 2
+                    ? size.subtract(BigInteger.valueOf(i + 1))
+                    : new BigInteger(130, new Random(random.nextLong())).mod(size);
+            long[] input = split(x);
+            feistel.apply(input[0], input[1], output);
+            assertArrayEquals(split(expected.apply(x)), output);
+            feistel.invert(input[0], input[1], inverse);
+            assertArrayEquals(split(expected.inverse().apply(x)), inverse);
+            if (isBijection(rounds, fe1)) {
+                feistel.invert(output[0], output[1], inverse);
+                assertArrayEquals(input, inverse);
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("large")
+    void bulkIsSameAsSingle(long a, long b, int rounds, boolean fe1) {
+        LongPairFeistel feistel = create(a, b, rounds, fe1);
+        BigInteger size = size(a, b);
+        Random random = new Random(rounds);
+        long[] values = new long[2 * 100];
+        for (int i = 0; i < values.length; i += 2) {
+            long[] x = split(new BigInteger(130, random).mod(size));
+            values[i] = x[0];
+            values[i + 1] = x[1];
+        }
+        long[] original = values.clone();
+        feistel.applyAll(values);
+        long[] output = new long[2];
+        for (int i = 0; i < values.length; i += 2) {
+            feistel.apply(original[i], original[i + 1], output);
+            assertEquals(output[0], values[i]);
+            assertEquals(output[1], values[i + 1]);
+        }
+        if (isBijection(rounds, fe1)) {
+            feistel.invertAll(values);
+            assertArrayEquals(original, values);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("large")
+    void toBigIntegerIsSameAsBigInteger(long a, long b, int rounds, boolean fe1) {
+        Isomorphism<BigInteger, BigInteger> feistel = create(a, b, rounds, fe1).toBigInteger();
+        Isomorphism<BigInteger, BigInteger> expected = createBig(a, b, rounds, fe1);
+        BigInteger max = size(a, b).subtract(ONE);
+        assertEquals(expected.apply(max), feistel.apply(max));
+        assertEquals(expected.inverse().apply(max), feistel.inverse().apply(max));
+        assertThrows(IllegalArgumentException.class, () -> feistel.apply(max.add(ONE)));
+        assertThrows(IllegalArgumentException.class, () -> feistel.apply(ONE.negate()));
+    }
+
+    @Test
+    void rejectsValuesOutsideOfDomain() {
+        LongPairFeistel feistel = Feistel.ofLongPairNumeric(
+                (1L << 32) + 15, (1L << 32) + 17, 7, F);
+        long[] output = new long[2];
+        BigInteger size = size(feistel.a(), feistel.b());
+        long[] max = split(size.subtract(ONE));
+        long[] outside = split(size);
+        feistel.apply(max[0], max[1], output);
+        assertThrows(IllegalArgumentException.class, () ->
+                feistel.apply(outside[0], outside[1], output));
+        assertThrows(IllegalArgumentException.class, () ->
+                feistel.invert(outside[0], outside[1], output));
+        assertThrows(IllegalArgumentException.class, () ->
+                feistel.apply(-1, 0, output));
+
+        long[] values = {0, 1, outside[0], outside[1]};
+        assertThrows(IllegalArgumentException.class, () -> feistel.applyAll(values));
+        assertArrayEquals(new long[]{0, 1, outside[0], outside[1]}, values);
+        assertThrows(IllegalArgumentException.class, () -> feistel.applyAll(new long[3]));
+        assertThrows(IndexOutOfBoundsException.class, () -> feistel.apply(0, 0, new long[1]));
+        assertThrows(IllegalArgumentException.class, () ->
+                Feistel.ofLongPairNumeric(2, 2, -1, F));
+        assertThrows(NullPointerException.class, () ->
+                Feistel.ofLongPairNumeric(2, 2, 1, null));
+    }
+
+    @Test
+    void dividesAndMultipliesSameAsBigInteger() {
+        SplittableRandom random = new SplittableRandom(0);
+        BigInteger twoTo64 = ONE.shiftLeft(64);
+        for (int i = 0; i < 100_000; i++) {
+            long divisor = random.nextLong() >>> random.nextInt(64);
+            if (divisor == 0) {
+                continue;
+            }
+            BigInteger d = new BigInteger(toUnsignedString(divisor));
+            long hi = Long.remainderUnsigned(random.nextLong(), divisor);
+            long lo = random.nextLong();
+            BigInteger x = new BigInteger(toUnsignedString(hi))
+                    .shiftLeft(64)
+                    .add(new BigInteger(toUnsignedString(lo)));
+            UnsignedDivisor unsigned = new UnsignedDivisor(divisor);
+            assertEquals(x.divide(d).longValue(), unsigned.divide(hi, lo), x + "/" + d);
+            assertEquals(BigInteger.valueOf(lo).mod(d).longValue(), unsigned.floorMod(lo));
+
+            long y = random.nextLong();
+            BigInteger product = new BigInteger(toUnsignedString(lo))
+                    .multiply(new BigInteger(toUnsignedString(y)));
+            assertEquals(product.divide(twoTo64).longValue(), UnsignedMath.multiplyHigh(lo, y));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class MultiKeyFeistelTest extends BaseTest {
+
+    private static final long[] KEYS =
+            new SplittableRandom(0).longs(16).toArray();
+
+    private static Stream<Arguments> params() {
+        return IntStream.of(0, 2, 8, 10).boxed().flatMap(totalBits ->
+                IntStream.of(0, 1, 4, 7).mapToObj(rounds ->
+                        Arguments.of(totalBits, rounds)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void isPermutationForEachKey(int totalBits, int rounds) {
+        MultiKeyFeistel feistel = Feistel.ofMultiKey(totalBits, rounds, KEYS);
+        long[] input = LongStream.range(0, 1L << totalBits).toArray();
+        for (int j = 0; j < KEYS.length; j++) {
+            Isomorphism.OfLong f = feistel.permutation(j);
+            long[] output = LongStream.of(input).map(f).toArray();
+            assertArrayEquals(input, LongStream.of(output).map(f.inverse()).toArray());
+            Arrays.sort(output);
+            assertArrayEquals(input, output);
+        }
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void applyIsSameAsEachPermutation(int totalBits, int rounds) {
+        MultiKeyFeistel feistel = Feistel.ofMultiKey(totalBits, rounds, KEYS);
+        long[] output = new long[KEYS.length];
+        for (long x = 0; x < 1L << totalBits; x++) {
+            feistel.apply(x, output);
+            for (int j = 0; j < KEYS.length; j++) {
+                assertEquals(feistel.permutation(j).applyAsLong(x), output[j]);
+            }
+        }
+    }
+
+    @Test
+    void updateKeepsMinimumOfEachPermutation() {
+        MultiKeyFeistel feistel = Feistel.ofMultiKey(64, 6, KEYS);
+        long[] values = new SplittableRandom(1).longs(1000).toArray();
+
+        long[] expected = new long[KEYS.length];
+        for (int j = 0; j < KEYS.length; j++) {
+            expected[j] = Arrays.stream(values, 10, 990)
+                    .map(feistel.permutation(j))
+                    .min()
+                    .getAsLong();
+        }
+
+        long[] signature = feistel.newSignature();
+        feistel.update(values, 10, 980, signature);
+        assertArrayEquals(expected, signature);
+
+        long[] single = feistel.newSignature();
+        for (int i = 10; i < 990; i++) {
+            feistel.update(values[i], single);
+        }
+        assertArrayEquals(expected, single);
+    }
+
+    @Test
+    void signaturesAreSameAsUpdate() {
+        MultiKeyFeistel feistel = Feistel.ofMultiKey(32, 6, KEYS);
+        SplittableRandom random = new SplittableRandom(2);
+        long[][] documents = new long[100][];
+        for (int d = 0; d < documents.length; d++) {
+            documents[d] = random.longs(random.nextInt(200), 0, 1L << 32).toArray();
+        }
+
+        long[][] expected = new long[documents.length][];
+        for (int d = 0; d < documents.length; d++) {
+            expected[d] = feistel.newSignature();
+            feistel.update(documents[d], 0, documents[d].length, expected[d]);
+        }
+        assertArrayEquals(expected, feistel.signatures(documents));
+        assertArrayEquals(expected, feistel.signaturesParallel(documents));
+    }
+
+    @Test
+    void signaturesEstimateJaccardSimilarity() {
+        long[] keys = new SplittableRandom(3).longs(256).toArray();
+        MultiKeyFeistel feistel = Feistel.ofMultiKey(64, 6, keys);
+        // |a ∩ b| = 1000, |a ∪ b| = 3000
+        long[] a = LongStream.range(0, 2000).toArray();
+        long[] b = LongStream.range(1000, 3000).toArray();
+        long[][] signatures = feistel.signatures(new long[][]{a, b});
+
+        int same = 0;
+        for (int j = 0; j < keys.length; j++) {
+            if (signatures[0][j] == signatures[1][j]) {
+                same++;
+            }
+        }
+        double estimate = same / (double) keys.length;
+        assertTrue(Math.abs(estimate - 1.0 / 3) < 0.1, () -> "" + estimate);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofMultiKey(-2, 4, KEYS));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofMultiKey(66, 4, KEYS));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofMultiKey(31, 4, KEYS));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofMultiKey(32, -1, KEYS));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.ofMultiKey(32, 4, new long[0]));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.ofMultiKey(32, 4, null));
+
+        MultiKeyFeistel feistel = Feistel.ofMultiKey(32, 4, KEYS);
+        assertThrows(IllegalArgumentException.class,
+                () -> feistel.permutation(KEYS.length));
+        assertThrows(IllegalArgumentException.class,
+                () -> feistel.update(1L << 32, feistel.newSignature()));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> feistel.update(1, new long[KEYS.length - 1]));
+        assertThrows(IndexOutOfBoundsException.class,
+                () -> feistel.update(new long[1], 1, 1, feistel.newSignature()));
+    }
+}
@@ -0,0 +1,98 @@
+package feistel;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class RoundTuningTest extends BaseTest {
+
+    private static final RoundFunction.OfLong mixing = (round, value) -> {
+        long z = value + (round + 1) * 0x9e37_79b9_7f4a_7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58_476d_1ce4_e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d0_49bb_1331_11ebL;
+        return z ^ (z >>> 31);
+    };
+
+    @Test
+    void findsFewestRoundsThatMixWell() {
+        RoundTuning tuning = Feistel.tuneRounds(
+                rounds -> Feistel.ofLongBinary(16, 8, 8, rounds, mixing),
+                1 << 16, 6, 20_000, 0.1);
+
+        List<RoundTuning.Candidate> candidates = tuning.candidates();
+        assertEquals(6, candidates.size());
+        for (int i = 0; i < candidates.size(); i++) {
+            assertEquals(i + 1, candidates.get(i).rounds());
+            assertTrue(candidates.get(i).nanosPerOp() > 0);
+        }
+
+        // With fewer than 3 rounds some output bits depend
+        // on some input bits in a fixed way
+        assertEquals(1.0, candidates.get(0).avalancheBias(), 0);
+        assertFalse(candidates.get(0).meetsTarget());
+        assertFalse(candidates.get(1).meetsTarget());
+        for (int i = 3; i < candidates.size(); i++) {
+            assertTrue(candidates.get(i).meetsTarget(),
+                    candidates.get(i)::toString);
+        }
+        assertTrue(tuning.best().isPresent());
+        assertTrue(tuning.best().get().rounds() >= 3);
+    }
+
+    @Test
+    void weakRoundFunctionNeverMeetsTarget() {
+        RoundTuning tuning = Feistel.tuneRounds(
+                rounds -> Feistel.ofLongBinary(16, 8, 8, rounds,
+                        (round, value) -> value + round),
+                1 << 16, 8, 5_000, 0.1);
+        for (RoundTuning.Candidate candidate : tuning.candidates()) {
+            assertFalse(candidate.meetsTarget(), candidate::toString);
+        }
+        assertFalse(tuning.best().isPresent());
+    }
+
+    @Test
+    void skipsInputsOutsideOfNumericDomain() {
+        RoundTuning tuning = Feistel.tuneRounds(
+                rounds -> Feistel.ofLongNumeric(1000, 1001, rounds, mixing),
+                1000 * 1001, 8, 10_000, 0.1);
+        List<RoundTuning.Candidate> candidates = tuning.candidates();
+        assertFalse(candidates.get(0).meetsTarget(), candidates.get(0)::toString);
+        assertTrue(candidates.get(0).avalancheBias() > 0.5);
+        assertTrue(candidates.get(0).independenceBias() > 0.5);
+        for (int i = 2; i < candidates.size(); i++) {
+            RoundTuning.Candidate candidate = candidates.get(i);
+            assertTrue(candidate.meetsTarget(), candidate::toString);
+            assertTrue(candidate.avalancheBias() > 0, candidate::toString);
+            assertTrue(candidate.independenceBias() > 0, candidate::toString);
+        }
+    }
+
+    @Test
+    void supportsAllLongValues() {
+        RoundTuning tuning = Feistel.tuneRounds(
+                rounds -> Feistel.ofLongBinary(64, 32, 32, rounds, mixing),
+                0, 4, 4096, 0.2);
+        assertTrue(tuning.candidates().get(3).meetsTarget(),
+                tuning::toString);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> Feistel.tuneRounds(
+                rounds -> Feistel.spec(10, rounds, 0).feistel(), 1, 8, 100, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> Feistel.tuneRounds(
+                rounds -> Feistel.spec(10, rounds, 0).feistel(), 10, 0, 100, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> Feistel.tuneRounds(
+                rounds -> Feistel.spec(10, rounds, 0).feistel(), 10, 8, 0, 0.1));
+        assertThrows(IllegalArgumentException.class, () -> Feistel.tuneRounds(
+                rounds -> Feistel.spec(10, rounds, 0).feistel(), 10, 8, 100, Double.NaN));
+        assertThrows(NullPointerException.class, () -> Feistel.tuneRounds(
+                null, 10, 8, 100, 0.1));
+    }
+}
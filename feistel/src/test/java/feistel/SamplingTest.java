@@ -0,0 +1,81 @@
+package feistel;
+
+import com.carrotsearch.hppc.LongHashSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class SamplingTest extends BaseTest {
+
+    private static Stream<Arguments> params() {
+        return Stream.of(
+                Arguments.of(0, 0L),
+                Arguments.of(0, 10L),
+                Arguments.of(1, 1L),
+                Arguments.of(10, 10L),
+                Arguments.of(1000, 1000L),
+                Arguments.of(1000, 1_000_000_000_000L),
+                Arguments.of(100_000, 100_000_000L)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void samplesDistinctElements(int k, long n) {
+        long[] sample = Feistel.sample(k, n, 42);
+        assertEquals(k, sample.length);
+        LongHashSet seen = new LongHashSet();
+        for (long element : sample) {
+            assertTrue(element >= 0 && element < n, () -> "" + element);
+            assertTrue(seen.add(element), () -> "" + element);
+        }
+        assertArrayEquals(sample, Feistel.sampleParallel(k, n, 42));
+        assertArrayEquals(sample, Feistel.sampleStream(k, n, 42).toArray());
+        assertArrayEquals(sample, Feistel.sampleStream(k, n, 42)
+                .parallel().toArray());
+    }
+
+    @Test
+    void smallerSampleIsPrefix() {
+        long[] large = Feistel.sample(1000, 1_000_000, 7);
+        long[] small = Feistel.sample(10, 1_000_000, 7);
+        assertArrayEquals(small, Arrays.copyOf(large, 10));
+    }
+
+    @Test
+    void samplesUniformlyAcrossKeys() {
+        int n = 10;
+        int k = 3;
+        int keys = 20_000;
+        int[] counts = new int[n];
+        for (int key = 0; key < keys; key++) {
+            for (long element : Feistel.sample(k, n, key)) {
+                counts[(int) element]++;
+            }
+        }
+        double expected = (double) keys * k / n;
+        for (int count : counts) {
+            assertTrue(Math.abs(count - expected) < expected * 0.05,
+                    () -> Arrays.toString(counts));
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.sample(11, 10, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.sample(-1, 10, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.sampleStream(1, -1, 0));
+    }
+}
@@ -0,0 +1,85 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class ShuffleTest extends BaseTest {
+
+    private static Stream<Arguments> params() {
+        return IntStream.of(0, 1, 2, 63, 64, 1000, 4097, 100_003, 1 << 20)
+                .boxed()
+                .flatMap(length -> IntStream.of(0, 1, 8).mapToObj(rounds ->
+                        Arguments.of(length, rounds)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void shufflesByPermutation(int length, int rounds) throws Exception {
+        Isomorphism.OfLong f = Feistel.spec(length, rounds, 42).feistel();
+        long[] original = LongStream.range(0, length).map(i -> i * 3).toArray();
+        long[] expected = new long[length];
+        for (int i = 0; i < length; i++) {
+            expected[i] = original[(int) f.applyAsLong(i)];
+        }
+
+        long[] longs = original.clone();
+        Feistel.shuffle(longs, f);
+        assertArrayEquals(expected, longs);
+
+        long[] concurrent = original.clone();
+        ForkJoinPool pool = new ForkJoinPool(8);
+        try {
+            pool.submit(() -> Feistel.shuffle(concurrent, f)).get();
+        } finally {
+            pool.shutdown();
+        }
+        assertArrayEquals(expected, concurrent);
+
+        long[] gathered = new long[length];
+        Feistel.shuffle(original, gathered, f);
+        assertArrayEquals(expected, gathered);
+
+        int[] ints = LongStream.of(original).mapToInt(i -> (int) i).toArray();
+        Feistel.shuffle(ints, f);
+        assertArrayEquals(expected, IntStream.of(ints).asLongStream().toArray());
+
+        int[] intsGathered = new int[length];
+        Feistel.shuffle(LongStream.of(original).mapToInt(i -> (int) i).toArray(),
+                intsGathered, f);
+        assertArrayEquals(expected,
+                IntStream.of(intsGathered).asLongStream().toArray());
+
+        Long[] objects = LongStream.of(original).boxed().toArray(Long[]::new);
+        Feistel.shuffle(objects, f);
+        assertArrayEquals(LongStream.of(expected).boxed().toArray(), objects);
+
+        Long[] objectsGathered = new Long[length];
+        Feistel.shuffle(LongStream.of(original).boxed().toArray(Long[]::new),
+                objectsGathered, f);
+        assertArrayEquals(LongStream.of(expected).boxed().toArray(),
+                objectsGathered);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        Isomorphism.OfLong f = Feistel.spec(10, 8, 0).feistel();
+        long[] array = new long[10];
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.shuffle(array, array, f));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.shuffle(array, new long[9], f));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.shuffle(array, null));
+    }
+}
@@ -0,0 +1,128 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+final class ShuffledReaderTest extends BaseTest {
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("feistel", ".records");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    private void writeRecords(int records, int recordSize) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(records * recordSize);
+        for (int i = 0; i < records; i++) {
+            buffer.putInt(i);
+            for (int j = Integer.BYTES; j < recordSize; j++) {
+                buffer.put((byte) (i + j));
+            }
+        }
+        Files.write(file, buffer.array());
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void holdsAtMostReadAheadPlusOneWindows(
+            int records,
+            int recordSize,
+            int windowSize,
+            int readAhead
+    ) throws IOException {
+        writeRecords(records, recordSize);
+        Isomorphism.OfLong f = Feistel.spec(records, 8, 11).feistel();
+        byte[] record = new byte[recordSize];
+        long windows = (records + windowSize - 1) / windowSize;
+        try (ShuffledReader reader = Feistel.shuffledReader(
+                file, recordSize, f, windowSize, readAhead)) {
+            assertEquals(Math.min(readAhead, windows), reader.windows());
+            for (int position = 0; position < records; position++) {
+                reader.next(record);
+                long remaining = windows - position / windowSize - 1;
+                assertEquals(1 + Math.min(readAhead, remaining), reader.windows());
+            }
+        }
+    }
+
+    private static Stream<Arguments> params() {
+        return Stream.of(
+                Arguments.of(0, 4, 1, 0),
+                Arguments.of(1, 4, 1, 0),
+                Arguments.of(1000, 4, 1, 0),
+                Arguments.of(1000, 4, 7, 1),
+                Arguments.of(10_003, 8, 1000, 3),
+                Arguments.of(100_000, 16, 4096, 2),
+                Arguments.of(300_000, 4, 100_000, 1)
+        );
+    }
+
+    @ParameterizedTest
+    @MethodSource("params")
+    void readsRecordsInPermutedOrder(
+            int records,
+            int recordSize,
+            int windowSize,
+            int readAhead
+    ) throws IOException {
+        writeRecords(records, recordSize);
+        Isomorphism.OfLong f = Feistel.spec(records, 8, 11).feistel();
+        byte[] record = new byte[recordSize];
+        try (ShuffledReader reader = Feistel.shuffledReader(
+                file, recordSize, f, windowSize, readAhead)) {
+            assertEquals(records, reader.records());
+            for (int position = 0; position < records; position++) {
+                assertEquals(position, reader.position());
+                reader.next(record);
+                ByteBuffer buffer = ByteBuffer.wrap(record);
+                int index = buffer.getInt();
+                assertEquals(f.applyAsLong(position), index);
+                for (int j = Integer.BYTES; j < recordSize; j++) {
+                    assertEquals((byte) (index + j), buffer.get());
+                }
+            }
+            assertFalse(reader.hasNext());
+            assertThrows(NoSuchElementException.class, () -> reader.next(record));
+        }
+    }
+
+    @Test
+    void rejectsInvalidArguments() throws IOException {
+        writeRecords(10, 4);
+        Isomorphism.OfLong f = Feistel.spec(10, 8, 0).feistel();
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.shuffledReader(file, 3, f, 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.shuffledReader(file, 4, f, 0, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.shuffledReader(file, 4, f, 10, -1));
+
+        try (ShuffledReader reader = Feistel.shuffledReader(file, 4,
+                Feistel.spec(20, 8, 0).feistel(), 10, 1)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> reader.next(new byte[4]));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package feistel;
+
+import com.carrotsearch.hppc.LongHashSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.LongStream;
+
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+final class UniqueIdGeneratorTest extends BaseTest {
+
+    private static final RoundFunction.OfLong F =
+            (round, value) -> (value * 0x9e37_79b9_7f4a_7c15L) >>> round;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 7, 64, 1000})
+    void generatesEveryIdOnceAcrossThreads(int blockSize) throws Exception {
+        long size = 100_003;
+        UniqueIdGenerator ids = Feistel.uniqueIds(
+                Feistel.ofLongRange(size, 8, F), 0, size, blockSize);
+
+        int threads = 8;
+        ExecutorService executor = newFixedThreadPool(threads);
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Callable<long[]> task = () -> {
+                    LongStream.Builder generated = LongStream.builder();
+                    while (true) {
+                        try {
+                            generated.add(ids.next());
+                        } catch (IllegalStateException e) {
+                            return generated.build().toArray();
+                        }
+                    }
+                };
+                futures.add(executor.submit(task));
+            }
+
+            LongHashSet seen = new LongHashSet();
+            for (Future<long[]> future : futures) {
+                for (long id : future.get()) {
+                    assertTrue(id >= 0 && id < size, () -> "" + id);
+                    assertTrue(seen.add(id), () -> "" + id);
+                }
+            }
+            assertEquals(size, seen.size());
+            assertEquals(size, ids.claimed());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void continuesFromClaimed() {
+        long size = 1 << 12;
+        UniqueIdGenerator first = Feistel.uniqueIds(
+                Feistel.ofLongBalanced(12, 8, F), 0, size, 100);
+        LongHashSet seen = new LongHashSet();
+        for (int i = 0; i < 150; i++) {
+            assertTrue(seen.add(first.next()));
+        }
+        assertEquals(200, first.claimed());
+
+        UniqueIdGenerator second = Feistel.uniqueIds(
+                Feistel.ofLongBalanced(12, 8, F), first.claimed(), size, 100);
+        for (long i = first.claimed(); i < size; i++) {
+            assertTrue(seen.add(second.next()));
+        }
+        assertThrows(IllegalStateException.class, second::next);
+        assertThrows(IllegalStateException.class, second::next);
+    }
+
+    @Test
+    void rejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.uniqueIds(Feistel.ofLongRange(10, 8, F), -1, 10, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.uniqueIds(Feistel.ofLongRange(10, 8, F), 2, 1, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> Feistel.uniqueIds(Feistel.ofLongRange(10, 8, F), 0, 10, 0));
+        assertThrows(NullPointerException.class,
+                () -> Feistel.uniqueIds(null, 0, 10, 1));
+    }
+}
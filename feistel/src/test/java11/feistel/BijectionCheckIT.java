@@ -0,0 +1,54 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.ByteBuffer;
+
+import static feistel.BijectionCheck.Failure.Kind.COLLISION;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against the packaged multi-release jar, so that the Java 11
+ * version of {@link AtomicBits} is used.
+ */
+final class BijectionCheckIT {
+
+    @Test
+    void usesOffHeapBits() throws NoSuchFieldException {
+        assertEquals(ByteBuffer[].class,
+                AtomicBits.class.getDeclaredField("segments").getType());
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 63, 64, 65, 100_000, 1 << 22})
+    void acceptsBijections(int size) {
+        Isomorphism.OfLong f = Feistel.spec(size, 8, size).feistel();
+        BijectionCheck check = Feistel.checkBijection(f, size);
+        assertTrue(check.isBijection(), check::toString);
+        assertFalse(check.failure().isPresent());
+    }
+
+    @Test
+    void reportsCollision() {
+        Isomorphism.OfLong f = Isomorphism.OfLong.of(
+                x -> x == 500_001 ? 500_000 : x, y -> y);
+        BijectionCheck.Failure failure =
+                Feistel.checkBijection(f, 1_000_000).failure().get();
+        assertEquals(COLLISION, failure.kind());
+        assertEquals(500_001, failure.input());
+        assertEquals(500_000, failure.output());
+    }
+
+    @Test
+    void reportsFailureWithSmallestInput() {
+        Isomorphism.OfLong f = Isomorphism.OfLong.of(x -> x / 2 * 2, y -> y);
+        BijectionCheck check = Feistel.checkBijection(f, 1 << 20);
+        assertFalse(check.isBijection());
+        assertEquals(1, check.failure().get().input());
+    }
+}
@@ -0,0 +1,100 @@
+package feistel;
+
+import isomorphic.Isomorphism;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs against the packaged multi-release jar, so that the Java 11
+ * version of {@link Events} is used.
+ */
+final class EventsIT {
+
+    @Test
+    void recordsEvents() throws IOException {
+        Path file = Files.createTempFile("feistel", ".jfr");
+        try {
+            try (Recording recording = new Recording()) {
+                recording.enable("feistel.BulkApply").withThreshold(Duration.ZERO);
+                recording.enable("feistel.Build").withThreshold(Duration.ZERO);
+                recording.enable("feistel.CycleWalk");
+                recording.enable("feistel.CacheEvictions");
+                recording.start();
+
+                long[] array = LongStream.range(0, 1000).toArray();
+                Feistel.shuffle(array, new long[1000],
+                        Feistel.spec(1000, 8, 1).feistel());
+                Feistel.shuffle(array, Feistel.spec(1000, 8, 2).feistel());
+                Feistel.ofBitsliced(10, 8, BitslicedFeistel.Circuit.CHI, 3)
+                        .apply(new long[100]);
+                FeistelSpec.parse(Feistel.spec(100, 4, 4).encode());
+
+                Isomorphism.OfLong shift = Isomorphism.OfLong.of(
+                        x -> (x + 1) & 255, x -> (x - 1) & 255);
+                FeistelOfLongRange.cycleWalking(shift, 1).applyAsLong(0);
+
+                CachedIsomorphism.OfLong cached =
+                        Feistel.cache(Feistel.spec(1 << 20, 8, 5).feistel(), 16);
+                for (long i = 0; i < 1 << 15; i++) {
+                    for (int j = 0; j < 3; j++) {
+                        cached.applyAsLong(i);
+                    }
+                }
+                assertTrue(cached.stats().evictionCount() >= 1024,
+                        cached.stats()::toString);
+
+                recording.stop();
+                recording.dump(file);
+            }
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            Set<String> kernels = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("feistel.BulkApply"))
+                    .map(e -> e.getString("kernel"))
+                    .collect(toSet());
+            assertTrue(kernels.contains("gather"), kernels::toString);
+            assertTrue(kernels.contains("cycle-leader"), kernels::toString);
+            assertTrue(kernels.contains("bitsliced"), kernels::toString);
+
+            Set<String> kinds = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("feistel.Build"))
+                    .map(e -> e.getString("kind"))
+                    .collect(toSet());
+            assertTrue(kinds.contains("spec"), kinds::toString);
+            assertTrue(kinds.contains("bitsliced"), kinds::toString);
+
+            List<RecordedEvent> walks = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("feistel.CycleWalk"))
+                    .collect(toList());
+            assertEquals(1, walks.size());
+            assertEquals(256, walks.get(0).getInt("walks"));
+            assertEquals(1, walks.get(0).getLong("size"));
+
+            List<RecordedEvent> evictions = events.stream()
+                    .filter(e -> e.getEventType().getName().equals("feistel.CacheEvictions"))
+                    .collect(toList());
+            assertFalse(evictions.isEmpty());
+            for (RecordedEvent event : evictions) {
+                assertEquals(1024, event.getInt("count"));
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+}